@@ -17,6 +17,7 @@ dependencies {
     implementation("io.vertx:vertx-junit5:4.4.2")
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.8.1")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher:1.10.0")
 }
 
 tasks.test {
@@ -27,3 +28,51 @@ java {
     sourceCompatibility = JavaVersion.VERSION_17
     targetCompatibility = JavaVersion.VERSION_17
 }
+
+// Headless CLI with an AppCDS archive for fast startup (see lib.cli.AnalyserCli).
+// AppCDS only archives classes loaded from JARs, so both tasks run from the jar, not the classes folder.
+val cliMainClass = "lib.cli.AnalyserCli"
+val cliClasspath = files(tasks.jar) + configurations.runtimeClasspath.get()
+val cdsArchive = layout.buildDirectory.file("cds/analyser-cli.jsa")
+
+tasks.register<JavaExec>("cdsArchive") {
+    group = "distribution"
+    description = "Runs the CLI on this project's sources and dumps the loaded classes into an AppCDS archive."
+    classpath = cliClasspath
+    mainClass.set(cliMainClass)
+    args("--format", "json", "src/main/java")
+    jvmArgs("-XX:ArchiveClassesAtExit=" + cdsArchive.get().asFile.absolutePath, "-Xlog:cds=error")
+    outputs.file(cdsArchive)
+    isIgnoreExitValue = true
+    doFirst { cdsArchive.get().asFile.parentFile.mkdirs() }
+}
+
+tasks.register<JavaExec>("runCli") {
+    group = "application"
+    description = "Runs the headless CLI using the AppCDS archive, e.g. gradle runCli --args='--format json src'."
+    classpath = cliClasspath
+    mainClass.set(cliMainClass)
+    jvmArgs("-XX:SharedArchiveFile=" + cdsArchive.get().asFile.absolutePath, "-Xshare:auto", "-XX:TieredStopAtLevel=1")
+}
+
+// Allocation budgets of the hot paths (see bench.AllocationBudgetCheck), kept in their own source set so they stay out of the jar.
+// The check fails the build when a budget is exceeded.
+sourceSets {
+    create("bench") {
+        compileClasspath += sourceSets.main.get().output + configurations.runtimeClasspath.get()
+        runtimeClasspath += output + compileClasspath
+    }
+}
+
+val allocationBudgets = tasks.register<JavaExec>("allocationBudgets") {
+    group = "verification"
+    description = "Measures the bytes allocated per file, dependency and graph edge on the hot paths and fails above their budgets."
+    classpath = sourceSets["bench"].runtimeClasspath
+    mainClass.set("bench.AllocationBudgetCheck")
+    args("src/main/java")
+    jvmArgs("-Djava.awt.headless=true")
+}
+
+tasks.check {
+    dependsOn(allocationBudgets)
+}
@@ -0,0 +1,270 @@
+package bench;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import gui.components.GraphPanel;
+import gui.components.utils.ReactiveDependencyAnalyser;
+import lib.analyser.DependencyVisitor;
+import lib.analyser.ResolutionCache;
+import lib.analyser.solver.TypeSolverConfig;
+import lib.metrics.AnalysisMetrics;
+import lib.report.ClassDepsReport;
+import lib.utils.AsyncUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks the allocation of the hot paths against declared budgets and exits with status 1 when
+ * one is exceeded, so that {@code gradle check} fails on allocation regressions.
+ * <p>
+ * Each scenario runs once to warm up and once measured. Allocation is read from the per-thread
+ * counter of {@link com.sun.management.ThreadMXBean}, so only the thread running the scenario is
+ * counted, and divided by the unit of work of the scenario: a file, a dependency or an edge.
+ * <p>
+ * Usage: {@code AllocationBudgetCheck [source folder]}, by default {@code src/main/java}.
+ */
+public class AllocationBudgetCheck {
+    // Budgets are about 1.5 times the allocation measured when they were set
+    private static final long VISITOR_BYTES_PER_DEPENDENCY = 13_000;
+    private static final long REPORT_BYTES_PER_DEPENDENCY = 140;
+    private static final long REACTIVE_BYTES_PER_FILE = 110_000;
+    private static final long GRAPH_BYTES_PER_EDGE = 7_500;
+
+    private static final int REACTIVE_FILES = 8;
+    private static final int REPORT_CLASSES = 5_000;
+    private static final int REPORT_DEPENDENCIES_PER_CLASS = 20;
+    private static final int GRAPH_PACKAGES = 10;
+    private static final int GRAPH_CLASSES_PER_PACKAGE = 10;
+    private static final int GRAPH_EDGES_PER_CLASS = 4;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        Path sources = Path.of(args.length > 0 ? args[0] : "src/main/java");
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("Per-thread allocation counters are not supported by this JVM");
+            System.exit(2);
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        List<Path> files = javaFiles(sources);
+        if (files.isEmpty()) {
+            System.err.println("No Java files found in " + sources);
+            System.exit(2);
+        }
+
+        List<Result> results = new ArrayList<>();
+        results.add(measure("DependencyVisitor", "dependency", VISITOR_BYTES_PER_DEPENDENCY, meter -> visitFiles(files, meter)));
+        results.add(measure("ClassDepsReport", "dependency", REPORT_BYTES_PER_DEPENDENCY, AllocationBudgetCheck::fillReports));
+        results.add(measure("ReactiveDependencyAnalyser", "file", REACTIVE_BYTES_PER_FILE,
+                meter -> analyseReactively(files.subList(0, Math.min(REACTIVE_FILES, files.size())), meter)));
+        results.add(measure("GraphPanel", "edge", GRAPH_BYTES_PER_EDGE, AllocationBudgetCheck::buildGraph));
+
+        boolean exceeded = false;
+        for (Result result : results) {
+            System.out.println(result);
+            exceeded |= result.isExceeded();
+        }
+        if (exceeded) {
+            System.err.println("Allocation budget exceeded");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a scenario twice and measures the allocation of the second run.
+     *
+     * @param name     the name of the scenario
+     * @param unit     the unit of work the budget is expressed in
+     * @param budget   the budget in bytes per unit
+     * @param scenario the scenario, returning the number of units it processed and metering its hot part
+     * @return the measured allocation
+     * @throws Exception if the scenario fails
+     */
+    private static Result measure(String name, String unit, long budget, Scenario scenario) throws Exception {
+        scenario.run(new Meter());
+        System.gc();
+        Meter meter = new Meter();
+        long units = scenario.run(meter);
+        return new Result(name, unit, budget, meter.getBytes() / Math.max(1, units));
+    }
+
+    /**
+     * Parses the files, then visits them with a fresh resolution cache; only the visits count.
+     *
+     * @param files the Java files
+     * @param meter the meter of the visits
+     * @return the number of dependencies found
+     * @throws IOException if a file cannot be read
+     */
+    private static long visitFiles(List<Path> files, Meter meter) throws IOException {
+        JavaParser parser = new JavaParser();
+        parser.getParserConfiguration().setSymbolResolver(
+                new JavaSymbolSolver(TypeSolverConfig.reflectionOnly().createTypeSolver()));
+        List<CompilationUnit> units = new ArrayList<>();
+        for (Path file : files) parser.parse(file).getResult().ifPresent(units::add);
+
+        meter.start();
+        ResolutionCache cache = new ResolutionCache(50_000);
+        long dependencies = 0;
+        for (int i = 0; i < units.size(); i++) {
+            CompilationUnit cu = units.get(i);
+            String className = cu.findFirst(ClassOrInterfaceDeclaration.class)
+                    .flatMap(ClassOrInterfaceDeclaration::getFullyQualifiedName)
+                    .orElse("UnknownClass");
+            ClassDepsReport report = new ClassDepsReport(className);
+            cu.accept(new DependencyVisitor(report, className, null, cache, Set.of()), null);
+            dependencies += report.getDependencies().size();
+        }
+        meter.stop();
+        return dependencies;
+    }
+
+    /**
+     * Adds prebuilt dependencies to class reports.
+     *
+     * @param meter the meter of the additions
+     * @return the number of dependencies added
+     */
+    private static long fillReports(Meter meter) {
+        List<AsyncUtils> dependencies = new ArrayList<>();
+        for (int i = 0; i < REPORT_DEPENDENCIES_PER_CLASS; i++) {
+            dependencies.add(new AsyncUtils("Source", "pkg.Target" + i, AsyncUtils.DependencyType.FIELD, "Target" + i + " field", i));
+        }
+        meter.start();
+        List<ClassDepsReport> reports = new ArrayList<>(REPORT_CLASSES);
+        for (int i = 0; i < REPORT_CLASSES; i++) {
+            ClassDepsReport report = new ClassDepsReport("Source");
+            for (AsyncUtils dependency : dependencies) report.addDependency(dependency);
+            reports.add(report);
+        }
+        meter.stop();
+        return (long) REPORT_CLASSES * REPORT_DEPENDENCIES_PER_CLASS;
+    }
+
+    /**
+     * Runs the GUI analyser on a copy of some files, on the calling thread.
+     *
+     * @param files the files to analyse
+     * @param meter the meter of the analysis
+     * @return the number of files analysed
+     * @throws IOException if the files cannot be copied
+     */
+    private static long analyseReactively(List<Path> files, Meter meter) throws IOException {
+        Path folder = Files.createTempDirectory("allocation-budget");
+        try {
+            for (Path file : files) Files.copy(file, folder.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            ReactiveDependencyAnalyser analyser = new ReactiveDependencyAnalyser(Duration.ZERO, new AnalysisMetrics());
+            long[] emitted = new long[1];
+            meter.start();
+            analyser.analyzeDependencies(folder).blockingSubscribe(deps -> emitted[0]++);
+            meter.stop();
+            return emitted[0];
+        } finally {
+            try (Stream<Path> walk = Files.walk(folder)) {
+                for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Builds a synthetic graph the way the GUI does, one class and its edges at a time.
+     *
+     * @param meter the meter of the additions
+     * @return the number of edges added
+     */
+    private static long buildGraph(Meter meter) {
+        GraphPanel panel = new GraphPanel();
+        panel.setSize(1200, 800);
+        meter.start();
+        long edges = 0;
+        for (int p = 0; p < GRAPH_PACKAGES; p++) {
+            for (int c = 0; c < GRAPH_CLASSES_PER_PACKAGE; c++) {
+                String className = "pkg" + p + ".Class" + c;
+                panel.addNode(className);
+                for (int e = 1; e <= GRAPH_EDGES_PER_CLASS; e++) {
+                    panel.addEdge(className, "pkg" + (p + e) % GRAPH_PACKAGES + ".Class" + (c + e) % GRAPH_CLASSES_PER_PACKAGE);
+                    edges++;
+                }
+            }
+        }
+        meter.stop();
+        return edges;
+    }
+
+    private static List<Path> javaFiles(Path sources) throws IOException {
+        try (Stream<Path> walk = Files.walk(sources)) {
+            return walk.filter(file -> file.toString().endsWith(".java") && Files.isRegularFile(file))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * A unit of work whose allocation is measured.
+     */
+    @FunctionalInterface
+    private interface Scenario {
+        long run(Meter meter) throws Exception;
+    }
+
+    /**
+     * Counts the bytes the current thread allocates between {@link #start()} and {@link #stop()}.
+     */
+    private static final class Meter {
+        private long startBytes;
+        private long bytes;
+
+        private void start() {
+            startBytes = THREADS.getCurrentThreadAllocatedBytes();
+        }
+
+        private void stop() {
+            bytes = THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+        }
+
+        private long getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * The allocation of a scenario, per unit of work, and its budget.
+     */
+    private static final class Result {
+        private final String name;
+        private final String unit;
+        private final long budget;
+        private final long bytesPerUnit;
+
+        private Result(String name, String unit, long budget, long bytesPerUnit) {
+            this.name = name;
+            this.unit = unit;
+            this.budget = budget;
+            this.bytesPerUnit = bytesPerUnit;
+        }
+
+        private boolean isExceeded() {
+            return bytesPerUnit > budget;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %,10d B/%-10s budget %,10d B  %s",
+                    name, bytesPerUnit, unit, budget, isExceeded() ? "EXCEEDED" : "ok");
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package gui.components;
 
 import gui.components.utils.ReactiveDependencyAnalyser;
+import io.reactivex.rxjava3.disposables.Disposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
+import lib.metrics.AnalysisMetrics;
+import lib.metrics.ProgressSampler;
+import lib.metrics.ProgressSnapshot;
+import lib.metrics.jfr.GuiBatchAppliedEvent;
+import lib.metrics.jfr.JfrEvents;
 
 import javax.swing.*;
 import java.awt.*;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -15,9 +22,15 @@ import java.util.concurrent.atomic.AtomicInteger;
  * the dependency graph.
  */
 public class DependencyAnalyserPanel extends JPanel {
+    private static final Duration FILE_TIME_BUDGET = Duration.ofSeconds(5);
+    private static final Duration PROGRESS_INTERVAL = Duration.ofMillis(500);
     private final SourceSelector sourceSelector;
     private final OutputBox outputBox;
     private final GraphPanel graphPanel;
+    private final JLabel progressLabel = new JLabel("Idle");
+    private final JProgressBar progressBar = new JProgressBar(0, 1000);
+    private Disposable currentAnalysis;
+    private int currentRun;
 
     /**
      * Constructs a DependencyAnalyserPanel with all its components.
@@ -61,8 +74,11 @@ public class DependencyAnalyserPanel extends JPanel {
         outputPanel.add(outputScrollPane, BorderLayout.CENTER);
         this.add(outputPanel, BorderLayout.WEST);
 
-        // Center panel with the graph panel (no scroll)
-        this.add(graphPanel, BorderLayout.CENTER);
+        // Center panel with the node search bar and the graph panel (no scroll)
+        JPanel graphContainer = new JPanel(new BorderLayout());
+        graphContainer.add(new NodeSearchBar(graphPanel), BorderLayout.NORTH);
+        graphContainer.add(graphPanel, BorderLayout.CENTER);
+        this.add(graphContainer, BorderLayout.CENTER);
 
         // Bottom panel with the legend and statistics
         JPanel legendPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -84,6 +100,10 @@ public class DependencyAnalyserPanel extends JPanel {
         legendPanel.add(classesLabel);
         legendPanel.add(Box.createHorizontalStrut(10)); // Space between statistics
         legendPanel.add(dependenciesLabel);
+        legendPanel.add(Box.createHorizontalStrut(20));
+        progressBar.setPreferredSize(new Dimension(150, progressBar.getPreferredSize().height));
+        legendPanel.add(progressBar);
+        legendPanel.add(progressLabel);
 
         this.add(legendPanel, BorderLayout.SOUTH);
 
@@ -93,24 +113,42 @@ public class DependencyAnalyserPanel extends JPanel {
 
     /**
      * Starts the dependency analysis process.
+     * A previous analysis still running is disposed first, and its results still queued on
+     * the event dispatch thread are dropped, so only the new run writes into the graph.
      *
      * @param classesLabel      The label to update with the number of analyzed classes.
      * @param dependenciesLabel The label to update with the number of found dependencies.
      */
     private void startAnalysis(JLabel classesLabel, JLabel dependenciesLabel) {
+        if (currentAnalysis != null) currentAnalysis.dispose();
+        int run = ++currentRun;
+        graphPanel.clear();
         outputBox.setText("Analysis in progress...\n");
     
         Path path = Path.of(sourceSelector.getSelectedPath());
-        ReactiveDependencyAnalyser analyser = new ReactiveDependencyAnalyser();
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        ReactiveDependencyAnalyser analyser = new ReactiveDependencyAnalyser(FILE_TIME_BUDGET, metrics);
+        // Files of the package the user selects or zooms into are analysed first
+        graphPanel.setFocusListener(analyser::setFocus);
+        // Progress is sampled off the EDT at a fixed rate; the EDT only sees one update per sample
+        ProgressSampler progress = new ProgressSampler(metrics, PROGRESS_INTERVAL,
+                snapshot -> SwingUtilities.invokeLater(() -> {
+                    if (run == currentRun) showProgress(snapshot);
+                })).start();
     
         AtomicInteger classCount = new AtomicInteger(0);
         AtomicInteger dependencyCount = new AtomicInteger(0);
     
-        analyser.analyzeDependencies(path)
+        currentAnalysis = analyser.analyzeDependencies(path)
                 .subscribeOn(Schedulers.io())
                 .observeOn(io.reactivex.rxjava3.schedulers.Schedulers.trampoline())
+                .doFinally(progress::close)
                 .subscribe(
                         deps -> SwingUtilities.invokeLater(() -> {
+                            if (run != currentRun) return;
+                            GuiBatchAppliedEvent event = JfrEvents.ENABLED ? new GuiBatchAppliedEvent() : null;
+                            if (event != null) event.begin();
+
                             // Clear the output box for new results
                             outputBox.appendText("\n");
     
@@ -136,12 +174,31 @@ public class DependencyAnalyserPanel extends JPanel {
                             dependencyCount.addAndGet(deps.length - 1);
                             classesLabel.setText("Classes/Interfaces Analyzed: " + classCount.get());
                             dependenciesLabel.setText("Dependencies Found: " + dependencyCount.get());
+
+                            if (event != null && event.shouldCommit()) {
+                                event.className = deps[0];
+                                event.dependencyCount = deps.length - 1;
+                                event.commit();
+                            }
                         }),
                         error -> SwingUtilities.invokeLater(() -> {
+                            if (run != currentRun) return;
                             outputBox.appendColoredText("Error: " + error.getMessage() + "\n", Color.RED);
                             JOptionPane.showMessageDialog(this, "Error during analysis: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                         }),
-                        () -> SwingUtilities.invokeLater(() -> outputBox.appendText("Analysis completed.\n"))
+                        () -> SwingUtilities.invokeLater(() -> {
+                            if (run == currentRun) outputBox.appendText("Analysis completed.\n");
+                        })
                 );
     }
+
+    /**
+     * Shows a progress sample in the status bar.
+     *
+     * @param snapshot The latest progress sample.
+     */
+    private void showProgress(ProgressSnapshot snapshot) {
+        progressBar.setValue((int) Math.round(snapshot.getFractionDone() * progressBar.getMaximum()));
+        progressLabel.setText(snapshot.toString());
+    }
 }
\ No newline at end of file
@@ -1,25 +1,44 @@
 package gui.components;
 
+import gui.components.utils.NodeNameIndex;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.QuadCurve2D;
 import java.util.*;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * GraphPanel is a custom JPanel that visualizes a graph with nodes and edges.
  * It supports zooming, panning, and drawing curved edges with arrows.
+ * Clicking a package or one of its classes selects the package; the selected package and the
+ * packages left in view after zooming or panning are reported to a focus listener, so the
+ * analysis can get to them first.
+ * <p>
+ * Node names are indexed as nodes are added, so a search box can find a node on every keystroke
+ * and {@link #showNode(String)} it. Painting skips the nodes and edges outside the clip, so
+ * moving the highlight only repaints the two nodes involved, and the neighbourhood filter only
+ * draws the highlighted node and its direct dependencies and dependents.
  */
 public class GraphPanel extends JPanel {
     private final List<String> nodes = new ArrayList<>();
     private final List<String[]> edges = new ArrayList<>();
     private final Map<String, Point> nodePositions = new HashMap<>();
     private final Set<String> packageNodes = new HashSet<>();
+    private final Map<String, Set<String>> successors = new HashMap<>();
+    private final Map<String, Set<String>> predecessors = new HashMap<>();
+    private final NodeNameIndex nameIndex = new NodeNameIndex();
     private double zoomFactor = 1.0;
     private int offsetX = 0;
     private int offsetY = 0;
     private Point lastDragPoint = null;
+    private boolean dragged = false;
+    private String selectedPackage = null;
+    private String highlightedNode = null;
+    private boolean neighbourhoodOnly = false;
+    private Consumer<List<String>> focusListener = packages -> { };
 
     /**
      * Constructs a GraphPanel with default settings.
@@ -35,13 +54,27 @@ public class GraphPanel extends JPanel {
                 zoomFactor = Math.max(zoomFactor - 0.1, 0.5);
             }
             repaint();
+            fireFocusChanged();
         });
 
-        // Add mouse listener for panning
+        // Add mouse listener for panning and selecting
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
                 lastDragPoint = e.getPoint();
+                dragged = false;
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (dragged) fireFocusChanged();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                selectedPackage = packageAt(e.getPoint());
+                repaint();
+                fireFocusChanged();
             }
         });
 
@@ -54,6 +87,7 @@ public class GraphPanel extends JPanel {
                     offsetX += dx;
                     offsetY += dy;
                     lastDragPoint = e.getPoint();
+                    dragged = true;
                     repaint();
                 }
             }
@@ -70,10 +104,13 @@ public class GraphPanel extends JPanel {
         if (!nodes.contains(packageName)) {
             nodes.add(packageName);
             packageNodes.add(packageName);
+            nameIndex.add(packageName);
         }
         if (!nodes.contains(node)) {
             nodes.add(node);
             edges.add(new String[]{packageName, node});
+            link(packageName, node);
+            nameIndex.add(node);
         }
         calculateNodePositions();
         repaint();
@@ -87,10 +124,214 @@ public class GraphPanel extends JPanel {
      */
     public void addEdge(String from, String to) {
         edges.add(new String[]{from, to});
+        link(from, to);
         calculateNodePositions();
         repaint();
     }
 
+    /**
+     * Removes all nodes and edges, e.g. before the results of a new analysis are added.
+     */
+    public void clear() {
+        nodes.clear();
+        edges.clear();
+        nodePositions.clear();
+        packageNodes.clear();
+        successors.clear();
+        predecessors.clear();
+        nameIndex.clear();
+        selectedPackage = null;
+        highlightedNode = null;
+        repaint();
+    }
+
+    /**
+     * Finds the nodes whose simple or qualified name matches a query, see {@link NodeNameIndex#search(String, int)}.
+     *
+     * @param query The text typed by the user.
+     * @param limit The maximum number of nodes returned.
+     * @return The names of the matching nodes, best first.
+     */
+    public List<String> findNodes(String query, int limit) {
+        return nameIndex.search(query, limit);
+    }
+
+    /**
+     * Highlights a node, centring the view on it unless it is already in view. When the view
+     * stays put and the whole graph is drawn, only the previously and newly highlighted nodes
+     * are repainted.
+     *
+     * @param node The name of the node to highlight, or null to remove the highlight.
+     */
+    public void showNode(String node) {
+        String previous = highlightedNode;
+        highlightedNode = node != null && nodePositions.containsKey(node) ? node : null;
+        if (Objects.equals(previous, highlightedNode)) return;
+
+        boolean moved = false;
+        if (highlightedNode != null) {
+            Rectangle bounds = toScreen(nodeBounds(highlightedNode));
+            if (!new Rectangle(0, 0, getWidth(), getHeight()).contains(bounds)) {
+                Point pos = nodePositions.get(highlightedNode);
+                offsetX = getWidth() / 2 - (int) (pos.x * zoomFactor);
+                offsetY = getHeight() / 2 - (int) (pos.y * zoomFactor);
+                moved = true;
+            }
+        }
+        if (moved || neighbourhoodOnly) {
+            repaint();
+        } else {
+            repaintNode(previous);
+            repaintNode(highlightedNode);
+        }
+        if (moved) fireFocusChanged();
+    }
+
+    /**
+     * Restricts the drawing to the highlighted node, the nodes it depends on and the nodes
+     * depending on it. The whole graph is drawn while no node is highlighted.
+     *
+     * @param neighbourhoodOnly true to draw the neighbourhood of the highlighted node only.
+     */
+    public void setNeighbourhoodOnly(boolean neighbourhoodOnly) {
+        if (this.neighbourhoodOnly == neighbourhoodOnly) return;
+        this.neighbourhoodOnly = neighbourhoodOnly;
+        if (highlightedNode != null) repaint();
+    }
+
+    /**
+     * Sets the listener notified on the event dispatch thread whenever the user selects a
+     * package, zooms or pans.
+     *
+     * @param listener Receives the packages in focus, see {@link #getFocusedPackages()}.
+     */
+    public void setFocusListener(Consumer<List<String>> listener) {
+        this.focusListener = listener;
+    }
+
+    /**
+     * Retrieves the packages the user is looking at: the selected package first, then, when
+     * zooming or panning has left some packages out of view, the visible ones from the centre
+     * of the view outwards.
+     *
+     * @return The names of the packages in focus, empty if the whole graph is in view and nothing is selected.
+     */
+    public List<String> getFocusedPackages() {
+        List<String> focused = new ArrayList<>();
+        if (selectedPackage != null) focused.add(selectedPackage);
+        Rectangle view = new Rectangle(0, 0, getWidth(), getHeight());
+        Point centre = new Point(getWidth() / 2, getHeight() / 2);
+        List<String> visible = new ArrayList<>();
+        for (String pkg : packageNodes) {
+            Point pos = nodePositions.get(pkg);
+            if (pos != null && view.contains(toScreen(pos))) visible.add(pkg);
+        }
+        if (visible.size() == packageNodes.size()) return focused;
+        visible.sort(Comparator.comparingDouble(pkg -> toScreen(nodePositions.get(pkg)).distance(centre)));
+        for (String pkg : visible) {
+            if (!pkg.equals(selectedPackage)) focused.add(pkg);
+        }
+        return focused;
+    }
+
+    /**
+     * Notifies the focus listener of the packages now in focus.
+     */
+    private void fireFocusChanged() {
+        focusListener.accept(getFocusedPackages());
+    }
+
+    /**
+     * Finds the package drawn at a point of the panel, or the package of the class drawn there.
+     *
+     * @param screenPoint The point in panel coordinates.
+     * @return The package name, or null if no node is drawn at the point.
+     */
+    private String packageAt(Point screenPoint) {
+        double x = (screenPoint.x - offsetX) / zoomFactor;
+        double y = (screenPoint.y - offsetY) / zoomFactor;
+        for (String node : nodes) {
+            Point pos = nodePositions.get(node);
+            if (pos == null) continue;
+            if (packageNodes.contains(node)) {
+                if (Math.abs(x - pos.x) <= 30 && Math.abs(y - pos.y) <= 30) return node;
+            } else if (pos.distance(x, y) <= 25) {
+                return node.contains(".") ? node.substring(0, node.lastIndexOf('.')) : "default";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records an edge in the adjacency used by the neighbourhood filter.
+     *
+     * @param from The starting node of the edge.
+     * @param to   The ending node of the edge.
+     */
+    private void link(String from, String to) {
+        successors.computeIfAbsent(from, k -> new LinkedHashSet<>()).add(to);
+        predecessors.computeIfAbsent(to, k -> new LinkedHashSet<>()).add(from);
+    }
+
+    /**
+     * Retrieves the nodes the neighbourhood filter leaves in the drawing.
+     *
+     * @return The highlighted node and its neighbours, or null when the whole graph is drawn.
+     */
+    private Set<String> neighbourhood() {
+        if (!neighbourhoodOnly || highlightedNode == null) return null;
+        Set<String> shown = new LinkedHashSet<>();
+        shown.add(highlightedNode);
+        shown.addAll(successors.getOrDefault(highlightedNode, Set.of()));
+        shown.addAll(predecessors.getOrDefault(highlightedNode, Set.of()));
+        return shown;
+    }
+
+    /**
+     * Computes the area a node covers in graph coordinates, its label and highlight included.
+     *
+     * @param node The name of a node with a position.
+     * @return The bounds of the node.
+     */
+    private Rectangle nodeBounds(String node) {
+        Point pos = nodePositions.get(node);
+        if (packageNodes.contains(node)) return new Rectangle(pos.x - 150, pos.y - 36, 300, 86);
+        return new Rectangle(pos.x - 31, pos.y - 31, 62, 62);
+    }
+
+    /**
+     * Schedules the repaint of the area covered by a node only.
+     *
+     * @param node The name of the node, or null to repaint nothing.
+     */
+    private void repaintNode(String node) {
+        if (node == null || !nodePositions.containsKey(node)) return;
+        Rectangle bounds = toScreen(nodeBounds(node));
+        repaint(bounds.x - 2, bounds.y - 2, bounds.width + 4, bounds.height + 4);
+    }
+
+    /**
+     * Converts an area of the graph to panel coordinates, applying the current zoom and pan.
+     *
+     * @param graphArea The area in graph coordinates.
+     * @return The smallest area in panel coordinates containing it.
+     */
+    private Rectangle toScreen(Rectangle graphArea) {
+        Point corner = toScreen(graphArea.getLocation());
+        return new Rectangle(corner.x, corner.y, (int) Math.ceil(graphArea.width * zoomFactor) + 1,
+                (int) Math.ceil(graphArea.height * zoomFactor) + 1);
+    }
+
+    /**
+     * Converts a point of the graph to panel coordinates, applying the current zoom and pan.
+     *
+     * @param graphPoint The point in graph coordinates.
+     * @return The point in panel coordinates.
+     */
+    private Point toScreen(Point graphPoint) {
+        return new Point((int) (graphPoint.x * zoomFactor) + offsetX, (int) (graphPoint.y * zoomFactor) + offsetY);
+    }
+
     /**
      * Calculates the positions of nodes in the graph.
      */
@@ -153,68 +394,123 @@ public class GraphPanel extends JPanel {
         g2d.scale(zoomFactor, zoomFactor);
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
+        // The clip in graph coordinates: nodes and edges outside it are not drawn
+        Rectangle clip = g2d.getClipBounds();
+        Set<String> shown = neighbourhood();
+
         // Draw curved edges with arrows
         g2d.setColor(Color.GRAY);
-        for (String[] edge : edges) {
-            Point from = nodePositions.get(edge[0]);
-            Point to = nodePositions.get(edge[1]);
-            if (from != null && to != null) {
-                // Draw curved edge
-                int controlX = (from.x + to.x) / 2;
-                int controlY = (from.y + to.y) / 2 - 50;
-                QuadCurve2D curve = new QuadCurve2D.Float(from.x, from.y, controlX, controlY, to.x, to.y);
-                g2d.draw(curve);
-
-                // Draw arrow at the end of the edge
-                drawArrow(g2d, to.x, to.y, from.x, from.y);
-            }
+        if (shown == null) {
+            for (String[] edge : edges) drawEdge(g2d, edge[0], edge[1], clip);
+        } else {
+            for (String to : successors.getOrDefault(highlightedNode, Set.of())) drawEdge(g2d, highlightedNode, to, clip);
+            for (String from : predecessors.getOrDefault(highlightedNode, Set.of())) drawEdge(g2d, from, highlightedNode, clip);
         }
 
-        int circleSize = 50;
-
         // Draw nodes
-        for (String node : nodes) {
+        for (String node : shown == null ? nodes : shown) {
             Point pos = nodePositions.get(node);
-            if (pos == null) continue;
+            if (pos == null || clip != null && !clip.intersects(nodeBounds(node))) continue;
+            drawNode(g2d, node, pos);
+        }
+    }
 
-            if (packageNodes.contains(node)) {
-                // Draw package (rectangle)
-                g2d.setColor(new Color(173, 216, 230));
-                g2d.fillRect(pos.x - 30, pos.y - 30, 60, 60);
+    /**
+     * Draws a curved edge with an arrow, unless it lies outside the clip.
+     *
+     * @param g2d  The Graphics2D object used for drawing.
+     * @param from The starting node of the edge.
+     * @param to   The ending node of the edge.
+     * @param clip The clip in graph coordinates, or null to draw the edge anyway.
+     */
+    private void drawEdge(Graphics2D g2d, String from, String to, Rectangle clip) {
+        Point start = nodePositions.get(from);
+        Point end = nodePositions.get(to);
+        if (start == null || end == null) return;
+        int controlX = (start.x + end.x) / 2;
+        int controlY = (start.y + end.y) / 2 - 50;
+        if (clip != null) {
+            // The curve lies within the triangle of its end and control points, the arrow within 15 of its tip
+            int minX = Math.min(Math.min(start.x, end.x), controlX) - 15;
+            int minY = Math.min(Math.min(start.y, end.y), controlY) - 15;
+            int maxX = Math.max(Math.max(start.x, end.x), controlX) + 15;
+            int maxY = Math.max(Math.max(start.y, end.y), controlY) + 15;
+            if (!clip.intersects(minX, minY, maxX - minX, maxY - minY)) return;
+        }
+        // Draw curved edge
+        QuadCurve2D curve = new QuadCurve2D.Float(start.x, start.y, controlX, controlY, end.x, end.y);
+        g2d.draw(curve);
+
+        // Draw arrow at the end of the edge
+        drawArrow(g2d, end.x, end.y, start.x, start.y);
+    }
+
+    /**
+     * Draws a node: a package as a labelled square, a class as a circle holding its simple name.
+     *
+     * @param g2d  The Graphics2D object used for drawing.
+     * @param node The name of the node.
+     * @param pos  The position of the node.
+     */
+    private void drawNode(Graphics2D g2d, String node, Point pos) {
+        int circleSize = 50;
+        if (packageNodes.contains(node)) {
+            // Draw package (rectangle)
+            g2d.setColor(new Color(173, 216, 230));
+            g2d.fillRect(pos.x - 30, pos.y - 30, 60, 60);
+            if (node.equals(selectedPackage)) {
+                // Highlight the selected package
+                g2d.setColor(new Color(255, 140, 0));
+                g2d.setStroke(new BasicStroke(3));
+                g2d.drawRect(pos.x - 30, pos.y - 30, 60, 60);
+                g2d.setStroke(new BasicStroke(1));
+            } else {
                 g2d.setColor(Color.BLUE);
                 g2d.drawRect(pos.x - 30, pos.y - 30, 60, 60);
+            }
+
+            // Draw package name
+            g2d.setColor(Color.BLACK);
+            Font font = new Font("SansSerif", Font.PLAIN, 10);
+            g2d.setFont(font);
+            FontMetrics fm = g2d.getFontMetrics();
+            int labelWidth = fm.stringWidth(node);
+            g2d.drawString(node, pos.x - labelWidth / 2, pos.y + 45);
+        } else {
+            // Draw class (circle)
+            g2d.setColor(Color.LIGHT_GRAY);
+            g2d.fillOval(pos.x - circleSize / 2, pos.y - circleSize / 2, circleSize, circleSize);
+            g2d.setColor(Color.BLACK);
+            g2d.drawOval(pos.x - circleSize / 2, pos.y - circleSize / 2, circleSize, circleSize);
 
-                // Draw package name
-                g2d.setColor(Color.BLACK);
-                Font font = new Font("SansSerif", Font.PLAIN, 10);
+            // Draw class name centered
+            String simpleName = node.contains(".") ? node.substring(node.lastIndexOf('.') + 1) : node;
+            int fontSize = 12;
+            Font font;
+            FontMetrics fm;
+            int labelWidth;
+
+            do {
+                font = new Font("SansSerif", Font.PLAIN, fontSize);
                 g2d.setFont(font);
-                FontMetrics fm = g2d.getFontMetrics();
-                int labelWidth = fm.stringWidth(node);
-                g2d.drawString(node, pos.x - labelWidth / 2, pos.y + 45);
+                fm = g2d.getFontMetrics();
+                labelWidth = fm.stringWidth(simpleName);
+                fontSize--;
+            } while (labelWidth > circleSize - 10 && fontSize > 6);
+
+            g2d.drawString(simpleName, pos.x - labelWidth / 2, pos.y + fm.getAscent() / 2 - 2);
+        }
+
+        if (node.equals(highlightedNode)) {
+            // Ring the node found by a search
+            g2d.setColor(new Color(220, 20, 60));
+            g2d.setStroke(new BasicStroke(3));
+            if (packageNodes.contains(node)) {
+                g2d.drawRect(pos.x - 34, pos.y - 34, 68, 68);
             } else {
-                // Draw class (circle)
-                g2d.setColor(Color.LIGHT_GRAY);
-                g2d.fillOval(pos.x - circleSize / 2, pos.y - circleSize / 2, circleSize, circleSize);
-                g2d.setColor(Color.BLACK);
-                g2d.drawOval(pos.x - circleSize / 2, pos.y - circleSize / 2, circleSize, circleSize);
-
-                // Draw class name centered
-                String simpleName = node.contains(".") ? node.substring(node.lastIndexOf('.') + 1) : node;
-                int fontSize = 12;
-                Font font;
-                FontMetrics fm;
-                int labelWidth;
-
-                do {
-                    font = new Font("SansSerif", Font.PLAIN, fontSize);
-                    g2d.setFont(font);
-                    fm = g2d.getFontMetrics();
-                    labelWidth = fm.stringWidth(simpleName);
-                    fontSize--;
-                } while (labelWidth > circleSize - 10 && fontSize > 6);
-
-                g2d.drawString(simpleName, pos.x - labelWidth / 2, pos.y + fm.getAscent() / 2 - 2);
+                g2d.drawOval(pos.x - circleSize / 2 - 4, pos.y - circleSize / 2 - 4, circleSize + 8, circleSize + 8);
             }
+            g2d.setStroke(new BasicStroke(1));
         }
     }
 
@@ -0,0 +1,91 @@
+package gui.components;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NodeSearchBar is a custom JPanel that finds nodes of a {@link GraphPanel} as the user types.
+ * Every keystroke queries the name index of the graph and highlights the best match; Enter
+ * moves to the next match, and a check box restricts the graph to the neighbourhood of the
+ * highlighted node.
+ */
+public class NodeSearchBar extends JPanel {
+    private static final int MAX_MATCHES = 50;
+    private final GraphPanel graphPanel;
+    private final JTextField searchField = new JTextField(20);
+    private final JLabel matchLabel = new JLabel(" ");
+    private List<String> matches = new ArrayList<>();
+    private int current;
+
+    /**
+     * Constructs a NodeSearchBar searching the nodes of a graph panel.
+     *
+     * @param graphPanel The graph panel whose nodes are searched and highlighted.
+     */
+    public NodeSearchBar(GraphPanel graphPanel) {
+        this.graphPanel = graphPanel;
+        this.setLayout(new FlowLayout(FlowLayout.LEFT));
+
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                search();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                search();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                search();
+            }
+        });
+        searchField.addActionListener(e -> showNext());
+
+        JCheckBox neighbourhoodBox = new JCheckBox("Neighbourhood only");
+        neighbourhoodBox.addActionListener(e -> graphPanel.setNeighbourhoodOnly(neighbourhoodBox.isSelected()));
+
+        this.add(new JLabel("Find:"));
+        this.add(searchField);
+        this.add(matchLabel);
+        this.add(neighbourhoodBox);
+    }
+
+    /**
+     * Looks up the text of the search field and highlights the best match.
+     */
+    private void search() {
+        matches = graphPanel.findNodes(searchField.getText(), MAX_MATCHES);
+        current = 0;
+        if (matches.isEmpty()) {
+            matchLabel.setText(searchField.getText().isBlank() ? " " : "No match");
+            graphPanel.showNode(null);
+        } else {
+            showCurrent();
+        }
+    }
+
+    /**
+     * Highlights the next match, back to the first one after the last.
+     */
+    private void showNext() {
+        if (matches.isEmpty()) return;
+        current = (current + 1) % matches.size();
+        showCurrent();
+    }
+
+    /**
+     * Highlights the current match and shows its rank among the matches.
+     */
+    private void showCurrent() {
+        String count = matches.size() == MAX_MATCHES ? MAX_MATCHES + "+" : String.valueOf(matches.size());
+        matchLabel.setText((current + 1) + "/" + count + ": " + matches.get(current));
+        graphPanel.showNode(matches.get(current));
+    }
+}
@@ -5,8 +5,8 @@ import java.awt.*;
 
 /**
  * SourceSelector is a custom JPanel that provides a user interface
- * for selecting a source folder. It includes a text field to display
- * the selected folder path and a button to open a folder chooser dialog.
+ * for selecting a source folder or a .zip/.jar source archive. It includes a text field to display
+ * the selected path and a button to open a chooser dialog.
  */
 public class SourceSelector extends JPanel {
     private final JTextField folderField;
@@ -23,7 +23,7 @@ public class SourceSelector extends JPanel {
 
         folderButton.addActionListener(e -> {
             JFileChooser chooser = new JFileChooser();
-            chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
             int result = chooser.showOpenDialog(this);
             if (result == JFileChooser.APPROVE_OPTION) {
                 folderField.setText(chooser.getSelectedFile().getAbsolutePath());
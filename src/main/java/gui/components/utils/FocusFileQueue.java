@@ -0,0 +1,102 @@
+package gui.components.utils;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A queue of discovered source files that hands out the files of the focused packages first.
+ * <p>
+ * Files are kept per folder, in discovery order. The focus is a list of package names, most
+ * important first, and can change at any time while the queue is being drained: the next
+ * {@link #take()} serves the first focused package that still has files, whose folder is the one
+ * ending with the package path, and falls back to discovery order when none matches.
+ */
+final class FocusFileQueue {
+    private final Map<Path, Deque<Path>> pending = new LinkedHashMap<>();
+    private List<String[]> focus = List.of();
+    private boolean finished;
+
+    /**
+     * Adds the files of a folder found by the discovery.
+     *
+     * @param folder The folder of the files.
+     * @param files  The Java files directly inside the folder.
+     */
+    synchronized void addAll(Path folder, List<Path> files) {
+        if (files.isEmpty()) return;
+        pending.computeIfAbsent(folder, k -> new ArrayDeque<>()).addAll(files);
+        notifyAll();
+    }
+
+    /**
+     * Marks the end of the discovery: once the queue is drained, {@link #take()} returns null.
+     */
+    synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Replaces the focused packages.
+     *
+     * @param packageNames The fully qualified names of the packages to analyse first, most important first.
+     */
+    synchronized void setFocus(List<String> packageNames) {
+        List<String[]> segments = new ArrayList<>();
+        for (String packageName : packageNames) {
+            if (!packageName.isEmpty() && !packageName.equals("default")) segments.add(packageName.split("\\."));
+        }
+        focus = segments;
+    }
+
+    /**
+     * Takes the next file, waiting for the discovery if no file is pending yet.
+     *
+     * @return The next file, or null once the discovery has finished and every file was taken.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    synchronized Path take() throws InterruptedException {
+        while (pending.isEmpty() && !finished) wait();
+        if (pending.isEmpty()) return null;
+        Path folder = nextFolder();
+        Deque<Path> files = pending.get(folder);
+        Path file = files.poll();
+        if (files.isEmpty()) pending.remove(folder);
+        return file;
+    }
+
+    /**
+     * Picks the folder to take the next file from.
+     *
+     * @return The folder of the first focused package with pending files, or else the earliest discovered one.
+     */
+    private Path nextFolder() {
+        for (String[] packageName : focus) {
+            for (Path folder : pending.keySet()) {
+                if (isPackageFolder(folder, packageName)) return folder;
+            }
+        }
+        return pending.keySet().iterator().next();
+    }
+
+    /**
+     * Tells whether a folder holds a package, that is whether its path ends with the package path.
+     *
+     * @param folder      The folder.
+     * @param packageName The segments of the package name.
+     * @return True if the last names of the folder are the package segments.
+     */
+    private static boolean isPackageFolder(Path folder, String[] packageName) {
+        int offset = folder.getNameCount() - packageName.length;
+        if (offset < 0) return false;
+        for (int i = 0; i < packageName.length; i++) {
+            if (!folder.getName(offset + i).toString().equals(packageName[i])) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,208 @@
+package gui.components.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An index over the names of the nodes of a graph, answering search-as-you-type queries without
+ * scanning the nodes. Names are indexed once, as the graph grows.
+ * <p>
+ * Each name is indexed under its simple name, the part after the last dot, and under its qualified
+ * name, both lower-cased. A prefix trie answers the queries a simple or qualified name starts with,
+ * and the trigrams of the qualified names answer the queries of three characters or more found
+ * anywhere in a name, by intersecting their sorted posting lists. Shorter queries only match prefixes.
+ * <p>
+ * Not thread-safe; the graph panel uses it on the event dispatch thread.
+ */
+public class NodeNameIndex {
+    private static final int GRAM = 3;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<String> lowerNames = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+    private TrieNode root = new TrieNode();
+
+    /**
+     * Adds a name to the index, unless it is already there.
+     *
+     * @param name The simple or qualified name of a node.
+     */
+    public void add(String name) {
+        if (ids.containsKey(name)) return;
+        int id = names.size();
+        String lower = name.toLowerCase(Locale.ROOT);
+        names.add(name);
+        lowerNames.add(lower);
+        ids.put(name, id);
+
+        String simple = lower.substring(lower.lastIndexOf('.') + 1);
+        insert(simple, 2 * id);
+        if (!simple.equals(lower)) insert(lower, 2 * id + 1);
+        for (int i = 0; i + GRAM <= lower.length(); i++) {
+            trigrams.computeIfAbsent(trigram(lower, i), k -> new Postings()).add(id);
+        }
+    }
+
+    /**
+     * Finds the names matching a query, ignoring case: names whose simple name is the query,
+     * then names whose simple or qualified name starts with it, then names containing it.
+     * The trie is walked depth first, so a short query stops at the limit instead of visiting
+     * every key starting with it.
+     *
+     * @param query The text typed by the user.
+     * @param limit The maximum number of names returned.
+     * @return The matching names, best first.
+     */
+    public List<String> search(String query, int limit) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        List<String> matches = new ArrayList<>();
+        if (q.isEmpty() || limit <= 0) return matches;
+        int[] found = new int[limit];
+        int count = 0;
+
+        TrieNode node = find(q);
+        if (node != null) {
+            for (int i = 0; i < node.idCount && count < limit; i++) {
+                if ((node.ids[i] & 1) == 0) count = collect(found, count, node.ids[i] >>> 1);
+            }
+            ArrayDeque<TrieNode> pending = new ArrayDeque<>();
+            pending.push(node);
+            while (!pending.isEmpty() && count < limit) {
+                TrieNode next = pending.pop();
+                for (int i = 0; i < next.idCount && count < limit; i++) count = collect(found, count, next.ids[i] >>> 1);
+                for (int i = next.childCount - 1; i >= 0; i--) pending.push(next.children[i]);
+            }
+        }
+        if (q.length() >= GRAM && count < limit) count = searchSubstring(q, found, count, limit);
+
+        for (int i = 0; i < count; i++) matches.add(names.get(found[i]));
+        return matches;
+    }
+
+    /**
+     * Retrieves the number of indexed names.
+     *
+     * @return The index size.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Removes every name, e.g. before the graph of a new analysis is built.
+     */
+    public void clear() {
+        names.clear();
+        lowerNames.clear();
+        ids.clear();
+        trigrams.clear();
+        root = new TrieNode();
+    }
+
+    /**
+     * Adds the names containing a query to the matches, intersecting the posting lists of its
+     * trigrams from the shortest one and checking each candidate against the whole query.
+     *
+     * @param q     The lower-cased query, at least {@value #GRAM} characters long.
+     * @param found The ids of the matches found so far.
+     * @param count The number of matches found so far.
+     * @param limit The maximum number of matches.
+     * @return The number of matches found.
+     */
+    private int searchSubstring(String q, int[] found, int count, int limit) {
+        Postings[] lists = new Postings[q.length() - GRAM + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = trigrams.get(trigram(q, i));
+            if (lists[i] == null) return count;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] cursors = new int[lists.length];
+        for (int i = 0; i < lists[0].size && count < limit; i++) {
+            int id = lists[0].ids[i];
+            boolean inAll = true;
+            for (int l = 1; l < lists.length && inAll; l++) {
+                Postings list = lists[l];
+                while (cursors[l] < list.size && list.ids[cursors[l]] < id) cursors[l]++;
+                inAll = cursors[l] < list.size && list.ids[cursors[l]] == id;
+            }
+            if (inAll && lowerNames.get(id).contains(q)) count = collect(found, count, id);
+        }
+        return count;
+    }
+
+    private static int collect(int[] found, int count, int id) {
+        for (int i = 0; i < count; i++) {
+            if (found[i] == id) return count;
+        }
+        found[count] = id;
+        return count + 1;
+    }
+
+    private void insert(String key, int taggedId) {
+        TrieNode node = root;
+        for (int i = 0; i < key.length(); i++) node = node.child(key.charAt(i), true);
+        node.addId(taggedId);
+    }
+
+    private TrieNode find(String key) {
+        TrieNode node = root;
+        for (int i = 0; i < key.length() && node != null; i++) node = node.child(key.charAt(i), false);
+        return node;
+    }
+
+    private static long trigram(String s, int start) {
+        return (long) s.charAt(start) << 32 | (long) s.charAt(start + 1) << 16 | s.charAt(start + 2);
+    }
+
+    /**
+     * A node of the trie, holding the ids of the keys ending at it. An id is tagged in its lowest
+     * bit: 0 when the key is the simple name, 1 when it is the qualified name.
+     */
+    private static final class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private int childCount;
+        private int[] ids = new int[0];
+        private int idCount;
+
+        private TrieNode child(char c, boolean create) {
+            for (int i = 0; i < childCount; i++) {
+                if (keys[i] == c) return children[i];
+            }
+            if (!create) return null;
+            if (childCount == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(2, 2 * childCount));
+                children = Arrays.copyOf(children, keys.length);
+            }
+            TrieNode child = new TrieNode();
+            keys[childCount] = c;
+            children[childCount++] = child;
+            return child;
+        }
+
+        private void addId(int taggedId) {
+            if (idCount == ids.length) ids = Arrays.copyOf(ids, Math.max(1, 2 * idCount));
+            ids[idCount++] = taggedId;
+        }
+    }
+
+    /**
+     * The ids of the names containing a trigram, in ascending order since ids are handed out in order.
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, 2 * size);
+            ids[size++] = id;
+        }
+    }
+}
@@ -1,125 +1,272 @@
 package gui.components.utils;
 
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.ObservableEmitter;
+import lib.analyser.CancellationToken;
+import lib.analyser.ContentDeduplicator;
+import lib.analyser.FileBudgetExceededException;
+import lib.analyser.SourceArchive;
+import lib.analyser.SourceBuffer;
+import lib.analyser.SourceBufferPool;
+import lib.analyser.SourceDiscovery;
+import lib.metrics.AnalysisMetrics;
 
 import java.io.*;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * ReactiveDependencyAnalyser is a utility class that analyzes Java files in a project directory
  * and extracts dependencies (imports) and class names using a reactive programming approach.
  * It emits the results incrementally as an RxJava Observable.
+ * Files of the packages in focus, such as the package selected in the graph, are analysed
+ * before the others; the focus can be moved while the analysis runs.
+ * Each file is read once into a buffer, which is both fingerprinted and scanned. Files with
+ * byte-identical content are analysed once per run and share the package and imports found; only
+ * the class name, which follows the file name, differs between them.
  */
 public class ReactiveDependencyAnalyser {
+    private final SourceDiscovery discovery = new SourceDiscovery();
+    private final SourceBufferPool sourceBuffers = new SourceBufferPool(1);
+    private final long fileTimeBudgetNanos;
+    private final AnalysisMetrics metrics;
+    private volatile List<String> focus = List.of();
+    private volatile FocusFileQueue queue;
+
+    /**
+     * Constructs a ReactiveDependencyAnalyser without a per-file time budget.
+     */
+    public ReactiveDependencyAnalyser() {
+        this(Duration.ZERO, new AnalysisMetrics());
+    }
+
+    /**
+     * Constructs a ReactiveDependencyAnalyser that skips files taking longer than the given budget.
+     *
+     * @param fileTimeBudget The budget per file, or {@link Duration#ZERO} for no budget.
+     * @param metrics        The metrics recording discovered, completed and failed files, which a
+     *                       {@link lib.metrics.ProgressSampler} can report on.
+     */
+    public ReactiveDependencyAnalyser(Duration fileTimeBudget, AnalysisMetrics metrics) {
+        this.fileTimeBudgetNanos = fileTimeBudget.toNanos();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Retrieves the metrics recorded by this analyser.
+     *
+     * @return The file counters of the analyses run so far.
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Moves the files of the given packages to the front of the analysis, ahead of the files
+     * discovered so far. Safe to call from any thread, before or during the analysis.
+     *
+     * @param packageNames The fully qualified names of the packages in focus, most important first.
+     */
+    public void setFocus(List<String> packageNames) {
+        focus = List.copyOf(packageNames);
+        FocusFileQueue current = queue;
+        if (current != null) current.setFocus(focus);
+    }
 
     /**
      * Analyzes the dependencies of all Java files in the given project directory.
+     * The project can also be a .zip or .jar source archive, whose entries are read in place.
      *
-     * @param projectPath The path to the project directory.
+     * @param projectPath The path to the project directory or source archive.
      * @return An Observable that emits an array of strings for each Java file.
      *         The first element is the fully qualified class name, followed by its dependencies (imports).
+     *         Disposing the subscription stops the analysis before the next file and the walk of the
+     *         folder before the next directory.
      */
     public Observable<String[]> analyzeDependencies(Path projectPath) {
         return Observable.create(emitter -> {
-            File folder = projectPath.toAbsolutePath().toFile();
-            if (!folder.exists() || !folder.isDirectory()) {
-                emitter.onError(new Exception("Invalid directory: " + projectPath));
+            if (SourceArchive.isArchive(projectPath)) {
+                try (FileSystem archive = SourceArchive.open(projectPath)) {
+                    analyzeFolder(SourceArchive.root(archive), projectPath, emitter);
+                }
                 return;
             }
-
-            List<File> javaFiles = new ArrayList<>();
-            findJavaFilesRecursively(folder, javaFiles);
-
-            if (javaFiles.isEmpty()) {
-                emitter.onError(new Exception("No Java files found in the directory: " + projectPath));
+            Path folder = projectPath.toAbsolutePath();
+            if (!Files.isDirectory(folder)) {
+                emitter.onError(new Exception("Invalid directory: " + projectPath));
                 return;
             }
+            analyzeFolder(folder, projectPath, emitter);
+        });
+    }
 
-            for (File file : javaFiles) {
-                try {
-                    System.out.println("Found file: " + file.getName());
-                    Thread.sleep(300); // Simulate analysis time
+    /**
+     * Analyzes all Java files below a folder and emits one result per file.
+     *
+     * @param folder      The folder to search, on disk or inside an archive.
+     * @param projectPath The path selected by the user, used in error messages.
+     * @param emitter     The emitter receiving the results.
+     * @throws InterruptedException If the thread is interrupted while waiting for discovered files.
+     */
+    private void analyzeFolder(Path folder, Path projectPath, ObservableEmitter<String[]> emitter) throws InterruptedException {
+        // Discovery runs on its own thread and streams files in, ordered by the current focus
+        FocusFileQueue javaFiles = new FocusFileQueue();
+        ContentDeduplicator<FileHeader> deduplicator = new ContentDeduplicator<>(Integer.MAX_VALUE);
+        queue = javaFiles;
+        javaFiles.setFocus(focus);
+        AtomicReference<Exception> discoveryError = new AtomicReference<>();
+        CancellationToken token = new CancellationToken();
+        Thread discoveryThread = new Thread(() -> {
+            try {
+                discovery.discover(folder, (dir, files) -> {
+                    metrics.recordFilesDiscovered(files.size());
+                    javaFiles.addAll(dir, files);
+                }, token);
+            } catch (CancellationException e) {
+                // The subscription was disposed: nobody waits for the rest of the tree
+            } catch (RuntimeException e) {
+                discoveryError.set(e);
+            } finally {
+                javaFiles.finish();
+            }
+        }, "source-discovery");
+        discoveryThread.setDaemon(true);
+        emitter.setCancellable(() -> {
+            token.cancel();
+            discoveryThread.interrupt();
+        });
+        discoveryThread.start();
 
-                    String className = extractFullClassName(file);
-                    List<String> dependencies = extractImports(file);
+        int analysed = 0;
+        for (Path file = nextFile(javaFiles, token); file != null; file = nextFile(javaFiles, token)) {
+            analysed++;
+            try {
+                System.out.println("Found file: " + file.getFileName());
+                Path current = file;
+                FileHeader header;
+                try (SourceBuffer source = sourceBuffers.read(file)) {
+                    metrics.recordFileRead(source.size());
+                    header = deduplicator.analyse(source.fingerprint(), source.size(), null,
+                            () -> analyseFile(current, source, token));
+                }
+                metrics.recordFileAnalysed(header.imports.size());
 
-                    List<String> output = new ArrayList<>();
-                    output.add(className);
-                    output.addAll(dependencies);
+                List<String> output = new ArrayList<>();
+                output.add(header.packageName + "." + file.getFileName().toString().replace(".java", ""));
+                output.addAll(header.imports);
 
-                    emitter.onNext(output.toArray(new String[0]));
-                } catch (Exception e) {
-                    emitter.onError(e);
-                }
+                emitter.onNext(output.toArray(new String[0]));
+            } catch (FileBudgetExceededException e) {
+                metrics.recordFileSkipped(file.toString());
+                System.err.println("Skipped " + e.getMessage());
+            } catch (CancellationException e) {
+                return;
+            } catch (InterruptedException e) {
+                if (emitter.isDisposed()) return;
+                emitter.onError(e);
+            } catch (Exception e) {
+                metrics.recordFileFailed();
+                emitter.onError(e);
             }
+        }
 
+        if (emitter.isDisposed()) return;
+        if (discoveryError.get() != null) {
+            emitter.onError(discoveryError.get());
+        } else if (analysed == 0) {
+            emitter.onError(new Exception("No Java files found in the directory: " + projectPath));
+        } else {
             emitter.onComplete();
-        });
+        }
     }
 
     /**
-     * Recursively finds all Java files in the given directory and its subdirectories.
+     * Takes the next discovered file in focus order, unless the subscriber has gone away.
      *
-     * @param directory The directory to search.
-     * @param javaFiles The list to store the found Java files.
+     * @param javaFiles The queue of discovered files.
+     * @param token     The token cancelled when the subscription is disposed.
+     * @return The next file, or null if every file was taken or the subscription was disposed.
+     * @throws InterruptedException If the thread is interrupted while the subscription is still active.
      */
-    private void findJavaFilesRecursively(File directory, List<File> javaFiles) {
-        File[] files = directory.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                findJavaFilesRecursively(file, javaFiles);
-            } else if (file.getName().endsWith(".java")) {
-                javaFiles.add(file);
-            }
+    private Path nextFile(FocusFileQueue javaFiles, CancellationToken token) throws InterruptedException {
+        if (token.isCancelled()) return null;
+        try {
+            Path file = javaFiles.take();
+            return token.isCancelled() ? null : file;
+        } catch (InterruptedException e) {
+            if (token.isCancelled()) return null;
+            throw e;
         }
     }
 
     /**
-     * Extracts the import statements from a Java file.
+     * Analyses the content of a Java file within the per-file time budget.
      *
-     * @param file The Java file to analyze.
-     * @return A list of fully qualified class names from the import statements.
-     * @throws IOException If an I/O error occurs while reading the file.
+     * @param file   The Java file to analyze, used in error messages.
+     * @param source The content of the file, read once.
+     * @param token  The token cancelled when the subscription is disposed.
+     * @return The package and imports of the file.
+     * @throws IOException                 If an I/O error occurs while decoding the content.
+     * @throws InterruptedException        If the thread is interrupted during the analysis.
+     * @throws FileBudgetExceededException If the budget runs out before the whole file is scanned.
+     * @throws CancellationException       If the subscription is disposed before the analysis starts.
      */
-    private List<String> extractImports(File file) throws IOException {
+    private FileHeader analyseFile(Path file, SourceBuffer source, CancellationToken token) throws IOException, InterruptedException {
+        token.throwIfCancelled();
+        Thread.sleep(300); // Simulate analysis time
+
+        long deadline = fileTimeBudgetNanos > 0 ? System.nanoTime() + fileTimeBudgetNanos : 0;
+        return extractHeader(file, source, deadline);
+    }
+
+    /**
+     * Extracts the package name and the import statements of a Java file in one pass over its content.
+     *
+     * @param file     The Java file to analyze, used in error messages.
+     * @param source   The content of the file.
+     * @param deadline The {@link System#nanoTime()} by which the file must be scanned, or 0 for no deadline.
+     * @return The package name, or "default" if the file declares none, and the fully qualified
+     *         class names from the import statements.
+     * @throws IOException                 If an I/O error occurs while decoding the content.
+     * @throws FileBudgetExceededException If the deadline passes before the whole file is scanned.
+     */
+    private FileHeader extractHeader(Path file, SourceBuffer source, long deadline) throws IOException {
+        String packageName = null;
         List<String> imports = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = new BufferedReader(source.reader())) {
             String line;
             while ((line = reader.readLine()) != null) {
+                if (deadline != 0 && System.nanoTime() - deadline > 0) {
+                    throw new FileBudgetExceededException(file, fileTimeBudgetNanos / 1_000_000);
+                }
                 line = line.trim();
-                if (line.startsWith("import ") && line.endsWith(";")) {
+                if (packageName == null && line.startsWith("package ")) {
+                    packageName = line.substring(8, line.indexOf(';')).trim();
+                } else if (line.startsWith("import ") && line.endsWith(";")) {
                     String imported = line.substring(7, line.length() - 1); // Remove "import " and ";"
                     imports.add(imported);
                 }
             }
         }
-        return imports;
+        return new FileHeader(packageName != null ? packageName : "default", imports);
     }
 
     /**
-     * Extracts the fully qualified class name from a Java file.
-     *
-     * @param file The Java file to analyze.
-     * @return The fully qualified class name (package name + class name).
-     * @throws IOException If an I/O error occurs while reading the file.
+     * The package and imports of a file, shared by the files with the same content.
      */
-    private String extractFullClassName(File file) throws IOException {
-        String className = file.getName().replace(".java", "");
-        String packageName = "default";
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.startsWith("package ")) {
-                    packageName = line.substring(8, line.indexOf(';')).trim();
-                    break;
-                }
-            }
+    private static final class FileHeader {
+        private final String packageName;
+        private final List<String> imports;
+
+        private FileHeader(String packageName, List<String> imports) {
+            this.packageName = packageName;
+            this.imports = List.copyOf(imports);
         }
-        return packageName + "." + className;
     }
 }
\ No newline at end of file
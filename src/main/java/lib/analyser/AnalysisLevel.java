@@ -0,0 +1,24 @@
+package lib.analyser;
+
+/**
+ * The depth of analysis performed by the DependencyAnalyserLib on each source file.
+ * Every level produces a ClassDepsReport of the same shape; deeper levels find more
+ * dependencies and qualify more names, at a higher cost per file.
+ */
+public enum AnalysisLevel {
+    /**
+     * Scans only the file header (package, imports and the first type declaration) without
+     * building an AST. Reports imports and the declared supertypes.
+     */
+    LEXICAL,
+    /**
+     * Builds the full AST without a symbol solver and without comment attribution.
+     * Reports every dependency kind; names are qualified from the imports only.
+     */
+    SYNTACTIC,
+    /**
+     * Builds the full AST with the symbol solver. Names that the imports cannot qualify
+     * are resolved by the solver.
+     */
+    RESOLVED
+}
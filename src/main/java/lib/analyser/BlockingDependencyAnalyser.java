@@ -0,0 +1,99 @@
+package lib.analyser;
+
+import lib.report.ClassDepsReport;
+import lib.report.PackageDepsReport;
+import lib.report.ProjectDepsReport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The blocking counterpart of the {@link DependencyAnalyserLib} contract, implemented by the engines
+ * that run on their own threads rather than on a Vert.x event loop. Each method returns once the
+ * report is complete; a class, a package and a project are whatever unit the engine reads,
+ * such as a source file or a compiled class.
+ */
+public interface BlockingDependencyAnalyser extends AutoCloseable {
+
+    /**
+     * Analyzes the dependencies of a single class.
+     *
+     * @param classFile The path to the class.
+     * @param token     The token to cancel the analysis with.
+     * @return The class dependency report.
+     * @throws IOException          if the class cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    ClassDepsReport getClassDependencies(Path classFile, CancellationToken token) throws IOException, InterruptedException;
+
+    /**
+     * Analyzes the dependencies of all classes in a package.
+     *
+     * @param packageFolder The path to the package folder.
+     * @param token         The token to cancel the analysis with.
+     * @return The package dependency report.
+     * @throws IOException          if a class cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    PackageDepsReport getPackageDependencies(Path packageFolder, CancellationToken token) throws IOException, InterruptedException;
+
+    /**
+     * Analyzes the dependencies of all packages in a project.
+     *
+     * @param projectFolder The path to the project folder or archive.
+     * @param token         The token to cancel the analysis with.
+     * @return The project dependency report.
+     * @throws IOException          if a class or the archive cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    ProjectDepsReport getProjectDependencies(Path projectFolder, CancellationToken token) throws IOException, InterruptedException;
+
+    /**
+     * Analyzes the dependencies of a single class.
+     *
+     * @param classFile The path to the class.
+     * @return The class dependency report.
+     * @throws IOException          if the class cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    default ClassDepsReport getClassDependencies(Path classFile) throws IOException, InterruptedException {
+        return getClassDependencies(classFile, new CancellationToken());
+    }
+
+    /**
+     * Analyzes the dependencies of all classes in a package.
+     *
+     * @param packageFolder The path to the package folder.
+     * @return The package dependency report.
+     * @throws IOException          if a class cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    default PackageDepsReport getPackageDependencies(Path packageFolder) throws IOException, InterruptedException {
+        return getPackageDependencies(packageFolder, new CancellationToken());
+    }
+
+    /**
+     * Analyzes the dependencies of all packages in a project.
+     *
+     * @param projectFolder The path to the project folder or archive.
+     * @return The project dependency report.
+     * @throws IOException          if a class or the archive cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    default ProjectDepsReport getProjectDependencies(Path projectFolder) throws IOException, InterruptedException {
+        return getProjectDependencies(projectFolder, new CancellationToken());
+    }
+
+    /**
+     * Sets the rules deciding which dependencies are reported.
+     *
+     * @param filter The include, exclude and dependency-kind rules.
+     */
+    void setDependencyFilter(DependencyFilter filter);
+
+    /**
+     * Stops the threads of the engine. Running analyses are interrupted.
+     */
+    @Override
+    void close();
+}
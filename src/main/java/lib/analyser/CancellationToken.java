@@ -0,0 +1,38 @@
+package lib.analyser;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A flag that callers set to stop an analysis they are no longer interested in.
+ * Cancellation is cooperative: the engines check the token before reading a file, before and
+ * after parsing it and while visiting it, and then fail the pending futures with a
+ * {@link CancellationException}. Work already running on another thread finishes its current step.
+ */
+public class CancellationToken {
+    private volatile boolean cancelled;
+
+    /**
+     * Requests the cancellation of every analysis using this token.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Tells whether cancellation has been requested.
+     *
+     * @return true if {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stops the calling step if cancellation has been requested.
+     *
+     * @throws CancellationException if {@link #cancel()} has been called
+     */
+    public void throwIfCancelled() {
+        if (cancelled) throw new CancellationException("Analysis cancelled");
+    }
+}
@@ -0,0 +1,179 @@
+package lib.analyser;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Analyses each distinct file content once. Byte-identical files, such as vendored copies,
+ * generated stubs and duplicated templates, share the result of the first of them, and a file
+ * arriving while its twin is still being analysed waits for that analysis instead of starting
+ * its own.
+ * <p>
+ * Contents are told apart by their fingerprint and size, plus a context holding whatever else
+ * the result depends on, such as the names of the types next to the file. If the analysis of a
+ * content fails, the files waiting for it analyse their own copy instead. The results of the most
+ * recently seen contents are kept, up to a bound.
+ * <p>
+ * Shared results are handed to every file with the same content and must not be modified.
+ *
+ * @param <V> the type of the analysis result
+ */
+public class ContentDeduplicator<V> {
+    private final int maxEntries;
+    private final LinkedHashMap<Key, CompletableFuture<V>> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder distinct = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    /**
+     * An analysis of one file content.
+     *
+     * @param <V> the type of the analysis result
+     * @param <E> the type of the exception the analysis may throw
+     */
+    @FunctionalInterface
+    public interface Analysis<V, E extends Exception> {
+        /**
+         * Runs the analysis.
+         *
+         * @return the result
+         * @throws E if the analysis fails
+         */
+        V run() throws E;
+    }
+
+    /**
+     * Constructs a new ContentDeduplicator.
+     *
+     * @param maxEntries the number of distinct contents whose results are kept
+     */
+    public ContentDeduplicator(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Retrieves the result for a content, running the analysis only if no file with the same
+     * content was analysed before or is being analysed now.
+     *
+     * @param fingerprint the fingerprint of the content
+     * @param size        the size of the content
+     * @param context     what else the result depends on, compared with {@code equals}, or null
+     * @param analysis    the analysis of the content
+     * @param <E>         the type of the exception the analysis may throw
+     * @return the result, possibly shared with other files
+     * @throws E if the analysis of this file fails
+     */
+    public <E extends Exception> V analyse(long fingerprint, long size, Object context, Analysis<V, E> analysis) throws E {
+        Key key = new Key(fingerprint, size, context);
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> existing;
+        synchronized (this) {
+            existing = results.get(key);
+            if (existing == null) {
+                results.put(key, pending);
+                Iterator<CompletableFuture<V>> eldest = results.values().iterator();
+                while (results.size() > maxEntries && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        if (existing != null) {
+            try {
+                V shared = existing.join();
+                duplicates.increment();
+                return shared;
+            } catch (CancellationException | CompletionException e) {
+                return analysis.run();
+            }
+        }
+        distinct.increment();
+        boolean completed = false;
+        try {
+            V result = analysis.run();
+            pending.complete(result);
+            completed = true;
+            return result;
+        } finally {
+            if (!completed) {
+                synchronized (this) {
+                    results.remove(key, pending);
+                }
+                pending.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of contents that were analysed.
+     *
+     * @return the number of distinct contents
+     */
+    public long getDistinct() {
+        return distinct.sum();
+    }
+
+    /**
+     * Retrieves the number of files answered with the result of an identical file.
+     *
+     * @return the number of duplicate files
+     */
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    /**
+     * Retrieves the number of contents whose results are kept.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Forgets every result, e.g. after a setting that changes the results.
+     * Analyses still running complete for the files waiting on them.
+     */
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * Summarises the statistics of the deduplication on one line.
+     *
+     * @return the distinct contents and duplicate files
+     */
+    @Override
+    public String toString() {
+        return "Deduplication: " + getDistinct() + " distinct contents, " + getDuplicates() + " duplicate files";
+    }
+
+    private static final class Key {
+        private final long fingerprint;
+        private final long size;
+        private final Object context;
+
+        private Key(long fingerprint, long size, Object context) {
+            this.fingerprint = fingerprint;
+            this.size = size;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return fingerprint == other.fingerprint && size == other.size && Objects.equals(context, other.context);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fingerprint) * 31 + Objects.hashCode(context);
+        }
+    }
+}
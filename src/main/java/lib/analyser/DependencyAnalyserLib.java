@@ -1,18 +1,24 @@
 package lib.analyser;
 
-import com.github.javaparser.*;
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.*;
 import io.vertx.core.*;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.function.Function;
 
+import lib.analyser.solver.TypeSolverConfig;
+import lib.metrics.AnalysisMetrics;
+import lib.metrics.jfr.JfrEvents;
+import lib.metrics.jfr.PackageAggregatedEvent;
 import lib.report.*;
 
 /**
@@ -20,8 +26,19 @@ import lib.report.*;
  * Provides asynchronous methods to analyze dependencies at the class, package, and project levels.
  */
 public class DependencyAnalyserLib {
+    private static final int RESOLUTION_CACHE_SIZE = 50_000;
+    private static final long REPORT_CACHE_WEIGHT = 64L * 1024 * 1024;
+    private static final int SOURCE_BUFFERS = 32;
+    private static final int DEDUPLICATED_CONTENTS = 50_000;
     private final Vertx vertx;
-    private final JavaParser parser;
+    private final AnalysisMetrics metrics;
+    private final ResolutionCache resolutionCache = new ResolutionCache(RESOLUTION_CACHE_SIZE);
+    private final ReportCache reportCache = new ReportCache(REPORT_CACHE_WEIGHT);
+    private final ContentDeduplicator<ClassDepsReport> deduplicator = new ContentDeduplicator<>(DEDUPLICATED_CONTENTS);
+    private final SourceBufferPool sourceBuffers = new SourceBufferPool(SOURCE_BUFFERS);
+    private final AnalysisLevel level;
+    private final SourceFileAnalyser sourceAnalyser;
+    private final SourceDiscovery discovery = new SourceDiscovery();
 
     /**
      * Constructs a DependencyAnalyserLib instance.
@@ -29,8 +46,45 @@ public class DependencyAnalyserLib {
      * @param vertx The Vert.x instance used for asynchronous operations.
      */
     public DependencyAnalyserLib(Vertx vertx) {
+        this(vertx, new AnalysisMetrics());
+    }
+
+    /**
+     * Constructs a DependencyAnalyserLib instance that records into the given metrics.
+     *
+     * @param vertx   The Vert.x instance used for asynchronous operations.
+     * @param metrics The metrics collecting per-phase timings and counters.
+     */
+    public DependencyAnalyserLib(Vertx vertx, AnalysisMetrics metrics) {
+        this(vertx, metrics, AnalysisLevel.RESOLVED);
+    }
+
+    /**
+     * Constructs a DependencyAnalyserLib instance working at the given analysis level.
+     *
+     * @param vertx   The Vert.x instance used for asynchronous operations.
+     * @param metrics The metrics collecting per-phase timings and counters.
+     * @param level   How deeply each file is analysed.
+     */
+    public DependencyAnalyserLib(Vertx vertx, AnalysisMetrics metrics, AnalysisLevel level) {
+        this(vertx, metrics, level, TypeSolverConfig.reflectionOnly());
+    }
+
+    /**
+     * Constructs a DependencyAnalyserLib instance that also resolves types from project source roots and JARs.
+     *
+     * @param vertx            The Vert.x instance used for asynchronous operations.
+     * @param metrics          The metrics collecting per-phase timings and counters.
+     * @param level            How deeply each file is analysed.
+     * @param typeSolverConfig The source roots and JARs to resolve types from.
+     */
+    public DependencyAnalyserLib(Vertx vertx, AnalysisMetrics metrics, AnalysisLevel level, TypeSolverConfig typeSolverConfig) {
         this.vertx = vertx;
-        this.parser = createJavaParser();
+        this.metrics = metrics;
+        this.level = level;
+        this.sourceAnalyser = new SourceFileAnalyser(metrics, level, typeSolverConfig, resolutionCache);
+        this.sourceAnalyser.setReportCache(reportCache);
+        this.sourceAnalyser.setDeduplicator(deduplicator);
     }
 
     // -------------------------------
@@ -44,7 +98,21 @@ public class DependencyAnalyserLib {
      * @return A future containing the class dependency report.
      */
     public Future<ClassDepsReport> getClassDependencies(Path classSrcFile) {
-        return readFileAsync(classSrcFile).compose(this::analyzeClassDependencies);
+        return getClassDependencies(classSrcFile, new CancellationToken());
+    }
+
+    /**
+     * Analyzes the dependencies of a single Java class, unless the analysis is cancelled first.
+     *
+     * @param classSrcFile The path to the Java source file.
+     * @param token        The token to cancel the analysis with.
+     * @return A future containing the class dependency report, failed with a
+     *         {@link java.util.concurrent.CancellationException} if the analysis was cancelled.
+     */
+    public Future<ClassDepsReport> getClassDependencies(Path classSrcFile, CancellationToken token) {
+        if (token.isCancelled()) return Future.failedFuture(new CancellationException("Analysis cancelled"));
+        metrics.recordFilesDiscovered(1);
+        return readFileAsync(classSrcFile).compose(source -> analyzeClassDependencies(classSrcFile, source, null, token));
     }
 
     /**
@@ -54,210 +122,381 @@ public class DependencyAnalyserLib {
      * @return A future containing the package dependency report.
      */
     public Future<PackageDepsReport> getPackageDependencies(Path packageSrcFolder) {
-        return processFilesInFolder(packageSrcFolder, this::getClassDependencies, PackageDepsReport::new);
+        return getPackageDependencies(packageSrcFolder, new CancellationToken());
+    }
+
+    /**
+     * Analyzes the dependencies of all classes in a package, unless the analysis is cancelled first.
+     *
+     * @param packageSrcFolder The path to the package folder.
+     * @param token            The token to cancel the analysis with.
+     * @return A future containing the package dependency report.
+     */
+    public Future<PackageDepsReport> getPackageDependencies(Path packageSrcFolder, CancellationToken token) {
+        return processFiles(packageSrcFolder, listFiles(packageSrcFolder, ".java"), folderName(packageSrcFolder), token);
     }
 
     /**
      * Analyzes the dependencies of all packages in a project.
+     * The project can also be a .zip or .jar source archive, whose entries are read in place.
+     * Packages are analysed as soon as the parallel source discovery finds them, so parsing
+     * overlaps with the walk of the rest of the tree.
      *
-     * @param projectSrcFolder The path to the project folder.
+     * @param projectSrcFolder The path to the project folder or source archive.
      * @return A future containing the project dependency r
      * eport.
      */
     public Future<ProjectDepsReport> getProjectDependencies(Path projectSrcFolder) {
+        return getProjectDependencies(projectSrcFolder, new CancellationToken());
+    }
+
+    /**
+     * Analyzes the dependencies of all packages in a project, unless the analysis is cancelled first.
+     * Once cancelled, no further package is started and the returned future fails as soon as
+     * the first pending file notices the cancellation.
+     *
+     * @param projectSrcFolder The path to the project folder or source archive.
+     * @param token            The token to cancel the analysis with.
+     * @return A future containing the project dependency report.
+     */
+    public Future<ProjectDepsReport> getProjectDependencies(Path projectSrcFolder, CancellationToken token) {
+        if (SourceArchive.isArchive(projectSrcFolder)) {
+            return getArchiveDependencies(projectSrcFolder, token);
+        }
         String projectName = projectSrcFolder.getFileName() != null
                 ? projectSrcFolder.getFileName().toString()
                 : "UnknownProject";
 
-        List<Path> packageDirs = findPackageDirectories(projectSrcFolder);
-        return processFolders(packageDirs, this::getPackageDependencies, name -> new ProjectDepsReport(projectName));
+        return analyseProject(projectSrcFolder, projectName, null, token);
     }
 
-    // -------------------------------
-    // Private Helpers
-    // -------------------------------
+    /**
+     * Analyzes the dependencies of all packages below a source root, such as {@code src/main/java}.
+     * Unlike {@link #getProjectDependencies(Path, CancellationToken)}, which names each package after its
+     * folder, packages are named after their path relative to the root, e.g. {@code lib.analyser}.
+     *
+     * @param sourceRoot  The root of the package hierarchy.
+     * @param projectName The name of the project report.
+     * @param token       The token to cancel the analysis with.
+     * @return A future containing the project dependency report.
+     */
+    public Future<ProjectDepsReport> getSourceRootDependencies(Path sourceRoot, String projectName, CancellationToken token) {
+        return analyseProject(sourceRoot, projectName, dir -> packageName(sourceRoot, dir), token);
+    }
 
     /**
-     * Processes all Java files in a folder and generates a report.
+     * Derives the name of a package from its folder.
      *
-     * @param folder           The folder containing Java files.
-     * @param processor        A function to process each file.
-     * @param reportConstructor A function to construct the report.
-     * @param <T>              The type of the result for each file.
-     * @param <R>              The type of the final report.
-     * @return A future containing the report.
+     * @param sourceRoot The root of the package hierarchy.
+     * @param folder     The package folder.
+     * @return The dotted package name, empty for the default package.
      */
-    private <T, R> Future<R> processFilesInFolder(Path folder, Function<Path, Future<T>> processor, Function<String, R> reportConstructor) {
-        Promise<R> promise = Promise.promise();
-        File[] files = listFiles(folder, ".java");
-        if (files == null || files.length == 0) {
-            promise.complete(reportConstructor.apply(folder.getFileName() != null ? folder.getFileName().toString() : "UnknownFolder"));
-            return promise.future();
+    private static String packageName(Path sourceRoot, Path folder) {
+        StringBuilder sb = new StringBuilder();
+        for (Path name : sourceRoot.relativize(folder)) {
+            if (name.toString().isEmpty()) continue;
+            if (sb.length() > 0) sb.append('.');
+            sb.append(name);
         }
+        return sb.toString();
+    }
 
-        List<Future> futures = new ArrayList<>();
-        for (File file : files) futures.add(processor.apply(file.toPath()));
+    /**
+     * Sets the time budget of each file. A file whose analysis runs past its budget is skipped:
+     * it is recorded in the metrics and left out of its package report, so one pathological
+     * file cannot hold up the rest of the package.
+     *
+     * @param budget The budget per file, or {@link Duration#ZERO} for no budget.
+     */
+    public void setFileTimeBudget(Duration budget) {
+        sourceAnalyser.setFileTimeBudget(budget);
+    }
 
-        CompositeFuture.all(futures).onSuccess(result -> {
-            R report = reportConstructor.apply(folder.getFileName() != null ? folder.getFileName().toString() : "UnknownFolder");
-            for (int i = 0; i < result.size(); i++) addToReport(report, result.resultAt(i));
-            promise.complete(report);
-        }).onFailure(promise::fail);
+    /**
+     * Sets the rules deciding which dependencies are reported.
+     * Types the rules exclude are dropped before resolution where their name as written is enough to tell.
+     *
+     * @param filter The include, exclude and dependency-kind rules.
+     */
+    public void setDependencyFilter(DependencyFilter filter) {
+        sourceAnalyser.setDependencyFilter(filter);
+    }
 
+    /**
+     * Discovers the packages below a root folder on a worker thread and starts analysing each one
+     * on this analyser's context as soon as it is found.
+     *
+     * @param root         The root of the source tree.
+     * @param projectName  The name of the project report.
+     * @param packageNamer Names each package after its folder, or null to use the folder name.
+     * @param token        The token to cancel the analysis with.
+     * @return A future containing the project dependency report.
+     */
+    private Future<ProjectDepsReport> analyseProject(Path root, String projectName, Function<Path, String> packageNamer,
+                                                     CancellationToken token) {
+        Context context = vertx.getOrCreateContext();
+        ProjectReportBuilder builder = new ProjectReportBuilder(projectName);
+        List<Future> packages = new ArrayList<>();
+        Promise<ProjectDepsReport> promise = Promise.promise();
+        vertx.executeBlocking(discovered -> {
+            discovery.discover(root, (dir, files) -> {
+                if (token.isCancelled()) return;
+                String packageName = packageNamer == null ? folderName(dir) : packageNamer.apply(dir);
+                context.runOnContext(v -> packages.add(processFiles(dir, files, packageName, token)
+                        .onSuccess(report -> builder.add(dir, report))));
+            });
+            // Queued after every package above, so all of them have been started when this runs
+            context.runOnContext(v -> {
+                if (token.isCancelled()) {
+                    promise.fail(new CancellationException("Analysis cancelled"));
+                    return;
+                }
+                CompositeFuture.all(packages).map(all -> {
+                    long start = System.nanoTime();
+                    ProjectDepsReport report = builder.build();
+                    metrics.record(AnalysisMetrics.Phase.AGGREGATE, System.nanoTime() - start);
+                    return report;
+                }).onComplete(promise);
+            });
+            discovered.complete();
+        }, false).onFailure(promise::fail);
         return promise.future();
     }
 
     /**
-     * Processes all folders and generates a report.
+     * Analyzes the dependencies of all packages in a source archive without extracting it.
+     * The archive is opened as a zip file system for the duration of the analysis.
      *
-     * @param folders          The list of folders to process.
-     * @param processor        A function to process each folder.
-     * @param reportConstructor A function to construct the report.
-     * @param <T>              The type of the result for each folder.
-     * @param <R>              The type of the final report.
-     * @return A future containing the report.
+     * @param archive The path to the .zip or .jar archive.
+     * @param token   The token to cancel the analysis with.
+     * @return A future containing the project dependency report, named after the archive.
      */
-    private <T, R> Future<R> processFolders(List<Path> folders, Function<Path, Future<T>> processor, Function<String, R> reportConstructor) {
-        Promise<R> promise = Promise.promise();
-        List<Future> futures = new ArrayList<>();
-        for (Path folder : folders) {
-            if (folder == null || folder.getFileName() == null) {
-                System.err.println("Invalid folder path: " + folder);
-                continue; // Skip invalid paths
-            }
-            futures.add(processor.apply(folder));
+    private Future<ProjectDepsReport> getArchiveDependencies(Path archive, CancellationToken token) {
+        FileSystem archiveFs;
+        try {
+            archiveFs = SourceArchive.open(archive);
+        } catch (IOException e) {
+            return Future.failedFuture("Error opening archive " + archive + ": " + e.getMessage());
         }
+        String projectName = archive.getFileName().toString();
+        return analyseProject(SourceArchive.root(archiveFs), projectName, null, token)
+                .onComplete(ar -> {
+                    try {
+                        archiveFs.close();
+                    } catch (IOException e) {
+                        System.err.println("Error closing archive " + archive + ": " + e.getMessage());
+                    }
+                });
+    }
 
-        CompositeFuture.all(futures).onSuccess(result -> {
-            String parentName = folders.get(0).getParent() != null && folders.get(0).getParent().getFileName() != null
-                    ? folders.get(0).getParent().getFileName().toString()
-                    : "UnknownParent";
-            R report = reportConstructor.apply(parentName);
-            for (int i = 0; i < result.size(); i++) addToReport(report, result.resultAt(i));
-            promise.complete(report);
-        }).onFailure(promise::fail);
+    /**
+     * Retrieves the metrics recorded by this analyser.
+     *
+     * @return The per-phase timings and counters.
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
 
-        return promise.future();
+    /**
+     * Retrieves the analysis level of this instance.
+     *
+     * @return The analysis level.
+     */
+    public AnalysisLevel getLevel() {
+        return level;
     }
 
     /**
-     * Adds an item to the report.
+     * Retrieves the cache of symbol-solver results shared by all files analysed by this instance.
      *
-     * @param report The report to update.
-     * @param item   The item to add.
-     * @param <R>    The type of the report.
-     * @param <T>    The type of the item.
+     * @return The resolution cache.
      */
-    private <R, T> void addToReport(R report, T item) {
-        if (report instanceof PackageDepsReport && item instanceof ClassDepsReport) {
-            PackageDepsReport packageReport = (PackageDepsReport) report;
-            ClassDepsReport classReport = (ClassDepsReport) item;
-            if (!classReport.getDependencies().isEmpty()) {
-                packageReport.addClassReport(classReport);
-            }
-        } else if (report instanceof ProjectDepsReport && item instanceof PackageDepsReport) {
-            ProjectDepsReport projectReport = (ProjectDepsReport) report;
-            PackageDepsReport packageReport = (PackageDepsReport) item;
-            if (!packageReport.getClassReports().isEmpty()) {
-                projectReport.addPackageReport(packageReport);
-            }
-        }
+    public ResolutionCache getResolutionCache() {
+        return resolutionCache;
     }
 
     /**
-     * Reads a file asynchronously.
+     * Retrieves the cache of class reports, which answers files queried again with unchanged
+     * content, e.g. a class, then its package, then its project.
      *
-     * @param filePath The path to the file.
-     * @return A future containing the file content as a string.
+     * @return The report cache.
      */
-    private Future<String> readFileAsync(Path filePath) {
-        Promise<String> promise = Promise.promise();
-        vertx.fileSystem().readFile(filePath.toString(), result -> {
-            if (result.succeeded()) promise.complete(result.result().toString("UTF-8"));
-            else promise.fail("Error reading file: " + result.cause().getMessage());
-        });
-        return promise.future();
+    public ReportCache getReportCache() {
+        return reportCache;
     }
 
     /**
-     * Analyzes the dependencies of a class from its source code.
+     * Retrieves the deduplicator through which files with identical content share one analysis.
      *
-     * @param sourceCode The source code of the class.
-     * @return A future containing the class dependency report.
+     * @return The content deduplicator.
      */
-    private Future<ClassDepsReport> analyzeClassDependencies(String sourceCode) {
-        Promise<ClassDepsReport> promise = Promise.promise();
-        try {
-            CompilationUnit cu = parser.parse(sourceCode).getResult().orElseThrow();
-            String className = getClassName(cu);
-            ClassDepsReport classReport = new ClassDepsReport(className);
-            cu.accept(new DependencyVisitor(classReport, className), null);
-            promise.complete(classReport);
-        } catch (Exception e) {
-            promise.fail("Failed to analyze class: " + e.getMessage());
+    public ContentDeduplicator<ClassDepsReport> getDeduplicator() {
+        return deduplicator;
+    }
+
+    /**
+     * Finds all package directories in a project, i.e. the directories that directly contain Java files.
+     * Build output and VCS directories are skipped, see {@link SourceDiscovery}.
+     *
+     * @param projectDir The project directory.
+     * @return A list of package directories, sorted by path.
+     */
+    public static List<Path> findPackageDirectories(Path projectDir) {
+        return new SourceDiscovery().findPackageDirectories(projectDir);
+    }
+
+    // -------------------------------
+    // Private Helpers
+    // -------------------------------
+
+    /**
+     * Analyzes the given Java files of a folder in parallel and generates the package report.
+     * Each class report goes straight into its slot of a {@link PackageReportBuilder} as soon as
+     * it completes, and the file completing last seals the report.
+     *
+     * @param folder      The folder containing the files.
+     * @param files       The Java files of the folder.
+     * @param packageName The name of the package report.
+     * @param token       The token to cancel the analysis with.
+     * @return A future containing the package dependency report.
+     */
+    private Future<PackageDepsReport> processFiles(Path folder, List<Path> files, String packageName, CancellationToken token) {
+        if (files.isEmpty()) return Future.succeededFuture(new PackageDepsReport(packageName));
+
+        Promise<PackageDepsReport> promise = Promise.promise();
+        PackageReportBuilder builder = new PackageReportBuilder(packageName, files.size());
+        // Listed once for the package, not once per file on the event loop
+        Set<String> typeNames = SourceFileAnalyser.typeNames(files);
+        metrics.recordFilesDiscovered(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            int index = i;
+            Path file = files.get(i);
+            Future<ClassDepsReport> classFuture = token.isCancelled()
+                    ? Future.failedFuture(new CancellationException("Analysis cancelled"))
+                    : readFileAsync(file).compose(source -> analyzeClassDependencies(file, source, typeNames, token));
+            classFuture.onSuccess(classReport -> {
+                if (!builder.add(index, classReport)) return;
+                PackageAggregatedEvent event = JfrEvents.ENABLED ? new PackageAggregatedEvent() : null;
+                if (event != null) event.begin();
+                long start = System.nanoTime();
+                PackageDepsReport report = builder.build();
+                metrics.record(AnalysisMetrics.Phase.AGGREGATE, System.nanoTime() - start);
+                if (event != null) commitPackageAggregatedEvent(event, folder, report);
+                promise.complete(report);
+            }).onFailure(promise::tryFail);
         }
         return promise.future();
     }
 
     /**
-     * Lists all files in a folder with a specific extension.
+     * Ends and emits a JFR event describing a package aggregation, begun when aggregation started.
      *
-     * @param folder    The folder to search.
-     * @param extension The file extension to filter by.
-     * @return An array of files matching the extension.
+     * @param event         The event begun when aggregation started.
+     * @param folder        The package folder.
+     * @param packageReport The aggregated package report.
      */
-    private File[] listFiles(Path folder, String extension) {
-        return folder.toFile().listFiles((dir, name) -> name.endsWith(extension));
+    private void commitPackageAggregatedEvent(PackageAggregatedEvent event, Path folder, PackageDepsReport packageReport) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.path = folder.toString();
+        event.classCount = packageReport.getClassReports().size();
+        event.dependencyCount = packageReport.getClassReports().stream().mapToInt(r -> r.getDependencies().size()).sum();
+        event.commit();
     }
 
     /**
-     * Extracts the class name from a compilation unit.
+     * Names a package after its folder.
      *
-     * @param cu The compilation unit.
-     * @return The class name, or "UnknownClass" if not found.
+     * @param folder The package folder.
+     * @return The folder name.
      */
-    private String getClassName(CompilationUnit cu) {
-        return cu.findFirst(ClassOrInterfaceDeclaration.class)
-                .map(ClassOrInterfaceDeclaration::getNameAsString)
-                .orElse("UnknownClass");
+    private static String folderName(Path folder) {
+        return folder.getFileName() != null ? folder.getFileName().toString() : "UnknownFolder";
     }
 
     /**
-     * Creates a JavaParser instance with a symbol resolver.
+     * Reads a file, on disk or inside an archive, into a pooled buffer on the worker pool,
+     * without ordering, so the files of a package are read in parallel.
+     * The READ phase is timed on the worker, so it excludes the wait for a worker thread.
      *
-     * @return The configured JavaParser instance.
+     * @param filePath The path to the file.
+     * @return A future containing the file content, to be closed once analysed.
      */
-    private JavaParser createJavaParser() {
-        CombinedTypeSolver typeSolver = new CombinedTypeSolver(new ReflectionTypeSolver(false));
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
-        JavaParser parser = new JavaParser();
-        parser.getParserConfiguration().setSymbolResolver(symbolSolver);
-        return parser;
+    private Future<SourceBuffer> readFileAsync(Path filePath) {
+        return vertx.<SourceBuffer>executeBlocking(promise -> {
+            long start = System.nanoTime();
+            try {
+                promise.complete(sourceBuffers.read(filePath));
+            } catch (IOException e) {
+                promise.fail(e);
+            } finally {
+                metrics.record(AnalysisMetrics.Phase.READ, System.nanoTime() - start);
+            }
+        }, false).map(source -> {
+            metrics.recordFileRead(source.size());
+            return source;
+        }).recover(err -> {
+            metrics.recordFileFailed();
+            return Future.failedFuture("Error reading file: " + err.getMessage());
+        });
     }
 
     /**
-     * Finds all package directories in a project.
+     * Analyzes the dependencies of a class from the content of its file, then releases the content.
+     * A file that runs past its time budget yields a report marked skipped, which the package leaves out.
      *
-     * @param projectDir The project directory.
-     * @return A list of package directories.
+     * @param sourceFile The path of the source file, used for diagnostics.
+     * @param source     The content of the source file.
+     * @param typeNames  The simple names of the types of the package, or null to list the folder of the file.
+     * @param token      The token to cancel the analysis with.
+     * @return A future containing the class dependency report.
+     */
+    private Future<ClassDepsReport> analyzeClassDependencies(Path sourceFile, SourceBuffer source, Set<String> typeNames,
+                                                             CancellationToken token) {
+        Promise<ClassDepsReport> promise = Promise.promise();
+        try (source) {
+            promise.complete(sourceAnalyser.analyse(sourceFile, source, typeNames, token));
+        } catch (CancellationException e) {
+            promise.fail(e);
+        } catch (FileBudgetExceededException e) {
+            metrics.recordFileSkipped(sourceFile.toString());
+            System.err.println("Skipped " + e.getMessage());
+            promise.complete(skippedReport(sourceFile));
+        } catch (Exception e) {
+            metrics.recordFileFailed();
+            promise.fail("Failed to analyze class: " + e.getMessage());
+        }
+        return promise.future();
+    }
+
+    /**
+     * Creates the report standing in for a file whose analysis was skipped.
+     *
+     * @param sourceFile The skipped source file.
+     * @return An empty report marked skipped, named after the file.
      */
-    private List<Path> findPackageDirectories(Path projectDir) {
-        List<Path> packageDirs = new ArrayList<>();
-        findPackageDirsRecursive(projectDir.toFile(), packageDirs);
-        return packageDirs;
+    static ClassDepsReport skippedReport(Path sourceFile) {
+        ClassDepsReport report = new ClassDepsReport(sourceFile.getFileName().toString().replace(".java", ""));
+        report.setSkipped(true);
+        return report;
     }
 
     /**
-     * Recursively finds package directories containing Java files.
+     * Lists all files in a folder with a specific extension.
      *
-     * @param dir         The directory to search.
-     * @param packageDirs The list to store package directories.
+     * @param folder    The folder to search.
+     * @param extension The file extension to filter by.
+     * @return The regular files matching the extension, or an empty list if the folder cannot be read.
      */
-    private void findPackageDirsRecursive(File dir, List<Path> packageDirs) {
-        if (listFiles(dir.toPath(), ".java") != null) packageDirs.add(dir.toPath());
-        File[] subDirs = dir.listFiles(File::isDirectory);
-        if (subDirs != null) {
-            for (File subDir : subDirs) findPackageDirsRecursive(subDir, packageDirs);
+    static List<Path> listFiles(Path folder, String extension) {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder,
+                entry -> entry.getFileName().toString().endsWith(extension) && Files.isRegularFile(entry))) {
+            for (Path entry : stream) files.add(entry);
+        } catch (IOException e) {
+            return Collections.emptyList();
         }
+        return files;
     }
 }
\ No newline at end of file
@@ -34,6 +34,11 @@ public class DependencyAnalyserVerticle extends AbstractVerticle {
                 .onSuccess(projectReport -> {
                     System.out.println("=== Project Report ===");
                     System.out.println(projectReport);
+                    System.out.println(dependencyAnalyser.getMetrics().summary());
+                    System.out.println("Resolution cache: " + dependencyAnalyser.getResolutionCache().getHits() + " hits, "
+                            + dependencyAnalyser.getResolutionCache().getMisses() + " misses");
+                    System.out.println(dependencyAnalyser.getReportCache());
+                    System.out.println(dependencyAnalyser.getDeduplicator());
                     startPromise.complete();
                 })
                 .onFailure(err -> {
@@ -0,0 +1,250 @@
+package lib.analyser;
+
+import lib.utils.AsyncUtils.DependencyType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which dependencies are reported, from include and exclude rules compiled into prefix tries.
+ * <p>
+ * A rule is a dotted name pattern. Each segment is either a plain name, a glob such as {@code *Test}
+ * or {@code Abstract?}, which matches exactly one segment, or {@code **}, which matches any number of
+ * segments. A rule matches a type when it matches the type's name or a prefix of it, so {@code java.util}
+ * covers every type of {@code java.util} and its subpackages, and {@code com.acme.Api} covers the nested
+ * types of {@code Api} as well. A type is reported when it matches an include rule, or there are none,
+ * and no exclude rule. Dependencies of an excluded kind are never reported.
+ * <p>
+ * Matching walks the trie one segment at a time, so its cost depends on the depth of the name and
+ * not on the number of rules. Exclude rules starting with {@code **} also match any name that ends
+ * with a name they match, and a name written fully qualified resolves to itself, which lets
+ * {@link #rejectsBeforeResolution(String)} drop a type from the name written in the source, before
+ * the symbol solver is asked to qualify it.
+ */
+public final class DependencyFilter {
+    /**
+     * The packages excluded when no rules are configured: the core JDK packages every class uses.
+     */
+    public static final List<String> DEFAULT_EXCLUDES = List.of(
+            "java.lang", "java.util", "java.io", "java.math",
+            "java.time", "java.text", "java.nio", "java.net"
+    );
+
+    /**
+     * The filter used when none is configured: reports every dependency outside {@link #DEFAULT_EXCLUDES}.
+     */
+    public static final DependencyFilter DEFAULT = new DependencyFilter(Collections.emptyList(), DEFAULT_EXCLUDES,
+            Collections.emptySet());
+
+    private final Node includes;
+    private final Node excludes;
+    private final boolean hasIncludes;
+    private final Set<DependencyType> excludedKinds;
+    private final String description;
+
+    /**
+     * Constructs a new DependencyFilter.
+     *
+     * @param includes      the rules a type must match to be reported, or an empty collection to report all types
+     * @param excludes      the rules of the types never reported
+     * @param excludedKinds the kinds of dependency never reported
+     * @throws IllegalArgumentException if a rule is empty or has an empty segment
+     */
+    public DependencyFilter(Collection<String> includes, Collection<String> excludes, Set<DependencyType> excludedKinds) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+        this.hasIncludes = !includes.isEmpty();
+        this.excludedKinds = excludedKinds.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(excludedKinds));
+        this.description = "include " + new TreeSet<>(includes) + " exclude " + new TreeSet<>(excludes)
+                + " kinds " + new TreeSet<>(excludedKinds);
+    }
+
+    /**
+     * Checks whether dependencies of a kind are reported at all.
+     *
+     * @param kind the kind of dependency
+     * @return true if dependencies of this kind may be reported
+     */
+    public boolean accepts(DependencyType kind) {
+        return !excludedKinds.contains(kind);
+    }
+
+    /**
+     * Checks whether a type is reported.
+     *
+     * @param typeName the name of the type, fully qualified when it could be resolved
+     * @return true if the type matches the include rules and no exclude rule
+     */
+    public boolean accepts(String typeName) {
+        return (!hasIncludes || matches(includes, typeName)) && !matches(excludes, typeName);
+    }
+
+    /**
+     * Checks, from the name of a type as written in the source, whether the type is excluded whatever
+     * it resolves to. A name written fully qualified, starting with a lower-case package segment,
+     * resolves to itself, so every rule decides it. Otherwise resolution only ever adds a package or
+     * outer types in front of the written name, so only the exclude rules starting with {@code **}
+     * can decide this; the caller then qualifies the name from the imports before asking the solver.
+     *
+     * @param writtenName the name as written, without type arguments, e.g. {@code Map.Entry}
+     * @return true if the type is certainly excluded and need not be resolved
+     */
+    public boolean rejectsBeforeResolution(String writtenName) {
+        if (writtenName.indexOf('.') > 0 && Character.isLowerCase(writtenName.charAt(0))) return !accepts(writtenName);
+        return excludes.anyDepth != null && matches(excludes.anyDepth, writtenName);
+    }
+
+    /**
+     * Retrieves the kinds of dependency never reported.
+     *
+     * @return the excluded kinds
+     */
+    public Set<DependencyType> getExcludedKinds() {
+        return excludedKinds;
+    }
+
+    /**
+     * Describes the rules of the filter, sorted, so two filters with the same rules describe
+     * themselves alike, e.g. to tell whether reports built with an earlier filter still apply.
+     *
+     * @return the include rules, exclude rules and excluded kinds
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    /**
+     * Compiles rules into a trie of name segments.
+     *
+     * @param rules the rules to compile
+     * @return the root of the trie
+     */
+    private static Node compile(Collection<String> rules) {
+        Node root = new Node();
+        for (String rule : rules) {
+            if (rule.isEmpty()) throw new IllegalArgumentException("empty filter rule");
+            Node node = root;
+            for (String segment : rule.split("\\.", -1)) {
+                if (segment.isEmpty()) throw new IllegalArgumentException("empty segment in filter rule " + rule);
+                node = node.child(segment);
+            }
+            node.terminal = true;
+        }
+        return root;
+    }
+
+    /**
+     * Checks whether the rules reachable from a trie node match a name or a prefix of it.
+     *
+     * @param start the trie node to start from
+     * @param name  the dotted name
+     * @return true if a rule matches
+     */
+    private static boolean matches(Node start, String name) {
+        if (name == null || name.isEmpty()) return false;
+        List<Node> active = new ArrayList<>(4);
+        enter(active, start);
+        int from = 0;
+        while (true) {
+            for (Node node : active) {
+                if (node.terminal) return true;
+            }
+            if (from > name.length() || active.isEmpty()) return false;
+            int end = name.indexOf('.', from);
+            if (end < 0) end = name.length();
+            String segment = name.substring(from, end);
+            List<Node> next = new ArrayList<>(4);
+            for (Node node : active) {
+                if (node.selfLoop) enter(next, node);
+                Node exact = node.children.get(segment);
+                if (exact != null) enter(next, exact);
+                for (int i = 0; i < node.globs.size(); i++) {
+                    if (node.globs.get(i).matcher(segment).matches()) enter(next, node.globChildren.get(i));
+                }
+            }
+            active = next;
+            from = end + 1;
+        }
+    }
+
+    /**
+     * Adds a node to the active set, together with the {@code **} node reachable from it without consuming a segment.
+     *
+     * @param active the active nodes
+     * @param node   the node to add
+     */
+    private static void enter(List<Node> active, Node node) {
+        if (!active.contains(node)) active.add(node);
+        if (node.anyDepth != null && !active.contains(node.anyDepth)) active.add(node.anyDepth);
+    }
+
+    /**
+     * Converts a glob segment to a regular expression.
+     *
+     * @param glob the segment, with {@code *} for any characters and {@code ?} for one character
+     * @return the compiled pattern
+     */
+    private static Pattern globToPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literalStart) regex.append(Pattern.quote(glob.substring(literalStart, i)));
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < glob.length()) regex.append(Pattern.quote(glob.substring(literalStart)));
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * A node of the rule trie: one segment of one or more rules.
+     */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Pattern> globs = new ArrayList<>();
+        private final List<Node> globChildren = new ArrayList<>();
+        private Node anyDepth;
+        private boolean selfLoop;
+        private boolean terminal;
+
+        /**
+         * Retrieves the child of a rule segment, creating it if needed.
+         *
+         * @param segment the rule segment
+         * @return the child node
+         */
+        private Node child(String segment) {
+            if (segment.equals("**")) {
+                if (anyDepth == null) {
+                    anyDepth = new Node();
+                    anyDepth.selfLoop = true;
+                }
+                return anyDepth;
+            }
+            if (segment.indexOf('*') < 0 && segment.indexOf('?') < 0) {
+                return children.computeIfAbsent(segment, s -> new Node());
+            }
+            for (int i = 0; i < globs.size(); i++) {
+                if (globs.get(i).pattern().equals(globToPattern(segment).pattern())) return globChildren.get(i);
+            }
+            Node node = new Node();
+            globs.add(globToPattern(segment));
+            globChildren.add(node);
+            return node;
+        }
+    }
+}
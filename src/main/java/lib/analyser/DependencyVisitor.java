@@ -2,9 +2,18 @@ package lib.analyser;
 
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithImplements;
 import com.github.javaparser.ast.type.*;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import lib.analyser.solver.TypeIndex;
+import lib.metrics.AnalysisMetrics;
+import lib.metrics.jfr.JfrEvents;
+import lib.metrics.jfr.SymbolResolutionEvent;
 import lib.report.ClassDepsReport;
 import lib.utils.AsyncUtils;
 import java.util.*;
@@ -18,7 +27,18 @@ import static lib.utils.AsyncUtils.DependencyType.*;
 public class DependencyVisitor extends VoidVisitorAdapter<Void> {
     private final ClassDepsReport report;
     private final String sourceClassName;
-    private final Set<String> excludedPackages;
+    private final AnalysisMetrics metrics;
+    private final ResolutionCache resolutionCache;
+    private final Set<String> packageTypeNames;
+    private final TypeIndex typeIndex;
+    private ImportResolver imports;
+    private FileBudget budget;
+    private DependencyFilter filter = DependencyFilter.DEFAULT;
+    private boolean symbolSolverAvailable = true;
+    private long resolveNanos;
+    private Node lastScopeNode;
+    private Set<String> lastInheritedTypes;
+    private String lastScope;
     /**
      * Constructs a new DependencyVisitor.
      *
@@ -26,12 +46,79 @@ public class DependencyVisitor extends VoidVisitorAdapter<Void> {
      * @param sourceClassName  the name of the source class being analyzed
      */
     public DependencyVisitor(ClassDepsReport report, String sourceClassName) {
+        this(report, sourceClassName, null);
+    }
+    /**
+     * Constructs a new DependencyVisitor that records resolution timings and failures.
+     *
+     * @param report           the ClassDepsReport object to store the dependencies
+     * @param sourceClassName  the name of the source class being analyzed
+     * @param metrics          the metrics to record into, or null to disable recording
+     */
+    public DependencyVisitor(ClassDepsReport report, String sourceClassName, AnalysisMetrics metrics) {
+        this(report, sourceClassName, metrics, null, Collections.emptySet());
+    }
+    /**
+     * Constructs a new DependencyVisitor that resolves names from the imports first and
+     * shares symbol-solver results with other files through a cache.
+     *
+     * @param report           the ClassDepsReport object to store the dependencies
+     * @param sourceClassName  the name of the source class being analyzed
+     * @param metrics          the metrics to record into, or null to disable recording
+     * @param resolutionCache  the cache of symbol-solver results, or null to disable caching
+     * @param packageTypeNames the simple names of the other types in the same package
+     */
+    public DependencyVisitor(ClassDepsReport report, String sourceClassName, AnalysisMetrics metrics,
+                             ResolutionCache resolutionCache, Set<String> packageTypeNames) {
+        this(report, sourceClassName, metrics, resolutionCache, packageTypeNames, null);
+    }
+    /**
+     * Constructs a new DependencyVisitor whose import-based resolution also consults a type index
+     * of the project's source roots and JARs.
+     *
+     * @param report           the ClassDepsReport object to store the dependencies
+     * @param sourceClassName  the name of the source class being analyzed
+     * @param metrics          the metrics to record into, or null to disable recording
+     * @param resolutionCache  the cache of symbol-solver results, or null to disable caching
+     * @param packageTypeNames the simple names of the other types in the same package
+     * @param typeIndex        the index of known types, or null if there is none
+     */
+    public DependencyVisitor(ClassDepsReport report, String sourceClassName, AnalysisMetrics metrics,
+                             ResolutionCache resolutionCache, Set<String> packageTypeNames, TypeIndex typeIndex) {
         this.report = report;
         this.sourceClassName = sourceClassName;
-        this.excludedPackages = new HashSet<>(Arrays.asList(
-                "java.lang", "java.util", "java.io", "java.math",
-                "java.time", "java.text", "java.nio", "java.net"
-        ));
+        this.metrics = metrics;
+        this.resolutionCache = resolutionCache;
+        this.packageTypeNames = packageTypeNames;
+        this.typeIndex = typeIndex;
+    }
+    /**
+     * Sets the rules deciding which dependencies are reported.
+     *
+     * @param filter the filter to apply, checked before type names are resolved where possible
+     */
+    void setFilter(DependencyFilter filter) {
+        this.filter = filter;
+    }
+    /**
+     * Sets the limits checked for each dependency, so a cancelled or overlong analysis stops early.
+     *
+     * @param budget the budget of the file being visited, or null for no limits
+     */
+    void setBudget(FileBudget budget) {
+        this.budget = budget;
+    }
+    /**
+     * Visits a compilation unit and prepares the import-based resolution of its type names.
+     *
+     * @param n   the CompilationUnit node
+     * @param arg additional argument (not used)
+     */
+    @Override
+    public void visit(CompilationUnit n, Void arg) {
+        imports = new ImportResolver(n, packageTypeNames, typeIndex);
+        symbolSolverAvailable = n.containsData(Node.SYMBOL_RESOLVER_KEY);
+        super.visit(n, arg);
     }
     /**
      * Visits an import declaration and adds it as a dependency if it is not excluded.
@@ -41,9 +128,9 @@ public class DependencyVisitor extends VoidVisitorAdapter<Void> {
      */ 
     @Override
     public void visit(ImportDeclaration n, Void arg) {
-        // Analizza le dipendenze importate
+        // Analizza le dipendenze importate; un import con asterisco viene riportato col nome del pacchetto
         String importedName = n.getNameAsString();
-        if (!n.isStatic() && !importedName.endsWith("*") && shouldExcludeType(importedName)) {
+        if (!n.isStatic() && filter.accepts(IMPORT) && shouldExcludeType(importedName)) {
             report.addDependency(new AsyncUtils(
                     sourceClassName, importedName, IMPORT,
                     "import " + importedName + ";",
@@ -54,6 +141,7 @@ public class DependencyVisitor extends VoidVisitorAdapter<Void> {
     }
     /**
      * Visits a class or interface declaration and analyzes its inheritance and implemented interfaces.
+     * The top-level declaration of the reported class also tells whether the class is abstract.
      *
      * @param n   the ClassOrInterfaceDeclaration node
      * @param arg additional argument (not used)
@@ -61,6 +149,7 @@ public class DependencyVisitor extends VoidVisitorAdapter<Void> {
     @Override
     public void visit(ClassOrInterfaceDeclaration n, Void arg) {
         // Analizza classi o interfacce estese/implementate
+        if (n.isTopLevelType() && n.getNameAsString().equals(sourceClassName)) report.setAbstract(n.isInterface() || n.isAbstract());
         for (ClassOrInterfaceType extendedType : n.getExtendedTypes()) {
             addDependency(extendedType, EXTENDS, "extends");
         }
@@ -114,14 +203,26 @@ public class DependencyVisitor extends VoidVisitorAdapter<Void> {
     }
     /**
      * Adds a dependency to the report if it is not excluded.
+     * Excluded kinds, names the filter rejects as written and names the imports qualify to an
+     * excluded type are dropped before the symbol solver is asked; only names the imports leave
+     * ambiguous reach it.
      *
      * @param type           the type being analyzed
      * @param dependencyType the type of dependency (e.g., IMPORT, EXTENDS)
      * @param description    a description of the dependency
      */
     private void addDependency(Type type, AsyncUtils.DependencyType dependencyType, String description) {
+        if (budget != null) budget.check();
+        if (!filter.accepts(dependencyType)) return;
+        String fromImports = null;
+        if (type.isClassOrInterfaceType()) {
+            ClassOrInterfaceType classType = type.asClassOrInterfaceType();
+            if (filter.rejectsBeforeResolution(classType.getNameWithScope())) return;
+            fromImports = imports != null ? imports.resolve(classType) : null;
+            if (fromImports != null && !filter.accepts(fromImports)) return;
+        }
         try {
-            String typeName = resolveTypeName(type);
+            String typeName = resolveTypeName(type, fromImports);
             if (shouldExcludeType(typeName)) {
                 report.addDependency(new AsyncUtils(
                         sourceClassName, typeName, dependencyType,
@@ -129,24 +230,183 @@ public class DependencyVisitor extends VoidVisitorAdapter<Void> {
                         type.getBegin().map(pos -> pos.line).orElse(-1)
                 ));
             }
-        } catch (Exception ignored) {
-            // Ignora eventuali errori di risoluzione del tipo
+        } catch (UnsolvedSymbolException | UnsupportedOperationException | IllegalStateException e) {
+            // Ignora gli errori di risoluzione del tipo, ma li conta; gli altri sono bug e si propagano
+            if (metrics != null) metrics.recordResolutionFailure(e);
         }
     }
     /**
      * Resolves the fully qualified name of a type.
+     * Names are first looked up in the compilation unit's declarations and imports; only the
+     * remaining ones go to the symbol solver, whose results are shared through the resolution cache.
      *
-     * @param type the type to resolve
+     * @param type        the type to resolve
+     * @param fromImports the name the declarations and imports qualify the type to, or null if they cannot
      * @return the fully qualified name of the type, or its simple name if resolution fails
      */
-    private String resolveTypeName(Type type) {
+    private String resolveTypeName(Type type, String fromImports) {
+        if (!type.isClassOrInterfaceType()) {
+            return type.asString();
+        }
+        String resolved;
+        if (imports == null) {
+            resolved = resolveWithSymbolSolver(type);
+        } else {
+            ClassOrInterfaceType classType = type.asClassOrInterfaceType();
+            String name = classType.getNameWithScope();
+            // Un tipo membro ereditato nasconde import e tipi del pacchetto: decide il solver
+            String scope = symbolSolverAvailable && !isQualified(name) ? hierarchyScope(classType, name) : null;
+            if (fromImports != null && scope == null) {
+                if (metrics != null) metrics.recordFastPathResolution();
+                return fromImports;
+            }
+            if (!symbolSolverAvailable) {
+                // Syntax-only analysis: names the imports cannot qualify stay as written
+                return type.asString();
+            }
+            resolved = resolutionCache == null
+                    ? resolveWithSymbolSolver(type)
+                    : resolutionCache.get(imports.getPackageName(), imports.getImportsFingerprint(), scope,
+                            name, n -> resolveWithSymbolSolver(type));
+            if (resolved.equals(ResolutionCache.UNRESOLVED) && fromImports != null) return fromImports;
+        }
+        return resolved.equals(ResolutionCache.UNRESOLVED) ? type.asString() : resolved;
+    }
+    /**
+     * Tells whether a type name is written fully qualified, e.g. {@code java.util.List}.
+     *
+     * @param name the type name as written in the source
+     * @return true if the name starts with a package
+     */
+    private static boolean isQualified(String name) {
+        return name.indexOf('.') > 0 && Character.isLowerCase(name.charAt(0));
+    }
+    /**
+     * Finds the type whose inherited member types can shadow a name used at a node: the innermost
+     * type around the node, if it or a type around it inherits a member type of that name. An
+     * anonymous class is told apart from its siblings by its position. The visitor meets the names
+     * of a type one after another, so the member types inherited there are kept for the next name.
+     *
+     * @param node the node using the type name
+     * @param name the type name as written in the source
+     * @return the name of the innermost enclosing type, or null if only the compilation unit's own
+     *         declarations and imports can decide the name
+     */
+    private String hierarchyScope(Node node, String name) {
+        Node scopeNode = node.getParentNode().orElse(null);
+        while (scopeNode != null && !isTypeBody(scopeNode)) scopeNode = scopeNode.getParentNode().orElse(null);
+        if (scopeNode != lastScopeNode) {
+            lastScopeNode = scopeNode;
+            lastInheritedTypes = scopeNode == null ? Set.of() : inheritedMemberTypes(scopeNode);
+            lastScope = lastInheritedTypes.isEmpty() ? null : scopeName(scopeNode);
+        }
+        if (lastScope == null) return null;
+        int dot = name.indexOf('.');
+        return lastInheritedTypes.contains(dot < 0 ? name : name.substring(0, dot)) ? lastScope : null;
+    }
+    private static boolean isTypeBody(Node node) {
+        return node instanceof TypeDeclaration
+                || (node instanceof ObjectCreationExpr && ((ObjectCreationExpr) node).getAnonymousClassBody().isPresent());
+    }
+    /**
+     * Collects the simple names of the member types that the types around a node inherit from their supertypes.
+     *
+     * @param scopeNode the innermost type around the names
+     * @return the inherited member type names; supertypes the symbol solver cannot see are left out
+     */
+    private static Set<String> inheritedMemberTypes(Node scopeNode) {
+        Set<String> names = new HashSet<>();
+        for (Node n = scopeNode; n != null; n = n.getParentNode().orElse(null)) {
+            if (!isTypeBody(n) || !hasSupertypes(n)) continue;
+            try {
+                for (ResolvedReferenceType ancestor : ancestorsOf(n)) {
+                    ancestor.getTypeDeclaration().ifPresent(declaration ->
+                            declaration.internalTypes().forEach(member -> names.add(member.getName())));
+                }
+            } catch (UnsolvedSymbolException | UnsupportedOperationException | IllegalStateException e) {
+                // Supertipi non risolvibili: il solver non vedrebbe nemmeno i loro tipi membro
+            }
+        }
+        return names;
+    }
+    private static boolean hasSupertypes(Node typeBody) {
+        if (typeBody instanceof ObjectCreationExpr) return true;
+        if (typeBody instanceof ClassOrInterfaceDeclaration) {
+            ClassOrInterfaceDeclaration c = (ClassOrInterfaceDeclaration) typeBody;
+            return c.getExtendedTypes().isNonEmpty() || c.getImplementedTypes().isNonEmpty();
+        }
+        return typeBody instanceof NodeWithImplements && ((NodeWithImplements<?>) typeBody).getImplementedTypes().isNonEmpty();
+    }
+    private static List<ResolvedReferenceType> ancestorsOf(Node typeBody) {
+        if (typeBody instanceof TypeDeclaration) {
+            return ((TypeDeclaration<?>) typeBody).resolve().getAllAncestors();
+        }
+        ResolvedReferenceType created = ((ObjectCreationExpr) typeBody).getType().resolve().asReferenceType();
+        List<ResolvedReferenceType> ancestors = new ArrayList<>(created.getAllAncestors());
+        ancestors.add(created);
+        return ancestors;
+    }
+    /**
+     * Names a type body: the fully qualified name of the innermost declared type, followed by the
+     * position of the anonymous class, if the body is one.
+     *
+     * @param scopeNode a type declaration or an anonymous class creation
+     * @return the name of the type body
+     */
+    private static String scopeName(Node scopeNode) {
+        String anonymous = "";
+        for (Node n = scopeNode; n != null; n = n.getParentNode().orElse(null)) {
+            if (n instanceof TypeDeclaration) {
+                TypeDeclaration<?> declaration = (TypeDeclaration<?>) n;
+                return declaration.getFullyQualifiedName().orElse(declaration.getNameAsString()) + anonymous;
+            }
+            if (n == scopeNode) anonymous = n.getBegin().map(pos -> "$" + pos.line + ":" + pos.column).orElse("$");
+        }
+        return anonymous;
+    }
+    /**
+     * Resolves the fully qualified name of a class or interface type through the symbol solver.
+     *
+     * @param type the type to resolve
+     * @return the fully qualified name of the type, or {@link ResolutionCache#UNRESOLVED} if resolution fails
+     */
+    private String resolveWithSymbolSolver(Type type) {
+        SymbolResolutionEvent event = JfrEvents.ENABLED ? new SymbolResolutionEvent() : null;
+        if (event != null) event.begin();
+        long start = System.nanoTime();
+        boolean resolved = false;
         try {
-            if (type.isClassOrInterfaceType()) {
-                return type.resolve().asReferenceType().getQualifiedName();
+            String qualifiedName = type.resolve().asReferenceType().getQualifiedName();
+            resolved = true;
+            return qualifiedName;
+        } catch (UnsolvedSymbolException | UnsupportedOperationException | IllegalStateException e) {
+            if (metrics != null) metrics.recordResolutionFailure(e);
+            return ResolutionCache.UNRESOLVED;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            resolveNanos += elapsed;
+            if (metrics != null) {
+                metrics.recordResolution();
+                metrics.record(AnalysisMetrics.Phase.RESOLVE, elapsed);
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.sourceClass = sourceClassName;
+                    event.typeName = type.asString();
+                    event.resolved = resolved;
+                    event.commit();
+                }
             }
-        } catch (Exception ignored) {
         }
-        return type.asString();
+    }
+    /**
+     * Retrieves the time spent in symbol resolution by this visitor so far.
+     *
+     * @return the accumulated resolution time in nanoseconds
+     */
+    public long getResolveNanos() {
+        return resolveNanos;
     }
     /**
      * Determines whether a type should be excluded based on its name.
@@ -155,14 +415,21 @@ public class DependencyVisitor extends VoidVisitorAdapter<Void> {
      * @return true if the type should be excluded, false otherwise
      */
     private boolean shouldExcludeType(String typeName) {
+        return shouldExcludeType(typeName, sourceClassName, filter);
+    }
+    /**
+     * Determines whether a type should be excluded using a dependency filter.
+     * Shared with the lexical HeaderScanner so that every analysis level filters the same way.
+     *
+     * @param typeName        the name of the type to check
+     * @param sourceClassName the name of the class being analyzed
+     * @param filter          the rules deciding which types are reported
+     * @return true if the type should be reported, false if it should be excluded
+     */
+    static boolean shouldExcludeType(String typeName, String sourceClassName, DependencyFilter filter) {
         if (typeName == null || typeName.isEmpty() || typeName.equals("void")) {
             return false;
         }
-        for (String excludedPackage : excludedPackages) {
-            if (typeName.startsWith(excludedPackage)) {
-                return false;
-            }
-        }
-        return !typeName.equals(sourceClassName);
+        return filter.accepts(typeName) && !typeName.equals(sourceClassName);
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package lib.analyser;
+
+import java.nio.file.Path;
+
+/**
+ * The limits of the analysis of one file: the caller's cancellation token and a deadline.
+ * Checked between the steps of the analysis and for each dependency the visitor records,
+ * so a pathological file is abandoned soon after its budget runs out.
+ */
+final class FileBudget {
+    private final Path file;
+    private final CancellationToken token;
+    private final long budgetNanos;
+    private final long deadline;
+
+    /**
+     * Constructs a FileBudget starting now.
+     *
+     * @param file        the file being analysed
+     * @param token       the cancellation token of the analysis
+     * @param budgetNanos the time budget in nanoseconds, or 0 for no budget
+     */
+    FileBudget(Path file, CancellationToken token, long budgetNanos) {
+        this.file = file;
+        this.token = token;
+        this.budgetNanos = budgetNanos;
+        this.deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : 0;
+    }
+
+    /**
+     * Stops the analysis of the file if it was cancelled or ran out of time.
+     *
+     * @throws java.util.concurrent.CancellationException if the analysis was cancelled
+     * @throws FileBudgetExceededException                if the deadline has passed
+     */
+    void check() {
+        token.throwIfCancelled();
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw new FileBudgetExceededException(file, budgetNanos / 1_000_000);
+        }
+    }
+}
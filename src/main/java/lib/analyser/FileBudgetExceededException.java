@@ -0,0 +1,20 @@
+package lib.analyser;
+
+import java.nio.file.Path;
+
+/**
+ * Thrown when the analysis of a single file runs past its time budget.
+ * The engines catch it, record the file as skipped and carry on with the rest of the package.
+ */
+public class FileBudgetExceededException extends RuntimeException {
+
+    /**
+     * Constructs a new FileBudgetExceededException.
+     *
+     * @param file         the file that ran past its budget
+     * @param budgetMillis the budget in milliseconds
+     */
+    public FileBudgetExceededException(Path file, long budgetMillis) {
+        super(file + " took longer than its " + budgetMillis + " ms budget");
+    }
+}
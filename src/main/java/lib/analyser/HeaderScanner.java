@@ -0,0 +1,293 @@
+package lib.analyser;
+
+import lib.analyser.solver.TypeIndex;
+import lib.report.ClassDepsReport;
+import lib.utils.AsyncUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static lib.utils.AsyncUtils.DependencyType.*;
+
+/**
+ * A lexical scanner that extracts dependencies from the header of a Java source file.
+ * It reads the package declaration, the imports and the first type declaration up to its
+ * opening brace, skipping comments, string literals and annotations, and never builds an AST.
+ * This is the engine behind {@link AnalysisLevel#LEXICAL}.
+ */
+public class HeaderScanner {
+    private final String source;
+    private final DependencyFilter filter;
+    private int pos;
+    private int line = 1;
+    private String token;
+    private int tokenLine;
+
+    /**
+     * Constructs a new HeaderScanner over a source file.
+     *
+     * @param source the source code
+     */
+    public HeaderScanner(String source) {
+        this(source, DependencyFilter.DEFAULT);
+    }
+
+    /**
+     * Constructs a new HeaderScanner over a source file that reports only what a filter accepts.
+     *
+     * @param source the source code
+     * @param filter the rules deciding which dependencies are reported
+     */
+    public HeaderScanner(String source, DependencyFilter filter) {
+        this.source = source;
+        this.filter = filter;
+    }
+
+    /**
+     * Reads the package declaration only, without scanning the rest of the header.
+     *
+     * @return the declared package name, empty for the default package
+     */
+    public String scanPackageName() {
+        next();
+        if (!"package".equals(token)) return "";
+        next();
+        return token != null ? token : "";
+    }
+
+    /**
+     * Scans the header and builds the class dependency report.
+     *
+     * @param packageTypeNames the simple names of the other types in the same package
+     * @param typeIndex        the index of the project's source roots and JARs, or null if there is none
+     * @return the class dependency report, with import, extends and implements dependencies
+     */
+    public ClassDepsReport scan(Set<String> packageTypeNames, TypeIndex typeIndex) {
+        String packageName = "";
+        List<String> imports = new ArrayList<>();
+        int[] importLines = new int[8];
+
+        next();
+        if ("package".equals(token)) {
+            next();
+            packageName = token != null ? token : "";
+            skipPast(";");
+        }
+        while ("import".equals(token)) {
+            int importLine = tokenLine;
+            next();
+            boolean isStatic = "static".equals(token);
+            if (isStatic) next();
+            String name = token;
+            skipPast(";");
+            if (!isStatic && name != null) {
+                if (imports.size() == importLines.length) importLines = Arrays.copyOf(importLines, 2 * importLines.length);
+                importLines[imports.size()] = importLine;
+                imports.add(name);
+            }
+        }
+
+        // Skip modifiers and annotations up to the first type keyword
+        boolean abstractType = false;
+        while (token != null && !isTypeKeyword(token)) {
+            if (token.equals("abstract")) {
+                abstractType = true;
+                next();
+            } else if (token.equals("@")) {
+                next();
+                if ("interface".equals(token)) break;
+                next();
+                if ("(".equals(token)) skipBalanced("(", ")");
+            } else {
+                next();
+            }
+        }
+        String keyword = token;
+        next();
+        String className = token != null && isIdentifier(token) ? token : "UnknownClass";
+        ClassDepsReport report = new ClassDepsReport(className);
+        report.setAbstract(abstractType || "interface".equals(keyword));
+        ImportResolver resolver = new ImportResolver(packageName, imports, packageTypeNames, typeIndex);
+
+        for (int i = 0; i < imports.size(); i++) {
+            // A wildcard import is a dependency on its package, reported under the package name
+            String name = imports.get(i).endsWith(".*") ? imports.get(i).substring(0, imports.get(i).length() - 2) : imports.get(i);
+            if (filter.accepts(IMPORT) && DependencyVisitor.shouldExcludeType(name, className, filter)) {
+                report.addDependency(new AsyncUtils(className, name, IMPORT, "import " + name + ";", importLines[i]));
+            }
+        }
+        if (keyword == null) return report;
+
+        next();
+        if ("<".equals(token)) skipBalanced("<", ">");
+        if ("(".equals(token)) skipBalanced("(", ")");
+        while (token != null && !token.equals("{")) {
+            if (token.equals("extends")) {
+                next();
+                readTypeList(report, resolver, className, EXTENDS, "extends");
+            } else if (token.equals("implements")) {
+                next();
+                readTypeList(report, resolver, className, IMPLEMENTS, "implements");
+            } else {
+                next();
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Reads a comma-separated list of types and adds each one as a dependency.
+     *
+     * @param report         the report to add the dependencies to
+     * @param resolver       the resolver qualifying the type names from the imports
+     * @param className      the name of the class being scanned
+     * @param dependencyType the type of dependency (EXTENDS or IMPLEMENTS)
+     * @param description    the keyword introducing the list
+     */
+    private void readTypeList(ClassDepsReport report, ImportResolver resolver, String className,
+                              AsyncUtils.DependencyType dependencyType, String description) {
+        while (token != null && isIdentifier(token)) {
+            String name = token;
+            int typeLine = tokenLine;
+            StringBuilder text = new StringBuilder(name);
+            next();
+            if ("<".equals(token)) text.append(readBalanced("<", ">"));
+            String resolved = resolver.resolveName(name);
+            String typeName = resolved != null ? resolved : text.toString();
+            if (filter.accepts(dependencyType) && DependencyVisitor.shouldExcludeType(typeName, className, filter)) {
+                report.addDependency(new AsyncUtils(className, typeName, dependencyType, description + " " + text, typeLine));
+            }
+            if (!",".equals(token)) return;
+            next();
+        }
+    }
+
+    /**
+     * Advances to the next token: a dotted name, possibly ending with ".*", or a single symbol.
+     * Sets the token to null at the end of the input.
+     */
+    private void next() {
+        skipWhitespaceAndComments();
+        if (pos >= source.length()) {
+            token = null;
+            return;
+        }
+        tokenLine = line;
+        char c = source.charAt(pos);
+        if (Character.isJavaIdentifierStart(c)) {
+            int start = pos;
+            while (pos < source.length()) {
+                char d = source.charAt(pos);
+                if (Character.isJavaIdentifierPart(d)) {
+                    pos++;
+                } else if (d == '.' && pos + 1 < source.length()
+                        && (Character.isJavaIdentifierStart(source.charAt(pos + 1)) || source.charAt(pos + 1) == '*')) {
+                    pos += source.charAt(pos + 1) == '*' ? 2 : 1;
+                } else {
+                    break;
+                }
+            }
+            token = source.substring(start, pos);
+        } else if (c == '"' || c == '\'') {
+            skipLiteral(c);
+            token = "\"\"";
+        } else {
+            pos++;
+            token = String.valueOf(c);
+        }
+    }
+
+    /**
+     * Skips whitespace, line comments and block comments, counting lines.
+     */
+    private void skipWhitespaceAndComments() {
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '\n') {
+                line++;
+                pos++;
+            } else if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (source.startsWith("//", pos)) {
+                while (pos < source.length() && source.charAt(pos) != '\n') pos++;
+            } else if (source.startsWith("/*", pos)) {
+                int end = source.indexOf("*/", pos + 2);
+                end = end < 0 ? source.length() : end + 2;
+                countLines(pos, end);
+                pos = end;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skips a string, text block or character literal starting at the current position.
+     *
+     * @param quote the opening quote character
+     */
+    private void skipLiteral(char quote) {
+        if (quote == '"' && source.startsWith("\"\"\"", pos)) {
+            int end = source.indexOf("\"\"\"", pos + 3);
+            end = end < 0 ? source.length() : end + 3;
+            countLines(pos, end);
+            pos = end;
+            return;
+        }
+        pos++;
+        while (pos < source.length() && source.charAt(pos) != quote && source.charAt(pos) != '\n') {
+            if (source.charAt(pos) == '\\') pos++;
+            pos++;
+        }
+        pos++;
+    }
+
+    /**
+     * Skips a balanced group whose opening symbol is the current token.
+     */
+    private void skipBalanced(String open, String close) {
+        readBalanced(open, close);
+    }
+
+    /**
+     * Reads a balanced group whose opening symbol is the current token, leaving the scanner
+     * on the token after the closing symbol.
+     *
+     * @return the text of the group with normalised spacing
+     */
+    private String readBalanced(String open, String close) {
+        StringBuilder text = new StringBuilder();
+        int depth = 0;
+        while (token != null) {
+            if (token.equals(open)) depth++;
+            else if (token.equals(close)) depth--;
+            text.append(token);
+            if (token.equals(",")) text.append(' ');
+            next();
+            if (depth == 0) break;
+        }
+        return text.toString();
+    }
+
+    /**
+     * Skips tokens up to and including the given symbol.
+     */
+    private void skipPast(String symbol) {
+        while (token != null && !token.equals(symbol)) next();
+        next();
+    }
+
+    private void countLines(int from, int to) {
+        for (int i = from; i < to; i++) if (source.charAt(i) == '\n') line++;
+    }
+
+    private static boolean isTypeKeyword(String token) {
+        return token.equals("class") || token.equals("interface") || token.equals("enum") || token.equals("record");
+    }
+
+    private static boolean isIdentifier(String token) {
+        return Character.isJavaIdentifierStart(token.charAt(0));
+    }
+}
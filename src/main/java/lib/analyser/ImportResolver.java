@@ -0,0 +1,172 @@
+package lib.analyser;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import lib.analyser.solver.TypeIndex;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves type names of a single compilation unit without the symbol solver, using only
+ * what the file itself declares: the types declared in it, its single-type imports,
+ * the other types of its package, its on-demand imports and {@code java.lang}.
+ * Package members and on-demand imports are checked against the {@link TypeIndex} of the
+ * project's source roots and JARs, when one is configured, and against the class path.
+ * The lookup order follows the shadowing rules of the Java Language Specification;
+ * names it cannot decide on are left to the symbol solver.
+ */
+public class ImportResolver {
+    private static final int MAX_KNOWN_CLASSES = 65536;
+    private static final Map<String, Boolean> KNOWN_CLASSES = new ConcurrentHashMap<>();
+
+    private final String packageName;
+    private final Map<String, String> declaredTypes = new HashMap<>();
+    private final Map<String, String> singleTypeImports = new HashMap<>();
+    private final List<String> onDemandImports = new ArrayList<>();
+    private final Set<String> packageTypeNames;
+    private final TypeIndex typeIndex;
+    private final long importsFingerprint;
+
+    /**
+     * Constructs a new ImportResolver for a compilation unit.
+     *
+     * @param cu               the compilation unit
+     * @param packageTypeNames the simple names of the other top-level types in the same package
+     * @param typeIndex        the index of the project's source roots and JARs, or null if there is none
+     */
+    public ImportResolver(CompilationUnit cu, Set<String> packageTypeNames, TypeIndex typeIndex) {
+        this(cu.getPackageDeclaration().map(PackageDeclaration::getNameAsString).orElse(""),
+                typeImportNames(cu),
+                packageTypeNames,
+                typeIndex);
+        for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+            type.getFullyQualifiedName().ifPresent(name -> declaredTypes.putIfAbsent(type.getNameAsString(), name));
+        }
+    }
+
+    /**
+     * Constructs a new ImportResolver from the header of a source file, without an AST.
+     *
+     * @param packageName      the package of the file, empty for the default package
+     * @param imports          the non-static imports, on-demand ones ending with ".*"
+     * @param packageTypeNames the simple names of the other top-level types in the same package
+     * @param typeIndex        the index of the project's source roots and JARs, or null if there is none
+     */
+    public ImportResolver(String packageName, List<String> imports, Set<String> packageTypeNames, TypeIndex typeIndex) {
+        this.packageName = packageName;
+        this.packageTypeNames = packageTypeNames;
+        this.typeIndex = typeIndex;
+
+        long fingerprint = 1125899906842597L;
+        for (String name : imports) {
+            if (name.endsWith(".*")) onDemandImports.add(name.substring(0, name.length() - 2));
+            else singleTypeImports.put(name.substring(name.lastIndexOf('.') + 1), name);
+            fingerprint = 31 * fingerprint + name.hashCode();
+        }
+        this.importsFingerprint = fingerprint;
+    }
+
+    /**
+     * Collects the non-static imports of a compilation unit, on-demand ones ending with ".*".
+     *
+     * @param cu the compilation unit
+     * @return the imported names
+     */
+    private static List<String> typeImportNames(CompilationUnit cu) {
+        List<String> names = new ArrayList<>();
+        for (ImportDeclaration importDeclaration : cu.getImports()) {
+            if (importDeclaration.isStatic()) continue;
+            names.add(importDeclaration.getNameAsString() + (importDeclaration.isAsterisk() ? ".*" : ""));
+        }
+        return names;
+    }
+
+    /**
+     * Retrieves the package of the compilation unit.
+     *
+     * @return the package name, empty for the default package
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Retrieves a fingerprint of the non-static imports, usable as part of a cache key.
+     *
+     * @return the imports fingerprint
+     */
+    public long getImportsFingerprint() {
+        return importsFingerprint;
+    }
+
+    /**
+     * Tries to resolve a type from the declarations and imports of the compilation unit.
+     *
+     * @param type the type to resolve
+     * @return the fully qualified name, or null if the symbol solver is needed
+     */
+    public String resolve(ClassOrInterfaceType type) {
+        return resolveName(type.getNameWithScope());
+    }
+
+    /**
+     * Tries to resolve a possibly scoped type name, such as {@code Map.Entry}, written without type arguments.
+     *
+     * @param name the type name as written in the source
+     * @return the fully qualified name, or null if the symbol solver is needed
+     */
+    public String resolveName(String name) {
+        int dot = name.indexOf('.');
+        if (dot < 0) return resolveSimpleName(name);
+        if (Character.isLowerCase(name.charAt(0))) {
+            // Already qualified, e.g. java.util.List
+            return name;
+        }
+        String qualifiedOuter = resolveSimpleName(name.substring(0, dot));
+        return qualifiedOuter == null ? null : qualifiedOuter + name.substring(dot);
+    }
+
+    /**
+     * Resolves a simple type name in JLS shadowing order.
+     *
+     * @param name the simple name
+     * @return the fully qualified name, or null if it cannot be decided here
+     */
+    private String resolveSimpleName(String name) {
+        String declared = declaredTypes.get(name);
+        if (declared != null) return declared;
+        String imported = singleTypeImports.get(name);
+        if (imported != null) return imported;
+        String samePackage = packageName.isEmpty() ? name : packageName + "." + name;
+        if (packageTypeNames.contains(name) || (typeIndex != null && typeIndex.contains(samePackage))) return samePackage;
+        for (String onDemand : onDemandImports) {
+            String candidate = onDemand + "." + name;
+            if ((typeIndex != null && typeIndex.contains(candidate)) || isKnownClass(candidate)) return candidate;
+        }
+        if (isKnownClass("java.lang." + name)) return "java.lang." + name;
+        return null;
+    }
+
+    /**
+     * Checks whether a top-level class is visible to the analyser's class loader, without initialising it.
+     * This mirrors what the ReflectionTypeSolver would find, at the cost of a map lookup after the first call.
+     *
+     * @param qualifiedName the fully qualified class name
+     * @return true if the class exists
+     */
+    private static boolean isKnownClass(String qualifiedName) {
+        if (KNOWN_CLASSES.size() > MAX_KNOWN_CLASSES) KNOWN_CLASSES.clear();
+        return KNOWN_CLASSES.computeIfAbsent(qualifiedName, name -> {
+            try {
+                Class.forName(name, false, ImportResolver.class.getClassLoader());
+                return true;
+            } catch (ClassNotFoundException | LinkageError e) {
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,214 @@
+package lib.analyser;
+
+import lib.report.ClassDepsReport;
+import lib.utils.AsyncUtils;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * A memory-bounded cache of class reports, so a file queried again, e.g. as part of its package
+ * and then of its project, is not parsed and resolved again.
+ * <p>
+ * Entries are keyed by the absolute path of the file and validated by a fingerprint of its
+ * content and by a fingerprint of the type names of its package, which decide how its simple
+ * names resolve: a file whose content changed, or next to which a type was added or removed,
+ * misses and its entry is replaced. Each entry is weighed
+ * by an estimate of the memory its report holds, and the least recently used entries are evicted
+ * once the total weight exceeds the bound.
+ * <p>
+ * Cached reports are shared by every caller and must not be modified.
+ */
+public class ReportCache {
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int DEPENDENCY_OVERHEAD = 96;
+
+    private final long maxWeight;
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructs a new ReportCache.
+     *
+     * @param maxWeight the estimated number of bytes the cached reports may hold
+     */
+    public ReportCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Computes the fingerprint of a file's content, a 64-bit FNV-1a hash of its characters.
+     *
+     * @param sourceCode the content of the file
+     * @return the fingerprint
+     */
+    public static long fingerprint(String sourceCode) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < sourceCode.length(); i++) {
+            hash ^= sourceCode.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash ^ sourceCode.length();
+    }
+
+    /**
+     * Computes the fingerprint of the type names of a package, independent of their order.
+     *
+     * @param typeNames the simple names of the types of the package
+     * @return the fingerprint
+     */
+    public static long fingerprint(Set<String> typeNames) {
+        long hash = typeNames.size();
+        for (String typeName : typeNames) {
+            long h = fingerprint(typeName);
+            hash += h ^ (h >>> 29);
+        }
+        return hash;
+    }
+
+    /**
+     * Retrieves the cached report of a file, if it was analysed with the same content and the same
+     * types next to it.
+     *
+     * @param file        the source file
+     * @param fingerprint the fingerprint of its current content
+     * @param typeNames   the fingerprint of the type names of its package, see {@link #fingerprint(Set)}
+     * @return the cached report, or null on a miss
+     */
+    public synchronized ClassDepsReport get(Path file, long fingerprint, long typeNames) {
+        Entry entry = entries.get(file.toAbsolutePath());
+        if (entry == null || entry.fingerprint != fingerprint || entry.typeNames != typeNames) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.report;
+    }
+
+    /**
+     * Caches the report of a file, replacing the report of an earlier version, and evicts the
+     * least recently used reports until the cache fits its bound again.
+     *
+     * @param file        the source file
+     * @param fingerprint the fingerprint of the content the report was built from
+     * @param typeNames   the fingerprint of the type names the report was resolved against
+     * @param report      the class report
+     */
+    public synchronized void put(Path file, long fingerprint, long typeNames, ClassDepsReport report) {
+        Path key = file.toAbsolutePath();
+        Entry entry = new Entry(fingerprint, typeNames, report, weigh(key, report));
+        Entry previous = entries.put(key, entry);
+        if (previous != null) weight -= previous.weight;
+        weight += entry.weight;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            weight -= evicted.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Estimates the memory held by a cached report.
+     *
+     * @param file   the key of the entry
+     * @param report the class report
+     * @return the estimated size in bytes
+     */
+    private static long weigh(Path file, ClassDepsReport report) {
+        long bytes = ENTRY_OVERHEAD + 2L * (file.toString().length() + report.getClassName().length());
+        for (AsyncUtils dependency : report.getDependencies()) {
+            bytes += DEPENDENCY_OVERHEAD + 2L * (length(dependency.getSourceType()) + length(dependency.getTargetType())
+                    + length(dependency.getCodeSnippet()));
+        }
+        return bytes;
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : 0;
+    }
+
+    /**
+     * Retrieves the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Retrieves the number of lookups that found no report for the current content.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Retrieves the number of reports dropped to stay within the bound.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Retrieves the estimated memory held by the cached reports.
+     *
+     * @return the total weight in bytes
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Retrieves the number of cached reports.
+     *
+     * @return the cache size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes every cached report, e.g. after a setting that changes the reports.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Summarises the statistics of the cache on one line.
+     *
+     * @return the hits, misses, evictions, size and weight
+     */
+    @Override
+    public synchronized String toString() {
+        return "Report cache: " + hits + " hits, " + misses + " misses, " + evictions + " evictions, "
+                + entries.size() + " reports (" + weight / 1024 + " KiB)";
+    }
+
+    private static final class Entry {
+        private final long fingerprint;
+        private final long typeNames;
+        private final ClassDepsReport report;
+        private final long weight;
+
+        private Entry(long fingerprint, long typeNames, ClassDepsReport report, long weight) {
+            this.fingerprint = fingerprint;
+            this.typeNames = typeNames;
+            this.report = report;
+            this.weight = weight;
+        }
+    }
+}
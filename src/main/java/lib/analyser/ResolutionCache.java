@@ -0,0 +1,143 @@
+package lib.analyser;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A concurrent, size-bounded cache of symbol-solver results shared across files.
+ * Entries are keyed by the package of the compilation unit, a fingerprint of its imports
+ * and the (possibly scoped) type name, which together determine what a name resolves to,
+ * unless the name is used inside a type that inherits member types from a supertype: those
+ * can shadow the imports, so such names are also keyed by the type they are used in.
+ * Failed resolutions are cached too, as {@link #UNRESOLVED}, since the exception-driven
+ * failure path is the most expensive one.
+ */
+public class ResolutionCache {
+    /**
+     * The value cached for names the symbol solver could not resolve.
+     */
+    public static final String UNRESOLVED = "";
+
+    private final Map<Key, String> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a new ResolutionCache.
+     *
+     * @param maxEntries the maximum number of names to keep
+     */
+    public ResolutionCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Retrieves the cached resolution of a name, computing it on a miss.
+     *
+     * @param packageName        the package of the compilation unit
+     * @param importsFingerprint the fingerprint of the compilation unit's imports
+     * @param scope              the type whose inherited member types can shadow the name, or null if none can
+     * @param typeName           the type name as written in the source, without type arguments
+     * @param resolver           the resolution to run on a miss; returns {@link #UNRESOLVED} on failure
+     * @return the qualified name, or {@link #UNRESOLVED}
+     */
+    public String get(String packageName, long importsFingerprint, String scope, String typeName,
+                      Function<String, String> resolver) {
+        Key key = new Key(packageName, importsFingerprint, scope, typeName);
+        String cached = entries.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        String resolved = resolver.apply(typeName);
+        if (entries.size() >= maxEntries) evict();
+        entries.put(key, resolved);
+        return resolved;
+    }
+
+    /**
+     * Drops roughly an eighth of the entries to make room for new ones.
+     * ConcurrentHashMap iteration order is unrelated to insertion order, so this
+     * approximates random eviction without any bookkeeping on the read path.
+     */
+    private void evict() {
+        int toRemove = Math.max(1, maxEntries / 8);
+        Iterator<Key> it = entries.keySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Retrieves the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of lookups that had to run the resolver.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves the number of cached names.
+     *
+     * @return the cache size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes every cached name.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static final class Key {
+        private final String packageName;
+        private final long importsFingerprint;
+        private final String scope;
+        private final String typeName;
+        private final int hash;
+
+        private Key(String packageName, long importsFingerprint, String scope, String typeName) {
+            this.packageName = packageName;
+            this.importsFingerprint = importsFingerprint;
+            this.scope = scope;
+            this.typeName = typeName;
+            this.hash = Objects.hash(packageName, importsFingerprint, scope, typeName);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return importsFingerprint == that.importsFingerprint &&
+                    packageName.equals(that.packageName) &&
+                    Objects.equals(scope, that.scope) &&
+                    typeName.equals(that.typeName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
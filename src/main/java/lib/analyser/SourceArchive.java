@@ -0,0 +1,69 @@
+package lib.analyser;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Opens zip and jar archives of Java sources, such as {@code -sources.jar} artifacts or zipped
+ * repository snapshots, as a {@link FileSystem}.
+ * The entries are read in place through the zip file system provider, so an archive can be
+ * analysed like a source folder without extracting it to disk first. The provider offers no
+ * read-only mode here, so the file system is writable; the analysers only read from it, and the
+ * provider rewrites the archive on close only if an entry was changed.
+ */
+public final class SourceArchive {
+
+    private SourceArchive() {
+    }
+
+    /**
+     * Determines whether a path is a source archive that can be opened with {@link #open(Path)}.
+     *
+     * @param path the path to check
+     * @return true if the path is a regular .zip or .jar file
+     */
+    public static boolean isArchive(Path path) {
+        if (path == null || path.getFileName() == null) return false;
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return (name.endsWith(".zip") || name.endsWith(".jar")) && Files.isRegularFile(path);
+    }
+
+    /**
+     * Opens an archive as a file system.
+     * Every call returns a private instance, so the same archive can be opened by concurrent
+     * analyses; the caller owns the returned file system and must close it once the analysis is done.
+     *
+     * @param archive the path of the archive
+     * @return the file system of the archive; its entries are under {@link #root(FileSystem)}
+     * @throws IOException if the archive cannot be opened
+     */
+    public static FileSystem open(Path archive) throws IOException {
+        // Unlike the jar: URI variant, opening by path never registers the file system globally
+        return FileSystems.newFileSystem(archive.toAbsolutePath(), Collections.emptyMap());
+    }
+
+    /**
+     * Retrieves the root directory of an archive file system.
+     *
+     * @param archive the file system returned by {@link #open(Path)}
+     * @return the root directory of the archive
+     */
+    public static Path root(FileSystem archive) {
+        return archive.getRootDirectories().iterator().next();
+    }
+
+    /**
+     * Determines whether a path lives in the default file system, i.e. on disk rather than inside an archive.
+     *
+     * @param path the path to check
+     * @return true if the path belongs to the default file system
+     */
+    public static boolean isOnDisk(Path path) {
+        return path.getFileSystem() == FileSystems.getDefault();
+    }
+}
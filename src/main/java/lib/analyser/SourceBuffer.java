@@ -0,0 +1,120 @@
+package lib.analyser;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The UTF-8 bytes of a source file, read by a {@link SourceBufferPool}.
+ * The content is decoded on the fly by {@link #reader()}, so a parser reading from it never
+ * holds the whole file as characters. Malformed input is replaced, as {@link String} decoding does.
+ * Close the buffer once the file is parsed, so a pooled buffer can be reused.
+ */
+public final class SourceBuffer implements AutoCloseable {
+    private final ByteBuffer bytes;
+    private final SourceBufferPool pool;
+    private boolean closed;
+
+    /**
+     * Constructs a new SourceBuffer.
+     *
+     * @param bytes the content, from position 0 to the limit
+     * @param pool  the pool to return the buffer to when closed, or null if it is not pooled
+     */
+    SourceBuffer(ByteBuffer bytes, SourceBufferPool pool) {
+        this.bytes = bytes;
+        this.pool = pool;
+    }
+
+    /**
+     * Retrieves the size of the content.
+     *
+     * @return the number of bytes
+     */
+    public int size() {
+        return bytes.limit();
+    }
+
+    /**
+     * Opens a reader decoding the content from the start.
+     *
+     * @return a reader over the content
+     */
+    public Reader reader() {
+        return new DecodingReader(bytes.duplicate());
+    }
+
+    /**
+     * Decodes the whole content, for the consumers that need random access to the text.
+     *
+     * @return the content as a string
+     */
+    public String decode() {
+        return StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+    }
+
+    /**
+     * Computes the fingerprint of the content, a 64-bit FNV-1a hash of its bytes.
+     *
+     * @return the fingerprint
+     */
+    public long fingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < bytes.limit(); i++) {
+            hash ^= bytes.get(i) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash ^ bytes.limit();
+    }
+
+    /**
+     * Returns a pooled buffer to its pool. The content must not be read afterwards.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (pool != null) pool.release(bytes);
+    }
+
+    /**
+     * A reader decoding UTF-8 bytes straight into the caller's array.
+     */
+    private static final class DecodingReader extends Reader {
+        private final ByteBuffer in;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final CharBuffer pending = CharBuffer.allocate(2).flip();
+        private boolean flushed;
+
+        private DecodingReader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (len == 0) return 0;
+            CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+            while (pending.hasRemaining() && out.hasRemaining()) out.put(pending.get());
+            if (in.hasRemaining()) decoder.decode(in, out, true);
+            if (out.position() == off && in.hasRemaining()) {
+                // Too little room for a surrogate pair: decode it aside and hand out its first half
+                pending.clear();
+                decoder.decode(in, pending, true);
+                pending.flip();
+                out.put(pending.get());
+            }
+            if (!in.hasRemaining() && !flushed && out.hasRemaining()) flushed = decoder.flush(out).isUnderflow();
+            int read = out.position() - off;
+            return read == 0 ? -1 : read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
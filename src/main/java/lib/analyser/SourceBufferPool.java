@@ -0,0 +1,134 @@
+package lib.analyser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads source files into reusable direct buffers, so the bytes of a file reach the parser
+ * without being copied into a {@link String} first.
+ * <p>
+ * Files up to the buffer capacity are read into one of at most {@code maxBuffers} pooled direct
+ * buffers; once they are all in use, into a heap buffer of the exact size. Larger files on the
+ * default file system are memory-mapped, and larger archive entries get a heap buffer of their
+ * own. Closing a {@link SourceBuffer} returns its pooled buffer.
+ */
+public final class SourceBufferPool {
+    /**
+     * The default capacity of a pooled buffer, enough for nearly every hand-written source file.
+     */
+    public static final int DEFAULT_BUFFER_CAPACITY = 256 * 1024;
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private final int maxBuffers;
+    private final int bufferCapacity;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    /**
+     * Constructs a SourceBufferPool with buffers of the default capacity.
+     *
+     * @param maxBuffers the maximum number of direct buffers the pool allocates
+     */
+    public SourceBufferPool(int maxBuffers) {
+        this(maxBuffers, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    /**
+     * Constructs a SourceBufferPool.
+     *
+     * @param maxBuffers     the maximum number of direct buffers the pool allocates
+     * @param bufferCapacity the capacity of each pooled buffer, in bytes
+     */
+    public SourceBufferPool(int maxBuffers, int bufferCapacity) {
+        this.maxBuffers = maxBuffers;
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    /**
+     * Reads a file, on disk or inside an archive, into a buffer.
+     *
+     * @param file the file to read
+     * @return the content of the file, to be closed once parsed
+     * @throws IOException if the file cannot be read
+     */
+    public SourceBuffer read(Path file) throws IOException {
+        long size = Files.size(file);
+        if (size > Integer.MAX_VALUE - 8) throw new IOException(file + " is too large to parse");
+        if (size >= MAP_THRESHOLD && size > bufferCapacity && file.getFileSystem() == FileSystems.getDefault()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return new SourceBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), null);
+            }
+        }
+        ByteBuffer buffer = acquire((int) size);
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            while (channel.read(buffer) >= 0) {
+                // The file grew since its size was taken
+                if (!buffer.hasRemaining()) buffer = grow(buffer);
+            }
+        } catch (IOException e) {
+            release(buffer);
+            throw e;
+        }
+        buffer.flip();
+        return new SourceBuffer(buffer, this);
+    }
+
+    /**
+     * Takes a buffer for a file of the given size.
+     *
+     * @param size the size of the file
+     * @return a pooled direct buffer if the file fits one and one is available, else a heap buffer
+     */
+    private ByteBuffer acquire(int size) {
+        if (size < bufferCapacity) {
+            ByteBuffer pooled = free.poll();
+            if (pooled != null) return pooled;
+            if (allocated.incrementAndGet() <= maxBuffers) return ByteBuffer.allocateDirect(bufferCapacity);
+            allocated.decrementAndGet();
+        }
+        // One byte more than the size, so that reading up to the end of the file does not grow the buffer
+        return ByteBuffer.allocate(size + 1);
+    }
+
+    /**
+     * Replaces a full buffer with a heap buffer twice as large holding the same bytes.
+     *
+     * @param buffer the full buffer, released to the pool
+     * @return the larger buffer, positioned after the copied bytes
+     */
+    private ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        larger.put(buffer);
+        release(buffer);
+        return larger;
+    }
+
+    /**
+     * Returns a buffer to the pool, if it is one of the pooled direct buffers.
+     *
+     * @param buffer the buffer to release
+     */
+    void release(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.capacity() != bufferCapacity) return;
+        buffer.clear();
+        free.offer(buffer);
+    }
+
+    /**
+     * Retrieves the number of direct buffers allocated so far.
+     *
+     * @return the number of pooled buffers, in use or free
+     */
+    public int getAllocatedBuffers() {
+        return allocated.get();
+    }
+}
@@ -0,0 +1,201 @@
+package lib.analyser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+/**
+ * Finds the package directories of a source tree by walking its directories in parallel on a
+ * fork/join pool, one task per directory. Each package is handed to a callback as soon as it is
+ * listed, so the caller can start analysing it while the rest of the tree is still being walked.
+ * <p>
+ * VCS metadata and dependency folders such as {@code .git} or {@code node_modules} are skipped
+ * without being entered, at any depth. Build output folders such as {@code build} or {@code target}
+ * are only skipped where build output lives: directly below the root, or in a module root, i.e. a
+ * directory that also holds a {@code src} folder or a build file. Packages with those names, such
+ * as {@code com.example.build}, are still found. Works on any file system, including the zip file
+ * system of a {@link SourceArchive}.
+ */
+public class SourceDiscovery {
+    /**
+     * The names of the directories skipped by default at any depth, in addition to hidden directories.
+     */
+    public static final Set<String> DEFAULT_EXCLUDED_DIRECTORIES = Set.of(
+            "node_modules", ".git", ".gradle", ".idea", ".svn");
+    /**
+     * The names of the build output directories skipped by default below the root and in module roots.
+     */
+    public static final Set<String> DEFAULT_BUILD_OUTPUT_DIRECTORIES = Set.of("build", "target", "out", "bin");
+    /**
+     * The entries telling that a directory is the root of a module, whose build output is skipped.
+     */
+    private static final Set<String> MODULE_MARKERS = Set.of(
+            "src", "pom.xml", "build.gradle", "build.gradle.kts", "build.xml");
+
+    private final Set<String> excludedDirectories;
+    private final Set<String> buildOutputDirectories;
+    private final ForkJoinPool pool;
+    private final String extension;
+
+    /**
+     * Constructs a SourceDiscovery that skips the default directories and runs on the common pool.
+     */
+    public SourceDiscovery() {
+        this(DEFAULT_EXCLUDED_DIRECTORIES, DEFAULT_BUILD_OUTPUT_DIRECTORIES, ForkJoinPool.commonPool(), ".java");
+    }
+
+    /**
+     * Constructs a SourceDiscovery.
+     *
+     * @param excludedDirectories the names of the directories to skip
+     * @param pool                the pool walking the directories
+     */
+    public SourceDiscovery(Set<String> excludedDirectories, ForkJoinPool pool) {
+        this(excludedDirectories, pool, ".java");
+    }
+
+    /**
+     * Constructs a SourceDiscovery for files other than Java sources, such as compiled classes.
+     *
+     * @param excludedDirectories the names of the directories to skip
+     * @param pool                the pool walking the directories
+     * @param extension           the extension of the files a package is made of, e.g. ".class"
+     */
+    public SourceDiscovery(Set<String> excludedDirectories, ForkJoinPool pool, String extension) {
+        this(excludedDirectories, Collections.emptySet(), pool, extension);
+    }
+
+    /**
+     * Constructs a SourceDiscovery that also skips build output directories.
+     *
+     * @param excludedDirectories    the names of the directories to skip at any depth
+     * @param buildOutputDirectories the names of the directories to skip below the root and in module roots
+     * @param pool                   the pool walking the directories
+     * @param extension              the extension of the files a package is made of, e.g. ".java"
+     */
+    public SourceDiscovery(Set<String> excludedDirectories, Set<String> buildOutputDirectories, ForkJoinPool pool,
+                           String extension) {
+        this.excludedDirectories = excludedDirectories;
+        this.buildOutputDirectories = buildOutputDirectories;
+        this.pool = pool;
+        this.extension = extension;
+    }
+
+    /**
+     * Walks a source tree and reports every directory that directly contains Java files.
+     * Blocks until the whole tree has been walked; the callback is invoked concurrently from the
+     * pool threads, in no particular order, while the walk is in progress.
+     *
+     * @param root      the root of the source tree
+     * @param onPackage receives each package directory together with its Java files
+     * @throws UncheckedIOException if the root cannot be listed
+     */
+    public void discover(Path root, BiConsumer<Path, List<Path>> onPackage) {
+        discover(root, onPackage, new CancellationToken());
+    }
+
+    /**
+     * Walks a source tree like {@link #discover(Path, BiConsumer)}, stopping before the next
+     * directory once the token is cancelled.
+     *
+     * @param root      the root of the source tree
+     * @param onPackage receives each package directory together with its Java files
+     * @param token     the token to cancel the walk with
+     * @throws UncheckedIOException if the root cannot be listed
+     * @throws java.util.concurrent.CancellationException if the walk is cancelled
+     */
+    public void discover(Path root, BiConsumer<Path, List<Path>> onPackage, CancellationToken token) {
+        if (!Files.isDirectory(root)) {
+            throw new UncheckedIOException(new IOException("Not a directory: " + root));
+        }
+        pool.invoke(new DirectoryTask(root, onPackage, token, true));
+    }
+
+    /**
+     * Walks a source tree and collects its package directories.
+     *
+     * @param root the root of the source tree
+     * @return the directories that directly contain Java files, sorted by path
+     */
+    public List<Path> findPackageDirectories(Path root) {
+        Set<Path> found = ConcurrentHashMap.newKeySet();
+        discover(root, (dir, files) -> found.add(dir));
+        List<Path> packageDirs = new ArrayList<>(found);
+        Collections.sort(packageDirs);
+        return packageDirs;
+    }
+
+    /**
+     * Determines whether a directory is skipped.
+     *
+     * @param dir the directory to check
+     * @return true if the directory is hidden or has an excluded name
+     */
+    private boolean isExcluded(Path dir) {
+        Path name = dir.getFileName();
+        if (name == null) return false;
+        String dirName = name.toString();
+        return dirName.startsWith(".") || excludedDirectories.contains(dirName);
+    }
+
+    /**
+     * Lists one directory, reports it if it is a package and forks a task per subdirectory.
+     * Whether the directory is a module root is told from the entries it lists, so the build
+     * output rule costs no extra I/O.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+        private final BiConsumer<Path, List<Path>> onPackage;
+        private final CancellationToken token;
+        private final boolean root;
+
+        private DirectoryTask(Path dir, BiConsumer<Path, List<Path>> onPackage, CancellationToken token, boolean root) {
+            this.dir = dir;
+            this.onPackage = onPackage;
+            this.token = token;
+            this.root = root;
+        }
+
+        @Override
+        protected void compute() {
+            token.throwIfCancelled();
+            List<Path> javaFiles = new ArrayList<>();
+            List<DirectoryTask> subTasks = new ArrayList<>();
+            List<Path> buildOutputs = new ArrayList<>();
+            boolean moduleRoot = root;
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString();
+                    moduleRoot |= MODULE_MARKERS.contains(name);
+                    if (Files.isDirectory(entry)) {
+                        if (buildOutputDirectories.contains(name)) buildOutputs.add(entry);
+                        else if (!isExcluded(entry)) subTasks.add(new DirectoryTask(entry, onPackage, token, false));
+                    } else if (name.endsWith(extension)) {
+                        javaFiles.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                if (root) throw new UncheckedIOException(e);
+                System.err.println("Error listing " + dir + ": " + e.getMessage());
+                return;
+            }
+            if (!moduleRoot) {
+                for (Path entry : buildOutputs) subTasks.add(new DirectoryTask(entry, onPackage, token, false));
+            }
+            // Fork first so the subdirectories are walked while this package is being handed off
+            for (DirectoryTask task : subTasks) task.fork();
+            if (!javaFiles.isEmpty()) onPackage.accept(dir, javaFiles);
+            for (DirectoryTask task : subTasks) task.join();
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package lib.analyser;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Provider;
+import com.github.javaparser.Providers;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import lib.analyser.solver.TypeIndex;
+import lib.analyser.solver.TypeSolverConfig;
+import lib.metrics.AnalysisMetrics;
+import lib.metrics.jfr.FileAnalysedEvent;
+import lib.metrics.jfr.JfrEvents;
+import lib.report.ClassDepsReport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Analyses the source code of a single file synchronously: parse, then visit, at the configured
+ * analysis level. This is the per-file core shared by the execution engines; they only differ in
+ * how files are read and scheduled.
+ * <p>
+ * An instance owns one parser and is not meant to analyse two files at the same time. The
+ * resolution cache, metrics and type solver configuration can be shared between instances.
+ */
+public class SourceFileAnalyser {
+    private final AnalysisMetrics metrics;
+    private final AnalysisLevel level;
+    private final TypeSolverConfig typeSolverConfig;
+    private final ResolutionCache resolutionCache;
+    private volatile JavaParser parser;
+    private volatile TypeIndex typeIndex;
+    private volatile long fileTimeBudgetNanos;
+    private volatile DependencyFilter filter = DependencyFilter.DEFAULT;
+    private volatile ReportCache reportCache;
+    private volatile ContentDeduplicator<ClassDepsReport> deduplicator;
+
+    /**
+     * Constructs a new SourceFileAnalyser.
+     *
+     * @param metrics          The metrics collecting per-phase timings and counters.
+     * @param level            How deeply each file is analysed.
+     * @param typeSolverConfig The source roots and JARs to resolve types from.
+     * @param resolutionCache  The cache of symbol-solver results.
+     */
+    public SourceFileAnalyser(AnalysisMetrics metrics, AnalysisLevel level, TypeSolverConfig typeSolverConfig,
+                              ResolutionCache resolutionCache) {
+        this.metrics = metrics;
+        this.level = level;
+        this.typeSolverConfig = typeSolverConfig;
+        this.resolutionCache = resolutionCache;
+    }
+
+    /**
+     * Sets the time budget of each file. A file still being analysed when its budget runs out
+     * is abandoned with a {@link FileBudgetExceededException}.
+     *
+     * @param budget The budget per file, or {@link Duration#ZERO} for no budget.
+     */
+    public void setFileTimeBudget(Duration budget) {
+        this.fileTimeBudgetNanos = budget.toNanos();
+    }
+
+    /**
+     * Sets the rules deciding which dependencies are reported.
+     *
+     * @param filter The include, exclude and dependency-kind rules.
+     */
+    public void setDependencyFilter(DependencyFilter filter) {
+        this.filter = filter;
+        ReportCache cache = reportCache;
+        if (cache != null) cache.clear();
+        ContentDeduplicator<ClassDepsReport> dedup = deduplicator;
+        if (dedup != null) dedup.clear();
+    }
+
+    /**
+     * Retrieves how deeply each file is analysed.
+     *
+     * @return The analysis level.
+     */
+    public AnalysisLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Retrieves the rules deciding which dependencies are reported.
+     *
+     * @return The include, exclude and dependency-kind rules.
+     */
+    public DependencyFilter getDependencyFilter() {
+        return filter;
+    }
+
+    /**
+     * Sets the cache of class reports consulted before a file is parsed. The cache can be shared
+     * between instances with the same level, type solver configuration and filter.
+     *
+     * @param reportCache The report cache, or null to analyse every file from scratch.
+     */
+    public void setReportCache(ReportCache reportCache) {
+        this.reportCache = reportCache;
+    }
+
+    /**
+     * Sets the deduplicator consulted after the report cache, so a file whose content is identical
+     * to a file analysed before, at another path, shares its report. The report depends on the
+     * content and on the types next to the file, so only files in folders declaring the same type
+     * names share one. The deduplicator can be shared like the report cache.
+     *
+     * @param deduplicator The deduplicator, or null to analyse every content on its own.
+     */
+    public void setDeduplicator(ContentDeduplicator<ClassDepsReport> deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * Analyzes the dependencies of a class from its source code.
+     * Failures are not recorded here; the caller decides whether a failed file counts as failed.
+     *
+     * @param sourceFile The path of the source file, used to find the other types of its package.
+     * @param sourceCode The source code of the class.
+     * @return The class dependency report.
+     * @throws java.util.NoSuchElementException if the source code cannot be parsed.
+     */
+    public ClassDepsReport analyse(Path sourceFile, String sourceCode) {
+        return analyse(sourceFile, sourceCode, new CancellationToken());
+    }
+
+    /**
+     * Analyzes the dependencies of a class from its source code, within the per-file time budget.
+     * A file already analysed with the same content is answered from the report cache, if one is set.
+     *
+     * @param sourceFile The path of the source file, used to find the other types of its package.
+     * @param sourceCode The source code of the class.
+     * @param token      The cancellation token of the analysis.
+     * @return The class dependency report.
+     * @throws java.util.NoSuchElementException           if the source code cannot be parsed.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     * @throws FileBudgetExceededException                if the file runs past its time budget.
+     */
+    public ClassDepsReport analyse(Path sourceFile, String sourceCode, CancellationToken token) {
+        return analyse(sourceFile, sourceCode, null, null, token);
+    }
+
+    /**
+     * Analyzes the dependencies of a class from its source code, given the type names of its package,
+     * so that analysing a whole package does not list its folder again for every file.
+     *
+     * @param sourceFile The path of the source file.
+     * @param sourceCode The source code of the class.
+     * @param typeNames  The simple names of the types next to the source file, see {@link #typeNames(List)}.
+     * @param token      The cancellation token of the analysis.
+     * @return The class dependency report.
+     * @throws java.util.NoSuchElementException           if the source code cannot be parsed.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     * @throws FileBudgetExceededException                if the file runs past its time budget.
+     */
+    public ClassDepsReport analyse(Path sourceFile, String sourceCode, Set<String> typeNames, CancellationToken token) {
+        return analyse(sourceFile, sourceCode, null, typeNames, token);
+    }
+
+    /**
+     * Analyzes the dependencies of a class from the bytes of its source file, within the per-file
+     * time budget. The parser reads the bytes through a decoding reader, so the file is never held
+     * as a string as well; only the lexical level, which scans the text back and forth, decodes it.
+     *
+     * @param sourceFile The path of the source file, used to find the other types of its package.
+     * @param source     The content of the source file, left open.
+     * @param token      The cancellation token of the analysis.
+     * @return The class dependency report.
+     * @throws java.util.NoSuchElementException           if the source code cannot be parsed.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     * @throws FileBudgetExceededException                if the file runs past its time budget.
+     */
+    public ClassDepsReport analyse(Path sourceFile, SourceBuffer source, CancellationToken token) {
+        return analyse(sourceFile, null, source, null, token);
+    }
+
+    /**
+     * Analyzes the dependencies of a class from the bytes of its source file, given the type names
+     * of its package, so that analysing a whole package does not list its folder again for every file.
+     *
+     * @param sourceFile The path of the source file.
+     * @param source     The content of the source file, left open.
+     * @param typeNames  The simple names of the types next to the source file, see {@link #typeNames(List)}.
+     * @param token      The cancellation token of the analysis.
+     * @return The class dependency report.
+     * @throws java.util.NoSuchElementException           if the source code cannot be parsed.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     * @throws FileBudgetExceededException                if the file runs past its time budget.
+     */
+    public ClassDepsReport analyse(Path sourceFile, SourceBuffer source, Set<String> typeNames, CancellationToken token) {
+        return analyse(sourceFile, null, source, typeNames, token);
+    }
+
+    /**
+     * Analyzes a class given either as text or as bytes, answering from the report cache or from
+     * an identical file when possible.
+     *
+     * @param sourceFile     The path of the source file.
+     * @param sourceCode     The source code of the class, or null if given as bytes.
+     * @param source         The content of the source file, or null if given as text.
+     * @param knownTypeNames The simple names of the types next to the source file, or null to list its folder.
+     * @param token          The cancellation token of the analysis.
+     * @return The class dependency report.
+     */
+    private ClassDepsReport analyse(Path sourceFile, String sourceCode, SourceBuffer source, Set<String> knownTypeNames,
+                                    CancellationToken token) {
+        FileBudget budget = new FileBudget(sourceFile, token, fileTimeBudgetNanos);
+        budget.check();
+        ReportCache cache = reportCache;
+        ContentDeduplicator<ClassDepsReport> dedup = deduplicator;
+        Set<String> typeNames = knownTypeNames != null ? knownTypeNames : packageTypeNames(sourceFile);
+        long fingerprint = 0;
+        if (cache != null || dedup != null) {
+            fingerprint = sourceCode != null ? ReportCache.fingerprint(sourceCode) : source.fingerprint();
+        }
+        // The same content resolves differently once a type is added to or removed from its package
+        long typeNamesFingerprint = cache != null ? ReportCache.fingerprint(typeNames) : 0;
+        ClassDepsReport classReport = cache != null ? cache.get(sourceFile, fingerprint, typeNamesFingerprint) : null;
+        if (classReport == null) {
+            classReport = dedup == null
+                    ? analyseSource(sourceFile, sourceCode, source, typeNames, budget)
+                    : dedup.analyse(fingerprint, sourceCode != null ? sourceCode.length() : source.size(), typeNames,
+                            () -> analyseSource(sourceFile, sourceCode, source, typeNames, budget));
+            if (cache != null) cache.put(sourceFile, fingerprint, typeNamesFingerprint, classReport);
+        }
+        metrics.recordFileAnalysed(classReport.getDependencies().size());
+        return classReport;
+    }
+
+    /**
+     * Parses and visits the source code of a class.
+     *
+     * @param sourceFile The path of the source file.
+     * @param sourceCode The source code of the class, or null if given as bytes.
+     * @param source     The content of the source file, or null if given as text.
+     * @param typeNames  The simple names of the types next to the source file.
+     * @param budget     The time budget of the file.
+     * @return The class dependency report.
+     */
+    private ClassDepsReport analyseSource(Path sourceFile, String sourceCode, SourceBuffer source, Set<String> typeNames,
+                                          FileBudget budget) {
+        if (level == AnalysisLevel.LEXICAL) {
+            long start = System.nanoTime();
+            String text = sourceCode != null ? sourceCode : source.decode();
+            ClassDepsReport classReport = new HeaderScanner(text, filter).scan(typeNames, getTypeIndex());
+            metrics.record(AnalysisMetrics.Phase.PARSE, System.nanoTime() - start);
+            budget.check();
+            return classReport;
+        }
+        FileAnalysedEvent event = JfrEvents.ENABLED ? new FileAnalysedEvent() : null;
+        if (event != null) event.begin();
+        long start = System.nanoTime();
+        Provider provider = sourceCode != null ? Providers.provider(sourceCode) : Providers.provider(source.reader());
+        CompilationUnit cu = getParser().parse(ParseStart.COMPILATION_UNIT, provider).getResult().orElseThrow();
+        long parsed = System.nanoTime();
+        metrics.record(AnalysisMetrics.Phase.PARSE, parsed - start);
+        budget.check();
+        String className = getClassName(cu);
+        ClassDepsReport classReport = new ClassDepsReport(className);
+        DependencyVisitor visitor = new DependencyVisitor(classReport, className, metrics, resolutionCache,
+                typeNames, getTypeIndex());
+        visitor.setBudget(budget);
+        visitor.setFilter(filter);
+        cu.accept(visitor, null);
+        metrics.record(AnalysisMetrics.Phase.VISIT, System.nanoTime() - parsed);
+        if (event != null && event.shouldCommit()) {
+            event.path = sourceFile.toString();
+            event.bytes = sourceCode != null ? sourceCode.getBytes(StandardCharsets.UTF_8).length : source.size();
+            event.parseNanos = parsed - start;
+            event.resolveNanos = visitor.getResolveNanos();
+            event.dependencyCount = classReport.getDependencies().size();
+            event.commit();
+        }
+        return classReport;
+    }
+
+    /**
+     * Lists the simple names of the top-level types declared next to a source file,
+     * i.e. the names visible without imports from the file's own package.
+     *
+     * @param sourceFile The source file.
+     * @return The names of the other Java files in the same folder, without extension.
+     */
+    static Set<String> packageTypeNames(Path sourceFile) {
+        Path folder = sourceFile.toAbsolutePath().getParent();
+        if (folder == null) return Collections.emptySet();
+        return typeNames(DependencyAnalyserLib.listFiles(folder, ".java"));
+    }
+
+    /**
+     * Lists the simple names of the top-level types declared by the Java files of a package,
+     * once for all its files.
+     *
+     * @param files The Java files of the package.
+     * @return The names of the files, without extension.
+     */
+    public static Set<String> typeNames(List<Path> files) {
+        Set<String> names = new HashSet<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".java")) names.add(name.substring(0, name.length() - ".java".length()));
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Extracts the class name from a compilation unit.
+     *
+     * @param cu The compilation unit.
+     * @return The class name, or "UnknownClass" if not found.
+     */
+    private String getClassName(CompilationUnit cu) {
+        return cu.findFirst(ClassOrInterfaceDeclaration.class)
+                .map(ClassOrInterfaceDeclaration::getNameAsString)
+                .orElse("UnknownClass");
+    }
+
+    /**
+     * Retrieves the parser, creating it on first use.
+     * The symbol solver and its reflection type solver are expensive to load, so they are
+     * only initialised once a file actually has to be parsed; short runs that fail early or
+     * have nothing to analyse never pay for them.
+     *
+     * @return The configured JavaParser instance.
+     */
+    private JavaParser getParser() {
+        JavaParser result = parser;
+        if (result == null) {
+            synchronized (this) {
+                result = parser;
+                if (result == null) parser = result = createJavaParser();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the index of the configured source roots and JARs, building or loading it on first use.
+     *
+     * @return The type index.
+     */
+    private TypeIndex getTypeIndex() {
+        TypeIndex result = typeIndex;
+        if (result == null) {
+            synchronized (this) {
+                result = typeIndex;
+                if (result == null) {
+                    try {
+                        typeIndex = result = typeSolverConfig.getIndex();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to index the class path: " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a JavaParser instance for the analysis level: with a symbol resolver for
+     * RESOLVED, and without a symbol resolver and comment attribution for SYNTACTIC.
+     *
+     * @return The configured JavaParser instance.
+     */
+    private JavaParser createJavaParser() {
+        if (level == AnalysisLevel.SYNTACTIC) {
+            return new JavaParser(new ParserConfiguration().setAttributeComments(false));
+        }
+        JavaSymbolSolver symbolSolver;
+        try {
+            symbolSolver = new JavaSymbolSolver(typeSolverConfig.createTypeSolver());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to set up the type solvers: " + e.getMessage(), e);
+        }
+        JavaParser parser = new JavaParser();
+        parser.getParserConfiguration().setSymbolResolver(symbolSolver);
+        return parser;
+    }
+}
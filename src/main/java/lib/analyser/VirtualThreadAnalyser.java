@@ -0,0 +1,438 @@
+package lib.analyser;
+
+import lib.analyser.solver.TypeSolverConfig;
+import lib.metrics.AnalysisMetrics;
+import lib.report.ClassDepsReport;
+import lib.report.PackageDepsReport;
+import lib.report.PackageReportBuilder;
+import lib.report.ProjectDepsReport;
+import lib.report.ProjectReportBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An alternative execution engine that analyses every file on its own thread with plain blocking
+ * code: read, parse and visit, without callbacks. On a JDK with virtual threads (21 and later) each
+ * file gets a virtual thread, so blocking reads are cheap; on older JDKs it falls back to a fixed
+ * pool of {@code 2 * parallelism} platform threads, one reading ahead for each file being parsed,
+ * so submitting a whole project up front queues its files instead of starting a thread per file.
+ * <p>
+ * Reads are not limited, but parsing and visiting are CPU-bound, so at most {@code parallelism}
+ * files are parsed at the same time. Each of these slots owns a {@link SourceFileAnalyser}, since a
+ * parser must not be shared between threads; all slots share the metrics and the resolution cache.
+ * Reports are the same as those of {@link DependencyAnalyserLib}.
+ */
+public class VirtualThreadAnalyser implements BlockingDependencyAnalyser {
+    private static final int RESOLUTION_CACHE_SIZE = 50_000;
+    private static final long REPORT_CACHE_WEIGHT = 64L * 1024 * 1024;
+    private static final int DEDUPLICATED_CONTENTS = 50_000;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Semaphore cpuPermits;
+    private final ConcurrentLinkedQueue<SourceFileAnalyser> analysers = new ConcurrentLinkedQueue<>();
+    private final AnalysisMetrics metrics;
+    private final ReportCache reportCache = new ReportCache(REPORT_CACHE_WEIGHT);
+    private final ContentDeduplicator<ClassDepsReport> deduplicator = new ContentDeduplicator<>(DEDUPLICATED_CONTENTS);
+    private final SourceBufferPool sourceBuffers;
+    private final SourceDiscovery discovery = new SourceDiscovery();
+
+    /**
+     * Constructs a VirtualThreadAnalyser that parses up to one file per core at a time.
+     *
+     * @param metrics The metrics collecting per-phase timings and counters.
+     * @param level   How deeply each file is analysed.
+     */
+    public VirtualThreadAnalyser(AnalysisMetrics metrics, AnalysisLevel level) {
+        this(metrics, level, TypeSolverConfig.reflectionOnly(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a VirtualThreadAnalyser.
+     *
+     * @param metrics          The metrics collecting per-phase timings and counters.
+     * @param level            How deeply each file is analysed.
+     * @param typeSolverConfig The source roots and JARs to resolve types from.
+     * @param parallelism      The maximum number of files parsed and visited at the same time.
+     */
+    public VirtualThreadAnalyser(AnalysisMetrics metrics, AnalysisLevel level, TypeSolverConfig typeSolverConfig, int parallelism) {
+        this.metrics = metrics;
+        this.cpuPermits = new Semaphore(Math.max(1, parallelism));
+        // Files are read ahead of the permits, so allow for as many waiting as being parsed
+        this.sourceBuffers = new SourceBufferPool(2 * Math.max(1, parallelism));
+        ResolutionCache resolutionCache = new ResolutionCache(RESOLUTION_CACHE_SIZE);
+        for (int i = 0; i < Math.max(1, parallelism); i++) {
+            SourceFileAnalyser analyser = new SourceFileAnalyser(metrics, level, typeSolverConfig, resolutionCache);
+            analyser.setReportCache(reportCache);
+            analyser.setDeduplicator(deduplicator);
+            analysers.add(analyser);
+        }
+        ExecutorService virtualExecutor = newVirtualThreadPerTaskExecutor();
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : Executors.newFixedThreadPool(2 * Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "analyser-file");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor if the running JDK supports it.
+     * The project targets Java 17, so the JDK 21 factory method is looked up reflectively.
+     *
+     * @return The executor, or null if virtual threads are not available.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Tells whether files run on virtual threads or on the platform-thread fallback.
+     *
+     * @return true if virtual threads are used.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Retrieves the metrics recorded by this analyser.
+     *
+     * @return The per-phase timings and counters.
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retrieves the cache of class reports shared by the file analysers of this instance.
+     *
+     * @return The report cache.
+     */
+    public ReportCache getReportCache() {
+        return reportCache;
+    }
+
+    /**
+     * Retrieves the deduplicator shared by the file analysers of this instance, through which
+     * files with identical content share one analysis.
+     *
+     * @return The content deduplicator.
+     */
+    public ContentDeduplicator<ClassDepsReport> getDeduplicator() {
+        return deduplicator;
+    }
+
+    /**
+     * Sets the time budget of each file. A file whose analysis runs past its budget is skipped:
+     * it is recorded in the metrics and left out of its package report.
+     *
+     * @param budget The budget per file, or {@link Duration#ZERO} for no budget.
+     */
+    public void setFileTimeBudget(Duration budget) {
+        for (SourceFileAnalyser analyser : analysers) analyser.setFileTimeBudget(budget);
+    }
+
+    /**
+     * Sets the rules deciding which dependencies are reported.
+     *
+     * @param filter The include, exclude and dependency-kind rules.
+     */
+    public void setDependencyFilter(DependencyFilter filter) {
+        for (SourceFileAnalyser analyser : analysers) analyser.setDependencyFilter(filter);
+    }
+
+    /**
+     * Analyzes the dependencies of a single Java class.
+     *
+     * @param classSrcFile The path to the Java source file.
+     * @return The class dependency report.
+     * @throws IOException          if the file cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public ClassDepsReport getClassDependencies(Path classSrcFile) throws IOException, InterruptedException {
+        return getClassDependencies(classSrcFile, new CancellationToken());
+    }
+
+    /**
+     * Analyzes the dependencies of a single Java class, unless the analysis is cancelled first.
+     *
+     * @param classSrcFile The path to the Java source file.
+     * @param token        The token to cancel the analysis with.
+     * @return The class dependency report.
+     * @throws IOException          if the file cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     */
+    public ClassDepsReport getClassDependencies(Path classSrcFile, CancellationToken token) throws IOException, InterruptedException {
+        metrics.recordFilesDiscovered(1);
+        return join(executor.submit(() -> analyseFile(classSrcFile, null, token)));
+    }
+
+    /**
+     * Analyzes the dependencies of all classes in a package, one thread per file.
+     *
+     * @param packageSrcFolder The path to the package folder.
+     * @return The package dependency report.
+     * @throws IOException          if a file cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public PackageDepsReport getPackageDependencies(Path packageSrcFolder) throws IOException, InterruptedException {
+        return getPackageDependencies(packageSrcFolder, new CancellationToken());
+    }
+
+    /**
+     * Analyzes the dependencies of all classes in a package, unless the analysis is cancelled first.
+     *
+     * @param packageSrcFolder The path to the package folder.
+     * @param token            The token to cancel the analysis with.
+     * @return The package dependency report.
+     * @throws IOException          if a file cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     */
+    public PackageDepsReport getPackageDependencies(Path packageSrcFolder, CancellationToken token) throws IOException, InterruptedException {
+        List<Path> files = DependencyAnalyserLib.listFiles(packageSrcFolder, ".java");
+        PackageReportBuilder builder = new PackageReportBuilder(folderName(packageSrcFolder), files.size());
+        joinAll(submitFiles(packageSrcFolder, files, builder, null, token));
+        return seal(builder);
+    }
+
+    /**
+     * Analyzes the dependencies of all packages in a project or a .zip/.jar source archive.
+     * The files of every package are submitted up front, so the whole project is analysed in parallel.
+     *
+     * @param projectSrcFolder The path to the project folder or source archive.
+     * @return The project dependency report.
+     * @throws IOException          if a file or the archive cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public ProjectDepsReport getProjectDependencies(Path projectSrcFolder) throws IOException, InterruptedException {
+        return getProjectDependencies(projectSrcFolder, new CancellationToken());
+    }
+
+    /**
+     * Analyzes the dependencies of all packages in a project, unless the analysis is cancelled first.
+     * Once cancelled, no further file is started and files waiting for a CPU permit give up.
+     *
+     * @param projectSrcFolder The path to the project folder or source archive.
+     * @param token            The token to cancel the analysis with.
+     * @return The project dependency report.
+     * @throws IOException          if a file or the archive cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     */
+    public ProjectDepsReport getProjectDependencies(Path projectSrcFolder, CancellationToken token) throws IOException, InterruptedException {
+        if (SourceArchive.isArchive(projectSrcFolder)) {
+            try (FileSystem archive = SourceArchive.open(projectSrcFolder)) {
+                return analyseProject(SourceArchive.root(archive), projectSrcFolder.getFileName().toString(), token);
+            }
+        }
+        String projectName = projectSrcFolder.getFileName() != null
+                ? projectSrcFolder.getFileName().toString()
+                : "UnknownProject";
+        return analyseProject(projectSrcFolder, projectName, token);
+    }
+
+    /**
+     * Analyzes every package below a root folder. Files are submitted while the parallel
+     * source discovery is still walking the tree, so parsing overlaps with discovery.
+     *
+     * @param root        The folder to search for packages.
+     * @param projectName The name of the project report.
+     * @param token       The token to cancel the analysis with.
+     * @return The project dependency report.
+     * @throws IOException          if a file cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    private ProjectDepsReport analyseProject(Path root, String projectName, CancellationToken token) throws IOException, InterruptedException {
+        ProjectReportBuilder project = new ProjectReportBuilder(projectName);
+        Queue<Future<?>> submitted = new ConcurrentLinkedQueue<>();
+        try {
+            discovery.discover(root, (dir, files) -> {
+                if (token.isCancelled()) return;
+                PackageReportBuilder builder = new PackageReportBuilder(folderName(dir), files.size());
+                submitted.addAll(submitFiles(dir, files, builder, project, token));
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        token.throwIfCancelled();
+
+        joinAll(submitted);
+        return project.build();
+    }
+
+    /**
+     * Submits files for analysis, one task per file. Each task publishes its class report to
+     * the package builder, and the task completing the package seals it into the project builder.
+     *
+     * @param folder  The package folder.
+     * @param files   The Java files to analyse.
+     * @param builder The builder of the package report, sized for the files.
+     * @param project The builder of the project report, or null to leave the package unsealed.
+     * @param token   The token to cancel the analysis with.
+     * @return The pending tasks.
+     */
+    private List<Future<?>> submitFiles(Path folder, List<Path> files, PackageReportBuilder builder,
+                                        ProjectReportBuilder project, CancellationToken token) {
+        metrics.recordFilesDiscovered(files.size());
+        Set<String> typeNames = SourceFileAnalyser.typeNames(files);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            int index = i;
+            Path file = files.get(i);
+            futures.add(executor.submit(() -> {
+                if (builder.add(index, analyseFile(file, typeNames, token)) && project != null) project.add(folder, seal(builder));
+                return null;
+            }));
+        }
+        return futures;
+    }
+
+    /**
+     * Seals a complete package report.
+     *
+     * @param builder The builder holding every class report of the package.
+     * @return The package dependency report.
+     */
+    private PackageDepsReport seal(PackageReportBuilder builder) {
+        long start = System.nanoTime();
+        PackageDepsReport report = builder.build();
+        metrics.record(AnalysisMetrics.Phase.AGGREGATE, System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Names a package after its folder.
+     *
+     * @param folder The package folder.
+     * @return The folder name.
+     */
+    private static String folderName(Path folder) {
+        return folder.getFileName() != null ? folder.getFileName().toString() : "UnknownFolder";
+    }
+
+    /**
+     * Reads and analyses a file on the calling thread. The read is unrestricted, while
+     * parsing and visiting wait for one of the CPU permits. A file that runs past its
+     * time budget yields an empty report, which the package leaves out.
+     *
+     * @param file      The Java source file.
+     * @param typeNames The simple names of the types of the package, or null to list the folder of the file.
+     * @param token     The token to cancel the analysis with.
+     * @return The class dependency report.
+     * @throws IOException          if the file cannot be read.
+     * @throws InterruptedException if the thread is interrupted while waiting for a permit.
+     */
+    private ClassDepsReport analyseFile(Path file, Set<String> typeNames, CancellationToken token) throws IOException, InterruptedException {
+        token.throwIfCancelled();
+        long start = System.nanoTime();
+        SourceBuffer source;
+        try {
+            source = sourceBuffers.read(file);
+        } catch (IOException e) {
+            metrics.recordFileFailed();
+            throw new IOException("Error reading file: " + e.getMessage(), e);
+        } finally {
+            metrics.record(AnalysisMetrics.Phase.READ, System.nanoTime() - start);
+        }
+        metrics.recordFileRead(source.size());
+
+        try (source) {
+            return analyseSource(file, source, typeNames, token);
+        }
+    }
+
+    /**
+     * Analyses the content of a file once one of the CPU permits is available.
+     *
+     * @param file      The Java source file.
+     * @param source    The content of the file.
+     * @param typeNames The simple names of the types of the package, or null to list the folder of the file.
+     * @param token     The token to cancel the analysis with.
+     * @return The class dependency report.
+     * @throws InterruptedException if the thread is interrupted while waiting for a permit.
+     */
+    private ClassDepsReport analyseSource(Path file, SourceBuffer source, Set<String> typeNames, CancellationToken token)
+            throws InterruptedException {
+        cpuPermits.acquire();
+        SourceFileAnalyser analyser = analysers.poll();
+        try {
+            return analyser.analyse(file, source, typeNames, token);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (FileBudgetExceededException e) {
+            metrics.recordFileSkipped(file.toString());
+            System.err.println("Skipped " + e.getMessage());
+            return DependencyAnalyserLib.skippedReport(file);
+        } catch (RuntimeException e) {
+            metrics.recordFileFailed();
+            throw new IllegalStateException("Failed to analyze class: " + e.getMessage(), e);
+        } finally {
+            analysers.add(analyser);
+            cpuPermits.release();
+        }
+    }
+
+    /**
+     * Waits for a task and unwraps its failure.
+     *
+     * @param future The task to wait for.
+     * @param <T>    The type of the result.
+     * @return The result of the task.
+     * @throws IOException          if the task failed to read a file.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    private static <T> T join(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Waits for every task, failing with the first failure found.
+     *
+     * @param futures The tasks to wait for.
+     * @throws IOException          if a task failed to read a file.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    private static void joinAll(Collection<Future<?>> futures) throws IOException, InterruptedException {
+        for (Future<?> future : futures) join(future);
+    }
+
+    /**
+     * Stops the executor. Running analyses are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,465 @@
+package lib.analyser.bytecode;
+
+import lib.analyser.BlockingDependencyAnalyser;
+import lib.analyser.CancellationToken;
+import lib.analyser.DependencyFilter;
+import lib.analyser.SourceArchive;
+import lib.analyser.SourceDiscovery;
+import lib.metrics.AnalysisMetrics;
+import lib.report.ClassDepsReport;
+import lib.report.PackageDepsReport;
+import lib.report.PackageReportBuilder;
+import lib.report.ProjectDepsReport;
+import lib.report.ProjectReportBuilder;
+import lib.utils.AsyncUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+
+import static lib.utils.AsyncUtils.DependencyType.*;
+
+/**
+ * An analysis engine that reads dependencies from compiled classes instead of sources, e.g. from
+ * {@code build/classes/java/main} or a JAR. Names in the class files are already fully qualified,
+ * so there is neither parsing nor symbol resolution: a class costs little more than reading its bytes.
+ * <p>
+ * A top-level class and its nested, local and anonymous classes ({@code Outer$Inner.class}) make up
+ * one class report, as they make up one source file. The dependencies map onto the source kinds:
+ * <ul>
+ *     <li>the superclass is EXTENDS, and the superinterfaces are IMPLEMENTS, or EXTENDS for an interface;</li>
+ *     <li>the field descriptors are FIELD, and the method descriptors METHOD_PARAMETER and METHOD_RETURN,
+ *     leaving out constructors and compiler-generated members;</li>
+ *     <li>{@code new} instructions are INSTANTIATION, with the line from the line number table;</li>
+ *     <li>every other type of the constant pool, such as the owners of called methods, is IMPORT.</li>
+ * </ul>
+ * Array types count as their element type and primitive types are left out. Annotations, generic
+ * signatures and constants inlined by the compiler leave no trace in the constant pool, so they are not seen.
+ */
+public class BytecodeAnalyser implements BlockingDependencyAnalyser {
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final ExecutorService executor;
+    private final AnalysisMetrics metrics;
+    private final SourceDiscovery discovery;
+    private volatile DependencyFilter filter = DependencyFilter.DEFAULT;
+
+    /**
+     * Constructs a BytecodeAnalyser that reads up to one class per core at a time.
+     *
+     * @param metrics The metrics collecting per-phase timings and counters.
+     */
+    public BytecodeAnalyser(AnalysisMetrics metrics) {
+        this(metrics, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a BytecodeAnalyser.
+     *
+     * @param metrics     The metrics collecting per-phase timings and counters.
+     * @param parallelism The number of classes read at the same time.
+     */
+    public BytecodeAnalyser(AnalysisMetrics metrics, int parallelism) {
+        this.metrics = metrics;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "analyser-bytecode");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Class output lives below build/ or target/, so no directory name is skipped, only hidden ones
+        this.discovery = new SourceDiscovery(Collections.emptySet(), ForkJoinPool.commonPool(), CLASS_EXTENSION);
+    }
+
+    /**
+     * Retrieves the metrics recorded by this analyser.
+     *
+     * @return The per-phase timings and counters.
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the rules deciding which dependencies are reported.
+     *
+     * @param filter The include, exclude and dependency-kind rules.
+     */
+    @Override
+    public void setDependencyFilter(DependencyFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Analyzes the dependencies of a compiled class together with its nested classes.
+     *
+     * @param classFile The path to the .class file of a top-level class.
+     * @param token     The token to cancel the analysis with.
+     * @return The class dependency report.
+     * @throws IOException          if a class file cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     */
+    @Override
+    public ClassDepsReport getClassDependencies(Path classFile, CancellationToken token) throws IOException, InterruptedException {
+        Path folder = classFile.toAbsolutePath().getParent();
+        String topLevelName = baseName(classFile);
+        List<Path> group = new ArrayList<>();
+        group.add(classFile);
+        if (folder != null) {
+            for (Path sibling : listClassFiles(folder)) {
+                if (baseName(sibling).startsWith(topLevelName + "$")) group.add(sibling);
+            }
+        }
+        metrics.recordFilesDiscovered(1);
+        return join(executor.submit(() -> analyseClass(group, token)));
+    }
+
+    /**
+     * Analyzes the dependencies of all compiled classes in a package folder.
+     *
+     * @param packageFolder The path to the package folder.
+     * @param token         The token to cancel the analysis with.
+     * @return The package dependency report.
+     * @throws IOException          if a class file cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     */
+    @Override
+    public PackageDepsReport getPackageDependencies(Path packageFolder, CancellationToken token) throws IOException, InterruptedException {
+        List<Future<?>> pending = new ArrayList<>();
+        PackageReportBuilder builder = submitClasses(packageFolder, listClassFiles(packageFolder), null, pending, token);
+        joinAll(pending);
+        return seal(builder);
+    }
+
+    /**
+     * Analyzes the dependencies of all packages of a class output folder or a JAR.
+     *
+     * @param projectFolder The path to the class output folder or JAR.
+     * @param token         The token to cancel the analysis with.
+     * @return The project dependency report.
+     * @throws IOException          if a class file or the JAR cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws java.util.concurrent.CancellationException if the analysis is cancelled.
+     */
+    @Override
+    public ProjectDepsReport getProjectDependencies(Path projectFolder, CancellationToken token) throws IOException, InterruptedException {
+        if (SourceArchive.isArchive(projectFolder)) {
+            try (FileSystem archive = SourceArchive.open(projectFolder)) {
+                return analyseProject(SourceArchive.root(archive), projectFolder.getFileName().toString(), token);
+            }
+        }
+        String projectName = projectFolder.getFileName() != null
+                ? projectFolder.getFileName().toString()
+                : "UnknownProject";
+        return analyseProject(projectFolder, projectName, token);
+    }
+
+    /**
+     * Analyzes every package below a root folder, submitting the classes of each package as it is discovered.
+     *
+     * @param root        The folder to search for packages.
+     * @param projectName The name of the project report.
+     * @param token       The token to cancel the analysis with.
+     * @return The project dependency report.
+     * @throws IOException          if a class file cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    private ProjectDepsReport analyseProject(Path root, String projectName, CancellationToken token) throws IOException, InterruptedException {
+        ProjectReportBuilder project = new ProjectReportBuilder(projectName);
+        Queue<Future<?>> pending = new ConcurrentLinkedQueue<>();
+        try {
+            discovery.discover(root, (dir, files) -> {
+                if (!token.isCancelled()) submitClasses(dir, files, project, pending, token);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        token.throwIfCancelled();
+
+        joinAll(pending);
+        return project.build();
+    }
+
+    /**
+     * Groups the class files of a package by top-level class and submits one task per group.
+     * Each task publishes its class report to the package builder, and the task completing
+     * the package seals it into the project builder.
+     *
+     * @param folder  The package folder.
+     * @param files   The .class files of the package.
+     * @param project The builder of the project report, or null to leave the package unsealed.
+     * @param pending The collection receiving the submitted tasks.
+     * @param token   The token to cancel the analysis with.
+     * @return The builder of the package report, its classes in class name order.
+     */
+    private PackageReportBuilder submitClasses(Path folder, List<Path> files, ProjectReportBuilder project,
+                                               Collection<Future<?>> pending, CancellationToken token) {
+        Map<String, List<Path>> groups = new TreeMap<>();
+        Set<String> names = new HashSet<>();
+        for (Path file : files) names.add(baseName(file));
+        for (Path file : files) {
+            String name = baseName(file);
+            if (name.equals("package-info") || name.equals("module-info")) continue;
+            String topLevelName = topLevelName(name, names);
+            List<Path> group = groups.computeIfAbsent(topLevelName, k -> new ArrayList<>());
+            // The top-level class names the report, so it goes first
+            if (name.equals(topLevelName)) group.add(0, file);
+            else group.add(file);
+        }
+        metrics.recordFilesDiscovered(groups.size());
+        PackageReportBuilder builder = new PackageReportBuilder(folderName(folder), groups.size());
+        int index = 0;
+        for (List<Path> group : groups.values()) {
+            int slot = index++;
+            pending.add(executor.submit(() -> {
+                if (builder.add(slot, analyseClass(group, token)) && project != null) project.add(folder, seal(builder));
+                return null;
+            }));
+        }
+        return builder;
+    }
+
+    /**
+     * Seals a complete package report.
+     *
+     * @param builder The builder holding every class report of the package.
+     * @return The package dependency report.
+     */
+    private PackageDepsReport seal(PackageReportBuilder builder) {
+        long start = System.nanoTime();
+        PackageDepsReport report = builder.build();
+        metrics.record(AnalysisMetrics.Phase.AGGREGATE, System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Names a package after its folder.
+     *
+     * @param folder The package folder.
+     * @return The folder name.
+     */
+    private static String folderName(Path folder) {
+        return folder.getFileName() != null ? folder.getFileName().toString() : "UnknownFolder";
+    }
+
+    /**
+     * Reads a top-level class and its nested classes and builds their common report.
+     *
+     * @param group The class file of the top-level class first, then those of its nested classes.
+     * @param token The token to cancel the analysis with.
+     * @return The class dependency report.
+     * @throws IOException if a class file cannot be read or is malformed.
+     */
+    private ClassDepsReport analyseClass(List<Path> group, CancellationToken token) throws IOException {
+        token.throwIfCancelled();
+        List<ClassFileReader> classes = new ArrayList<>();
+        for (Path file : group) {
+            long start = System.nanoTime();
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(file);
+            } catch (IOException e) {
+                metrics.recordFileFailed();
+                throw new IOException("Error reading file: " + e.getMessage(), e);
+            } finally {
+                metrics.record(AnalysisMetrics.Phase.READ, System.nanoTime() - start);
+            }
+            metrics.recordFileRead(bytes.length);
+            long parseStart = System.nanoTime();
+            try {
+                classes.add(new ClassFileReader(bytes));
+            } catch (IOException | RuntimeException e) {
+                metrics.recordFileFailed();
+                throw new IOException("Failed to read class " + file + ": " + e.getMessage(), e);
+            } finally {
+                metrics.record(AnalysisMetrics.Phase.PARSE, System.nanoTime() - parseStart);
+            }
+        }
+
+        long visitStart = System.nanoTime();
+        String qualifiedName = classes.get(0).getClassName();
+        String simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+        ReportBuilder builder = new ReportBuilder(new ClassDepsReport(simpleName), qualifiedName);
+        builder.report.setAbstract(classes.get(0).isAbstract());
+        for (ClassFileReader classFile : classes) builder.addClass(classFile);
+        builder.addReferences(classes);
+        metrics.record(AnalysisMetrics.Phase.VISIT, System.nanoTime() - visitStart);
+        metrics.recordFileAnalysed(builder.report.getDependencies().size());
+        return builder.report;
+    }
+
+    /**
+     * Finds the top-level class of a class file name: the longest prefix before a '$' that is itself a class
+     * of the package, or the whole name if there is none, since '$' may also be part of an ordinary name.
+     *
+     * @param name  The class file name without extension.
+     * @param names The class file names of the package.
+     * @return The name of the top-level class.
+     */
+    private static String topLevelName(String name, Set<String> names) {
+        int dollar = name.indexOf('$');
+        while (dollar > 0) {
+            String prefix = name.substring(0, dollar);
+            if (names.contains(prefix)) return prefix;
+            dollar = name.indexOf('$', dollar + 1);
+        }
+        return name;
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(CLASS_EXTENSION) ? name.substring(0, name.length() - CLASS_EXTENSION.length()) : name;
+    }
+
+    /**
+     * Lists the class files directly inside a folder.
+     *
+     * @param folder The folder to list.
+     * @return The class files, sorted by name.
+     * @throws IOException if the folder cannot be listed.
+     */
+    private static List<Path> listClassFiles(Path folder) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*" + CLASS_EXTENSION)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) files.add(file);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Waits for a task and unwraps its failure.
+     *
+     * @param future The task to wait for.
+     * @param <T>    The type of the result.
+     * @return The result of the task.
+     * @throws IOException          if the task failed to read a class file.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    private static <T> T join(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Waits for every task, failing with the first failure found.
+     *
+     * @param futures The tasks to wait for.
+     * @throws IOException          if a task failed to read a class file.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    private static void joinAll(Collection<Future<?>> futures) throws IOException, InterruptedException {
+        for (Future<?> future : futures) join(future);
+    }
+
+    /**
+     * Stops the reader threads. Running analyses are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Builds the report of one top-level class, filtering each dependency as the source engines do.
+     */
+    private final class ReportBuilder {
+        private final ClassDepsReport report;
+        private final String qualifiedName;
+        private final DependencyFilter filter = BytecodeAnalyser.this.filter;
+        private final Set<String> reported = new HashSet<>();
+
+        private ReportBuilder(ClassDepsReport report, String qualifiedName) {
+            this.report = report;
+            this.qualifiedName = qualifiedName;
+        }
+
+        /**
+         * Adds the supertypes, member descriptors and instantiations of a class.
+         *
+         * @param classFile The class to add.
+         */
+        private void addClass(ClassFileReader classFile) {
+            if (classFile.getSuperName() != null) add(classFile.getSuperName(), EXTENDS, "extends", -1);
+            for (String interfaceName : classFile.getInterfaceNames()) {
+                if (classFile.isInterface()) add(interfaceName, EXTENDS, "extends", -1);
+                else add(interfaceName, IMPLEMENTS, "implements", -1);
+            }
+            for (ClassFileReader.Member field : classFile.getFields()) {
+                if (field.isSynthetic()) continue;
+                for (String type : ClassFileReader.descriptorTypes(field.getDescriptor())) add(type, FIELD, "field", -1);
+            }
+            for (ClassFileReader.Member method : classFile.getMethods()) {
+                if (method.isSynthetic() || method.getName().startsWith("<")) continue;
+                String descriptor = method.getDescriptor();
+                int close = descriptor.indexOf(')');
+                for (String type : ClassFileReader.descriptorTypes(descriptor.substring(1, close))) {
+                    add(type, METHOD_PARAMETER, "parameter", -1);
+                }
+                for (String type : ClassFileReader.descriptorTypes(descriptor.substring(close + 1))) {
+                    add(type, METHOD_RETURN, "return type", -1);
+                }
+            }
+            for (ClassFileReader.Instantiation instantiation : classFile.getInstantiations()) {
+                add(instantiation.getTypeName(), INSTANTIATION, "new", instantiation.getLine());
+            }
+        }
+
+        /**
+         * Adds the types of the constant pools that no other kind of dependency has reported.
+         *
+         * @param classes The classes of the report.
+         */
+        private void addReferences(List<ClassFileReader> classes) {
+            Set<String> seen = new HashSet<>();
+            for (ClassFileReader classFile : classes) {
+                for (String type : classFile.getReferencedTypes()) {
+                    if (!reported.contains(type) && seen.add(type)) add(type, IMPORT, "uses", -1);
+                }
+            }
+        }
+
+        /**
+         * Adds a dependency unless it is excluded or points into the class itself.
+         *
+         * @param typeName       The canonical name of the type depended on.
+         * @param dependencyType The kind of dependency.
+         * @param description    The word describing the dependency in the code snippet.
+         * @param line           The source line, or -1 if unknown.
+         */
+        private void add(String typeName, AsyncUtils.DependencyType dependencyType, String description, int line) {
+            if (typeName == null || typeName.equals(qualifiedName) || typeName.startsWith(qualifiedName + ".")) return;
+            reported.add(typeName);
+            if (!filter.accepts(dependencyType) || !filter.accepts(typeName)) return;
+            report.addDependency(new AsyncUtils(report.getClassName(), typeName, dependencyType,
+                    description + " " + typeName, line));
+        }
+    }
+}
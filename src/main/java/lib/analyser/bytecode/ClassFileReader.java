@@ -0,0 +1,459 @@
+package lib.analyser.bytecode;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A minimal reader of the class file format that extracts what a dependency analysis needs:
+ * the class and its supertypes, the descriptors of its fields and methods, the classes
+ * instantiated by its code, with their line numbers, and every other type its constant pool refers to.
+ * <p>
+ * Only the constant pool, the member tables and the {@code Code} and {@code LineNumberTable}
+ * attributes are decoded; everything else is skipped by length, so reading a class costs little
+ * more than reading its bytes. Type names are returned in canonical form, e.g. {@code java.util.Map.Entry}.
+ */
+public final class ClassFileReader {
+    static final int ACC_INTERFACE = 0x0200;
+    static final int ACC_ABSTRACT = 0x0400;
+    static final int ACC_SYNTHETIC = 0x1000;
+    static final int ACC_BRIDGE = 0x0040;
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int OP_NEW = 0xBB;
+
+    private final String className;
+    private final String superName;
+    private final List<String> interfaceNames = new ArrayList<>();
+    private final int accessFlags;
+    private final List<Member> fields = new ArrayList<>();
+    private final List<Member> methods = new ArrayList<>();
+    private final List<Instantiation> instantiations = new ArrayList<>();
+    private final Set<String> referencedTypes = new LinkedHashSet<>();
+
+    private Object[] constants;
+    private int[] tags;
+
+    /**
+     * Reads a class file.
+     *
+     * @param bytes the content of the class file
+     * @throws IOException if the content is not a valid class file
+     */
+    public ClassFileReader(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) throw new IOException("Not a class file");
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        readConstantPool(in);
+        accessFlags = in.readUnsignedShort();
+        className = classConstant(in.readUnsignedShort());
+        int superIndex = in.readUnsignedShort();
+        superName = superIndex == 0 ? null : classConstant(superIndex);
+        int interfaceCount = in.readUnsignedShort();
+        for (int i = 0; i < interfaceCount; i++) interfaceNames.add(classConstant(in.readUnsignedShort()));
+        int fieldCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) fields.add(readMember(in, false));
+        int methodCount = in.readUnsignedShort();
+        for (int i = 0; i < methodCount; i++) methods.add(readMember(in, true));
+        collectReferencedTypes();
+        constants = null;
+        tags = null;
+    }
+
+    /**
+     * Reads the constant pool. Long and double constants take two slots, the second one unused.
+     *
+     * @param in the class file, positioned at the constant pool count
+     * @throws IOException if the constant pool is malformed
+     */
+    private void readConstantPool(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        constants = new Object[count];
+        tags = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            tags[i] = tag;
+            switch (tag) {
+                case 1: constants[i] = in.readUTF(); break;
+                case 7: case 8: case 16: case 19: case 20: constants[i] = in.readUnsignedShort(); break;
+                case 3: case 4: in.readInt(); break;
+                case 5: case 6: in.readLong(); i++; break;
+                case 9: case 10: case 11: case 12: case 17: case 18:
+                    constants[i] = new int[]{in.readUnsignedShort(), in.readUnsignedShort()};
+                    break;
+                case 15: in.readUnsignedByte(); constants[i] = in.readUnsignedShort(); break;
+                default: throw new IOException("Unknown constant pool tag " + tag + " at " + i);
+            }
+        }
+    }
+
+    /**
+     * Reads a field or method and, for methods, the instantiations in its code.
+     *
+     * @param in     the class file, positioned at the member
+     * @param method true for a method, false for a field
+     * @return the member
+     * @throws IOException if the member is malformed
+     */
+    private Member readMember(DataInputStream in, boolean method) throws IOException {
+        int access = in.readUnsignedShort();
+        String name = utf8(in.readUnsignedShort());
+        String descriptor = utf8(in.readUnsignedShort());
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8(in.readUnsignedShort());
+            int length = in.readInt();
+            if (method && attributeName.equals("Code") && (access & ACC_BRIDGE) == 0) {
+                readCode(in);
+            } else {
+                in.skipNBytes(length);
+            }
+        }
+        return new Member(access, name, descriptor, method);
+    }
+
+    /**
+     * Reads a {@code Code} attribute, finding the {@code new} instructions and their lines.
+     *
+     * @param in the class file, positioned after the attribute length
+     * @throws IOException if the attribute is malformed
+     */
+    private void readCode(DataInputStream in) throws IOException {
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        byte[] code = new byte[in.readInt()];
+        in.readFully(code);
+        List<int[]> newInstructions = new ArrayList<>();
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc] & 0xFF;
+            if (opcode == OP_NEW) newInstructions.add(new int[]{pc, u2(code, pc + 1)});
+            pc += instructionLength(code, pc);
+        }
+        in.skipNBytes(in.readUnsignedShort() * 8L);
+
+        int[] lineStarts = new int[0];
+        int[] lines = new int[0];
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8(in.readUnsignedShort());
+            int length = in.readInt();
+            if (attributeName.equals("LineNumberTable")) {
+                int entries = in.readUnsignedShort();
+                lineStarts = new int[entries];
+                lines = new int[entries];
+                for (int j = 0; j < entries; j++) {
+                    lineStarts[j] = in.readUnsignedShort();
+                    lines[j] = in.readUnsignedShort();
+                }
+            } else {
+                in.skipNBytes(length);
+            }
+        }
+        for (int[] instruction : newInstructions) {
+            instantiations.add(new Instantiation(classConstant(instruction[1]), lineAt(instruction[0], lineStarts, lines)));
+        }
+    }
+
+    /**
+     * Finds the source line of an instruction from a line number table.
+     *
+     * @param pc         the offset of the instruction
+     * @param lineStarts the first offset of each entry
+     * @param lines      the line of each entry
+     * @return the line, or -1 if the table has none for this offset
+     */
+    private static int lineAt(int pc, int[] lineStarts, int[] lines) {
+        int line = -1;
+        int bestStart = -1;
+        for (int i = 0; i < lineStarts.length; i++) {
+            if (lineStarts[i] <= pc && lineStarts[i] > bestStart) {
+                bestStart = lineStarts[i];
+                line = lines[i];
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Computes the length of an instruction, including its operands.
+     *
+     * @param code the bytecode
+     * @param pc   the offset of the instruction
+     * @return the number of bytes of the instruction
+     */
+    private static int instructionLength(byte[] code, int pc) {
+        int opcode = code[pc] & 0xFF;
+        switch (opcode) {
+            case 0x10: case 0x12: case 0xBC: case 0xA9:
+                return 2;
+            case 0x11: case 0x13: case 0x14: case 0x84: case 0xBB: case 0xBD: case 0xC0: case 0xC1: case 0xC6: case 0xC7:
+                return 3;
+            case 0xC5:
+                return 4;
+            case 0xB9: case 0xBA: case 0xC8: case 0xC9:
+                return 5;
+            case 0xAA: {
+                int base = (pc + 4) & ~3;
+                int low = s4(code, base + 4);
+                int high = s4(code, base + 8);
+                return base - pc + 12 + (high - low + 1) * 4;
+            }
+            case 0xAB: {
+                int base = (pc + 4) & ~3;
+                return base - pc + 8 + s4(code, base + 4) * 8;
+            }
+            case 0xC4:
+                return (code[pc + 1] & 0xFF) == 0x84 ? 6 : 4;
+            default:
+                if ((opcode >= 0x15 && opcode <= 0x19) || (opcode >= 0x36 && opcode <= 0x3A)) return 2;
+                if ((opcode >= 0x99 && opcode <= 0xA8) || (opcode >= 0xB2 && opcode <= 0xB8)) return 3;
+                return 1;
+        }
+    }
+
+    private static int u2(byte[] code, int offset) {
+        return ((code[offset] & 0xFF) << 8) | (code[offset + 1] & 0xFF);
+    }
+
+    private static int s4(byte[] code, int offset) {
+        return ((code[offset] & 0xFF) << 24) | ((code[offset + 1] & 0xFF) << 16)
+                | ((code[offset + 2] & 0xFF) << 8) | (code[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Collects the types named by class constants and by the descriptors of the members this class uses.
+     */
+    private void collectReferencedTypes() {
+        for (int i = 1; i < tags.length; i++) {
+            switch (tags[i]) {
+                case 7: {
+                    String name = classConstant(i);
+                    if (name != null) referencedTypes.add(name);
+                    break;
+                }
+                case 12:
+                    referencedTypes.addAll(descriptorTypes(utf8(((int[]) constants[i])[1])));
+                    break;
+                case 16:
+                    referencedTypes.addAll(descriptorTypes(utf8((Integer) constants[i])));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Resolves a class constant to a canonical type name. Array classes resolve to their element type.
+     *
+     * @param index the constant pool index
+     * @return the canonical name, or null for an array of primitives
+     */
+    private String classConstant(int index) {
+        String internalName = utf8((Integer) constants[index]);
+        if (internalName.startsWith("[")) {
+            List<String> types = descriptorTypes(internalName);
+            return types.isEmpty() ? null : types.get(0);
+        }
+        return canonicalName(internalName);
+    }
+
+    private String utf8(int index) {
+        return (String) constants[index];
+    }
+
+    /**
+     * Extracts the class types of a field or method descriptor, in order, with array element types
+     * in place of array types and primitive types left out.
+     *
+     * @param descriptor the descriptor, e.g. {@code (Ljava/lang/String;[I)Ljava/util/List;}
+     * @return the canonical names of the class types
+     */
+    static List<String> descriptorTypes(String descriptor) {
+        List<String> types = new ArrayList<>();
+        int i = 0;
+        while (i < descriptor.length()) {
+            if (descriptor.charAt(i) == 'L') {
+                int end = descriptor.indexOf(';', i);
+                types.add(canonicalName(descriptor.substring(i + 1, end)));
+                i = end + 1;
+            } else {
+                i++;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Converts an internal class name to its canonical form.
+     *
+     * @param internalName the internal name, e.g. {@code java/util/Map$Entry}
+     * @return the canonical name, e.g. {@code java.util.Map.Entry}
+     */
+    static String canonicalName(String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    /**
+     * Retrieves the canonical name of the class.
+     *
+     * @return the class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Retrieves the canonical name of the superclass.
+     *
+     * @return the superclass name, or null for {@code java.lang.Object} and {@code module-info}
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    /**
+     * Retrieves the direct superinterfaces of the class.
+     *
+     * @return the canonical interface names, in declaration order
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * Tells whether the class is an interface, whose superinterfaces are extended rather than implemented.
+     *
+     * @return true for an interface or annotation type
+     */
+    public boolean isInterface() {
+        return (accessFlags & ACC_INTERFACE) != 0;
+    }
+
+    /**
+     * Tells whether the class is abstract, which interfaces and annotation types always are.
+     *
+     * @return true for an interface, an annotation type or an abstract class
+     */
+    public boolean isAbstract() {
+        return (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) != 0;
+    }
+
+    /**
+     * Retrieves the fields of the class.
+     *
+     * @return the fields, in declaration order
+     */
+    public List<Member> getFields() {
+        return fields;
+    }
+
+    /**
+     * Retrieves the methods of the class, constructors and initialisers included.
+     *
+     * @return the methods, in declaration order
+     */
+    public List<Member> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Retrieves the {@code new} instructions of the code of the class.
+     *
+     * @return the instantiations, in code order
+     */
+    public List<Instantiation> getInstantiations() {
+        return instantiations;
+    }
+
+    /**
+     * Retrieves every type the constant pool refers to, the class itself included.
+     *
+     * @return the canonical type names
+     */
+    public Set<String> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    /**
+     * A field or method of the class.
+     */
+    public static final class Member {
+        private final int accessFlags;
+        private final String name;
+        private final String descriptor;
+        private final boolean method;
+
+        private Member(int accessFlags, String name, String descriptor, boolean method) {
+            this.accessFlags = accessFlags;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.method = method;
+        }
+
+        /**
+         * Tells whether the member was generated by the compiler, such as a bridge method or an outer-instance field.
+         * The bridge flag only applies to methods: on a field the same bit means {@code volatile}.
+         *
+         * @return true if the member is synthetic
+         */
+        public boolean isSynthetic() {
+            return (accessFlags & (method ? ACC_SYNTHETIC | ACC_BRIDGE : ACC_SYNTHETIC)) != 0;
+        }
+
+        /**
+         * Retrieves the name of the member.
+         *
+         * @return the name, {@code <init>} for constructors
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Retrieves the type descriptor of the member.
+         *
+         * @return the descriptor
+         */
+        public String getDescriptor() {
+            return descriptor;
+        }
+    }
+
+    /**
+     * A {@code new} instruction.
+     */
+    public static final class Instantiation {
+        private final String typeName;
+        private final int line;
+
+        private Instantiation(String typeName, int line) {
+            this.typeName = typeName;
+            this.line = line;
+        }
+
+        /**
+         * Retrieves the instantiated class.
+         *
+         * @return the canonical class name
+         */
+        public String getTypeName() {
+            return typeName;
+        }
+
+        /**
+         * Retrieves the source line of the instruction.
+         *
+         * @return the line, or -1 if the class was compiled without line numbers
+         */
+        public int getLine() {
+            return line;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package lib.analyser.module;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A module of a Gradle or Maven build: its directory, its Java source roots and the other
+ * modules of the same build it declares a dependency on.
+ */
+public final class BuildModule {
+    private final String name;
+    private final Path directory;
+    private final List<Path> sourceRoots;
+    private final Set<String> dependencies;
+
+    /**
+     * Constructs a new BuildModule.
+     *
+     * @param name         the name of the module, a Gradle project path such as {@code :core} or a Maven artifactId
+     * @param directory    the directory of the module
+     * @param sourceRoots  the existing Java source roots of the module
+     * @param dependencies the names of the modules of the same build this module depends on
+     */
+    public BuildModule(String name, Path directory, List<Path> sourceRoots, Set<String> dependencies) {
+        this.name = name;
+        this.directory = directory;
+        this.sourceRoots = Collections.unmodifiableList(sourceRoots);
+        this.dependencies = Collections.unmodifiableSet(dependencies);
+    }
+
+    /**
+     * Retrieves the name of the module.
+     *
+     * @return the Gradle project path or Maven artifactId
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieves the directory of the module.
+     *
+     * @return the module directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Retrieves the Java source roots of the module.
+     *
+     * @return the source roots, each the root of a package hierarchy
+     */
+    public List<Path> getSourceRoots() {
+        return sourceRoots;
+    }
+
+    /**
+     * Retrieves the modules of the same build this module declares a dependency on.
+     *
+     * @return the module names
+     */
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + directory + " -> " + dependencies;
+    }
+}
@@ -0,0 +1,231 @@
+package lib.analyser.module;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import lib.analyser.AnalysisLevel;
+import lib.analyser.CancellationToken;
+import lib.analyser.DependencyAnalyserLib;
+import lib.analyser.DependencyFilter;
+import lib.analyser.SourceDiscovery;
+import lib.analyser.solver.TypeSolverConfig;
+import lib.metrics.AnalysisMetrics;
+import lib.report.ModuleDepsReport;
+import lib.report.MultiModuleReport;
+import lib.report.PackageDepsReport;
+import lib.report.ProjectDepsReport;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Analyzes a multi-module Gradle or Maven build module by module.
+ * <p>
+ * The modules are found by {@link ModuleDiscovery}. Each one is analysed by its own
+ * {@link DependencyAnalyserLib}, deployed in a verticle of its own so that the modules run on
+ * different event loops in parallel. The type solver of a module sees the source roots of the
+ * module and of the modules it depends on, transitively, plus the configured JARs, as the
+ * compiler would. Packages are named after their path below the source root, so the module
+ * reports merge into one class-level graph and one module-level graph. The module-level graph
+ * places classes by the source files of each module, since the package reports leave out the
+ * classes without dependencies, which may still be the targets of other modules.
+ */
+public class ModuleAnalyser {
+    private final Vertx vertx;
+    private final AnalysisMetrics metrics;
+    private final AnalysisLevel level;
+    private final List<Path> jars;
+    private Duration fileTimeBudget = Duration.ZERO;
+    private DependencyFilter filter = DependencyFilter.DEFAULT;
+
+    /**
+     * Constructs a ModuleAnalyser.
+     *
+     * @param vertx   The Vert.x instance the module verticles are deployed on.
+     * @param metrics The metrics collecting per-phase timings and counters of every module.
+     * @param level   How deeply each file is analysed.
+     * @param jars    The library JARs every module resolves types from.
+     */
+    public ModuleAnalyser(Vertx vertx, AnalysisMetrics metrics, AnalysisLevel level, List<Path> jars) {
+        this.vertx = vertx;
+        this.metrics = metrics;
+        this.level = level;
+        this.jars = List.copyOf(jars);
+    }
+
+    /**
+     * Sets the time budget of each file, see {@link DependencyAnalyserLib#setFileTimeBudget(Duration)}.
+     *
+     * @param budget The budget per file, or {@link Duration#ZERO} for no budget.
+     */
+    public void setFileTimeBudget(Duration budget) {
+        this.fileTimeBudget = budget;
+    }
+
+    /**
+     * Sets the rules deciding which dependencies are reported.
+     *
+     * @param filter The include, exclude and dependency-kind rules.
+     */
+    public void setDependencyFilter(DependencyFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Analyzes every module of a build.
+     *
+     * @param buildRoot The root folder of the build.
+     * @return A future containing the multi-module report.
+     */
+    public Future<MultiModuleReport> getModuleDependencies(Path buildRoot) {
+        return getModuleDependencies(buildRoot, new CancellationToken());
+    }
+
+    /**
+     * Analyzes every module of a build, unless the analysis is cancelled first.
+     *
+     * @param buildRoot The root folder of the build.
+     * @param token     The token to cancel the analysis with.
+     * @return A future containing the multi-module report, with the modules in declaration order.
+     */
+    public Future<MultiModuleReport> getModuleDependencies(Path buildRoot, CancellationToken token) {
+        String projectName = buildRoot.toAbsolutePath().normalize().getFileName() != null
+                ? buildRoot.toAbsolutePath().normalize().getFileName().toString()
+                : "UnknownProject";
+        return vertx.<List<BuildModule>>executeBlocking(promise -> {
+            try {
+                promise.complete(ModuleDiscovery.discover(buildRoot));
+            } catch (Exception e) {
+                promise.fail("Error reading the build files of " + buildRoot + ": " + e.getMessage());
+            }
+        }, false).compose(modules -> {
+            Map<String, BuildModule> byName = new HashMap<>();
+            for (BuildModule module : modules) byName.put(module.getName(), module);
+            List<Future> futures = new ArrayList<>();
+            for (BuildModule module : modules) futures.add(analyseModule(module, solverScope(module, byName), token));
+            return CompositeFuture.all(futures).map(result -> new MultiModuleReport(projectName, result.list()));
+        });
+    }
+
+    /**
+     * Collects the source roots visible to a module: its own and those of the modules it depends on, transitively.
+     *
+     * @param module The module.
+     * @param byName The modules of the build by name.
+     * @return The source roots, the module's own first.
+     */
+    private static List<Path> solverScope(BuildModule module, Map<String, BuildModule> byName) {
+        Set<Path> roots = new LinkedHashSet<>(module.getSourceRoots());
+        Set<String> visited = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(module.getDependencies());
+        while (!pending.isEmpty()) {
+            String name = pending.poll();
+            BuildModule dependency = byName.get(name);
+            if (dependency == null || !visited.add(name)) continue;
+            roots.addAll(dependency.getSourceRoots());
+            pending.addAll(dependency.getDependencies());
+        }
+        return new ArrayList<>(roots);
+    }
+
+    /**
+     * Lists the top-level classes declared below the source roots of a module, one per source file.
+     *
+     * @param sourceRoots The source roots of the module.
+     * @return The fully qualified class names.
+     */
+    private static Set<String> declaredClasses(List<Path> sourceRoots) {
+        Set<String> classes = ConcurrentHashMap.newKeySet();
+        SourceDiscovery discovery = new SourceDiscovery();
+        for (Path sourceRoot : sourceRoots) {
+            discovery.discover(sourceRoot, (dir, files) -> {
+                for (Path file : files) classes.add(className(sourceRoot, file));
+            });
+        }
+        return classes;
+    }
+
+    /**
+     * Derives the fully qualified name of the top-level class of a source file from its path.
+     *
+     * @param sourceRoot The root of the package hierarchy.
+     * @param file       The source file.
+     * @return The dotted class name.
+     */
+    private static String className(Path sourceRoot, Path file) {
+        StringBuilder sb = new StringBuilder();
+        for (Path name : sourceRoot.relativize(file)) {
+            if (name.toString().isEmpty()) continue;
+            if (sb.length() > 0) sb.append('.');
+            sb.append(name);
+        }
+        return sb.substring(0, sb.length() - ".java".length());
+    }
+
+    /**
+     * Deploys the verticle analysing a module and undeploys it once the module report is ready.
+     *
+     * @param module      The module to analyse.
+     * @param sourceRoots The source roots its types are resolved from.
+     * @param token       The token to cancel the analysis with.
+     * @return A future containing the module report.
+     */
+    private Future<ModuleDepsReport> analyseModule(BuildModule module, List<Path> sourceRoots, CancellationToken token) {
+        ModuleVerticle verticle = new ModuleVerticle(module,
+                new TypeSolverConfig(sourceRoots, jars, TypeSolverConfig.DEFAULT_INDEX_DIR), token);
+        return vertx.deployVerticle(verticle).compose(deploymentId -> verticle.result.future()
+                .onComplete(ar -> vertx.undeploy(deploymentId)));
+    }
+
+    /**
+     * Analyzes the source roots of one module on the event loop of the verticle.
+     */
+    private final class ModuleVerticle extends AbstractVerticle {
+        private final BuildModule module;
+        private final TypeSolverConfig typeSolverConfig;
+        private final CancellationToken token;
+        private final Promise<ModuleDepsReport> result = Promise.promise();
+
+        private ModuleVerticle(BuildModule module, TypeSolverConfig typeSolverConfig, CancellationToken token) {
+            this.module = module;
+            this.typeSolverConfig = typeSolverConfig;
+            this.token = token;
+        }
+
+        @Override
+        public void start() {
+            DependencyAnalyserLib analyser = new DependencyAnalyserLib(vertx, metrics, level, typeSolverConfig);
+            analyser.setFileTimeBudget(fileTimeBudget);
+            analyser.setDependencyFilter(filter);
+            Future<Set<String>> classes = vertx.executeBlocking(
+                    promise -> promise.complete(declaredClasses(module.getSourceRoots())), false);
+            List<Future> futures = new ArrayList<>();
+            for (Path sourceRoot : module.getSourceRoots()) {
+                futures.add(analyser.getSourceRootDependencies(sourceRoot, module.getName(), token));
+            }
+            CompositeFuture.all(CompositeFuture.all(futures), classes).map(all -> {
+                CompositeFuture roots = all.resultAt(0);
+                List<PackageDepsReport> packageReports = new ArrayList<>();
+                List<PackageDepsReport> packagesWithoutDependencies = new ArrayList<>();
+                for (int i = 0; i < roots.size(); i++) {
+                    ProjectDepsReport root = roots.resultAt(i);
+                    packageReports.addAll(root.getPackageReports());
+                    packagesWithoutDependencies.addAll(root.getPackagesWithoutDependencies());
+                }
+                return new ModuleDepsReport(module.getName(), module.getDependencies(), classes.result(), packageReports,
+                        packagesWithoutDependencies);
+            }).onComplete(result);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package lib.analyser.module;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the modules of a build from its build files, without running the build tool.
+ * <p>
+ * For Gradle, the modules are the root project and the projects included by {@code settings.gradle}
+ * or {@code settings.gradle.kts}, with {@code projectDir} overrides; dependencies are the
+ * {@code project(":path")} and {@code projects.path} references of each module's build file.
+ * For Maven, the modules are the {@code <modules>} of the root {@code pom.xml}, recursively;
+ * dependencies are the {@code <dependency>} entries whose artifactId is another module's.
+ * A folder with neither is a single module.
+ * <p>
+ * The source root of a module is {@code src/main/java}; modules without one, such as Maven
+ * aggregators, are left out. A single module without one has its whole folder as source root.
+ */
+public final class ModuleDiscovery {
+    private static final String SOURCE_ROOT = "src/main/java";
+    private static final Pattern BLOCK_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern LINE_COMMENT = Pattern.compile("(?m)^\\s*//.*$|\\s//.*$");
+    private static final Pattern INCLUDE_CALL = Pattern.compile("\\binclude\\s*\\(([^)]*)\\)");
+    private static final Pattern INCLUDE_STATEMENT = Pattern.compile("(?m)\\binclude\\s+((?:[\"'][^\"'\\n]+[\"']\\s*,?\\s*)+)$");
+    private static final Pattern QUOTED = Pattern.compile("[\"']([^\"']+)[\"']");
+    private static final Pattern PROJECT_DIR = Pattern.compile(
+            "project\\(\\s*[\"'](:[^\"']*)[\"']\\s*\\)\\.projectDir\\s*=\\s*(?:file\\(\\s*)?(?:new\\s+File\\([^,]*,\\s*)?[\"']([^\"']+)[\"']");
+    private static final Pattern ROOT_NAME = Pattern.compile("rootProject\\.name\\s*=\\s*[\"']([^\"']+)[\"']");
+    private static final Pattern PROJECT_REFERENCE = Pattern.compile("project\\(\\s*(?:path\\s*[:=]\\s*)?[\"'](:[^\"']*)[\"']");
+    private static final Pattern TYPESAFE_REFERENCE = Pattern.compile("\\bprojects\\.([A-Za-z0-9_.]+)");
+
+    private ModuleDiscovery() {
+    }
+
+    /**
+     * Finds the modules of the build rooted at a folder.
+     *
+     * @param buildRoot the root folder of the build
+     * @return the modules that have Java sources, in declaration order
+     * @throws IOException if a build file cannot be read or parsed
+     */
+    public static List<BuildModule> discover(Path buildRoot) throws IOException {
+        Path root = buildRoot.toAbsolutePath().normalize();
+        Path settings = firstExisting(root.resolve("settings.gradle.kts"), root.resolve("settings.gradle"));
+        if (settings != null) return discoverGradle(root, settings);
+        if (Files.isRegularFile(root.resolve("pom.xml"))) return discoverMaven(root);
+        Path sourceRoot = root.resolve(SOURCE_ROOT);
+        List<Path> sourceRoots = List.of(Files.isDirectory(sourceRoot) ? sourceRoot : root);
+        return List.of(new BuildModule(directoryName(root), root, sourceRoots, Set.of()));
+    }
+
+    /**
+     * Reads the modules of a Gradle build from its settings file and the build file of each project.
+     *
+     * @param root     the root folder of the build
+     * @param settings the settings file
+     * @return the modules that have Java sources
+     * @throws IOException if a build file cannot be read
+     */
+    private static List<BuildModule> discoverGradle(Path root, Path settings) throws IOException {
+        String script = stripComments(Files.readString(settings, StandardCharsets.UTF_8));
+        Map<String, Path> directories = new LinkedHashMap<>();
+        Matcher rootName = ROOT_NAME.matcher(script);
+        directories.put(rootName.find() ? rootName.group(1) : directoryName(root), root);
+
+        List<String> includes = new ArrayList<>();
+        for (Pattern pattern : List.of(INCLUDE_CALL, INCLUDE_STATEMENT)) {
+            Matcher include = pattern.matcher(script);
+            while (include.find()) {
+                Matcher quoted = QUOTED.matcher(include.group(1));
+                while (quoted.find()) includes.add(quoted.group(1).startsWith(":") ? quoted.group(1) : ":" + quoted.group(1));
+            }
+        }
+        Map<String, Path> overrides = new LinkedHashMap<>();
+        Matcher projectDir = PROJECT_DIR.matcher(script);
+        while (projectDir.find()) overrides.put(projectDir.group(1), root.resolve(projectDir.group(2)).normalize());
+        for (String path : includes) {
+            directories.put(path, overrides.getOrDefault(path, root.resolve(path.substring(1).replace(':', '/')).normalize()));
+        }
+
+        Map<String, String> typesafeNames = new LinkedHashMap<>();
+        for (String name : directories.keySet()) {
+            if (name.startsWith(":")) typesafeNames.put(typesafeAccessor(name), name);
+        }
+        List<BuildModule> modules = new ArrayList<>();
+        for (Map.Entry<String, Path> module : directories.entrySet()) {
+            Path sourceRoot = module.getValue().resolve(SOURCE_ROOT);
+            if (!Files.isDirectory(sourceRoot)) continue;
+            Set<String> dependencies = new TreeSet<>();
+            Path buildFile = firstExisting(module.getValue().resolve("build.gradle.kts"), module.getValue().resolve("build.gradle"));
+            if (buildFile != null) {
+                String build = stripComments(Files.readString(buildFile, StandardCharsets.UTF_8));
+                Matcher reference = PROJECT_REFERENCE.matcher(build);
+                while (reference.find()) {
+                    if (directories.containsKey(reference.group(1))) dependencies.add(reference.group(1));
+                }
+                Matcher typesafe = TYPESAFE_REFERENCE.matcher(build);
+                while (typesafe.find()) {
+                    String name = typesafeNames.get(typesafe.group(1));
+                    if (name != null) dependencies.add(name);
+                }
+            }
+            dependencies.remove(module.getKey());
+            modules.add(new BuildModule(module.getKey(), module.getValue(), List.of(sourceRoot), dependencies));
+        }
+        return modules;
+    }
+
+    /**
+     * Reads the modules of a Maven build by following the {@code <modules>} of each pom, starting at the root.
+     *
+     * @param root the root folder of the build
+     * @return the modules that have Java sources
+     * @throws IOException if a pom cannot be read or parsed
+     */
+    private static List<BuildModule> discoverMaven(Path root) throws IOException {
+        Map<String, Path> directories = new LinkedHashMap<>();
+        Map<String, Set<String>> declared = new LinkedHashMap<>();
+        List<Path> pending = new ArrayList<>(List.of(root));
+        Set<Path> visited = new LinkedHashSet<>();
+        while (!pending.isEmpty()) {
+            Path dir = pending.remove(0);
+            if (!visited.add(dir)) continue;
+            Path pomFile = Files.isDirectory(dir) ? dir.resolve("pom.xml") : dir;
+            Path moduleDir = Files.isDirectory(dir) ? dir : dir.getParent();
+            if (!Files.isRegularFile(pomFile)) continue;
+            Element project = parseXml(pomFile).getDocumentElement();
+            String artifactId = childText(project, "artifactId");
+            String name = artifactId != null ? artifactId : directoryName(moduleDir);
+            directories.put(name, moduleDir);
+            Set<String> dependencyIds = new LinkedHashSet<>();
+            Element dependencies = child(project, "dependencies");
+            if (dependencies != null) {
+                for (Element dependency : children(dependencies, "dependency")) {
+                    String dependencyId = childText(dependency, "artifactId");
+                    if (dependencyId != null) dependencyIds.add(dependencyId);
+                }
+            }
+            declared.put(name, dependencyIds);
+            Element modules = child(project, "modules");
+            if (modules != null) {
+                for (Element module : children(modules, "module")) {
+                    pending.add(moduleDir.resolve(module.getTextContent().trim()).normalize());
+                }
+            }
+        }
+
+        List<BuildModule> result = new ArrayList<>();
+        for (Map.Entry<String, Path> module : directories.entrySet()) {
+            Path sourceRoot = module.getValue().resolve(SOURCE_ROOT);
+            if (!Files.isDirectory(sourceRoot)) continue;
+            Set<String> dependencies = new TreeSet<>(declared.get(module.getKey()));
+            dependencies.retainAll(directories.keySet());
+            dependencies.remove(module.getKey());
+            result.add(new BuildModule(module.getKey(), module.getValue(), List.of(sourceRoot), dependencies));
+        }
+        return result;
+    }
+
+    /**
+     * Parses an XML file with external entities and DTDs disabled.
+     *
+     * @param file the XML file
+     * @return the document
+     * @throws IOException if the file cannot be read or is not well-formed
+     */
+    private static Document parseXml(Path file) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            return builder.parse(file.toFile());
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Failed to parse " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Element child(Element parent, String name) {
+        List<Element> found = children(parent, name);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private static String childText(Element parent, String name) {
+        Element element = child(parent, name);
+        return element != null ? element.getTextContent().trim() : null;
+    }
+
+    private static List<Element> children(Element parent, String name) {
+        List<Element> found = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            if (node instanceof Element && name.equals(((Element) node).getTagName())) found.add((Element) node);
+        }
+        return found;
+    }
+
+    /**
+     * Converts a Gradle project path to its type-safe project accessor, e.g. {@code :libs:string-utils}
+     * to {@code libs.stringUtils}.
+     *
+     * @param path the project path
+     * @return the accessor path below {@code projects}
+     */
+    private static String typesafeAccessor(String path) {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : path.substring(1).toCharArray()) {
+            if (c == ':') {
+                sb.append('.');
+            } else if (c == '-' || c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String stripComments(String script) {
+        return LINE_COMMENT.matcher(BLOCK_COMMENT.matcher(script).replaceAll(" ")).replaceAll("");
+    }
+
+    private static Path firstExisting(Path... candidates) {
+        for (Path candidate : candidates) {
+            if (Files.isRegularFile(candidate)) return candidate;
+        }
+        return null;
+    }
+
+    private static String directoryName(Path dir) {
+        return dir.getFileName() != null ? dir.getFileName().toString() : "UnknownProject";
+    }
+}
@@ -0,0 +1,80 @@
+package lib.analyser.solver;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * A type solver for a JAR that answers misses from a prebuilt {@link TypeIndex}.
+ * The underlying JarTypeSolver, which opens and scans the archive, is created only when a name
+ * that the index knows is actually requested; names that are not in the JAR are rejected with
+ * a hash lookup and never reach it.
+ */
+public class IndexedJarTypeSolver implements TypeSolver {
+    private final Path jar;
+    private final TypeIndex index;
+    private volatile JarTypeSolver delegate;
+    private TypeSolver parent;
+
+    /**
+     * Constructs a new IndexedJarTypeSolver.
+     *
+     * @param jar   the JAR to resolve types from
+     * @param index the index of the JAR
+     */
+    public IndexedJarTypeSolver(Path jar, TypeIndex index) {
+        this.jar = jar;
+        this.index = index;
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        if (parent == this) throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        if (!index.contains(name)) return SymbolReference.unsolved();
+        return delegate().tryToSolveType(name);
+    }
+
+    /**
+     * Retrieves the JarTypeSolver, opening the JAR on first use.
+     *
+     * @return the underlying JarTypeSolver
+     */
+    private JarTypeSolver delegate() {
+        JarTypeSolver result = delegate;
+        if (result == null) {
+            synchronized (this) {
+                result = delegate;
+                if (result == null) {
+                    try {
+                        result = new JarTypeSolver(jar);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot open " + jar, e);
+                    }
+                    if (parent != null) result.setParent(parent);
+                    delegate = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedJarTypeSolver{jar=" + jar + ", types=" + index.size() + "}";
+    }
+}
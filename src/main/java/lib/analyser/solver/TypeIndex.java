@@ -0,0 +1,167 @@
+package lib.analyser.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of the fully qualified names of the types available in a JAR or a source root.
+ * Looking a name up is a single hash lookup, so the analyser can tell whether a type exists
+ * without scanning archives or raising exceptions on a miss.
+ * JAR indexes are persisted in a cache directory, keyed by the JAR's path, size and modification
+ * time, and reused by later runs as long as the JAR does not change.
+ */
+public class TypeIndex {
+    private static final String INDEX_EXTENSION = ".idx";
+
+    private final Set<String> qualifiedNames;
+
+    /**
+     * Constructs a new TypeIndex over a set of names.
+     *
+     * @param qualifiedNames the canonical fully qualified names, nested types separated by '.'
+     */
+    public TypeIndex(Set<String> qualifiedNames) {
+        this.qualifiedNames = qualifiedNames;
+    }
+
+    /**
+     * Checks whether a type is in the index.
+     *
+     * @param qualifiedName the canonical fully qualified name
+     * @return true if the type exists
+     */
+    public boolean contains(String qualifiedName) {
+        return qualifiedNames.contains(qualifiedName);
+    }
+
+    /**
+     * Retrieves the number of indexed types.
+     *
+     * @return the index size
+     */
+    public int size() {
+        return qualifiedNames.size();
+    }
+
+    /**
+     * Merges several indexes into one.
+     *
+     * @param indexes the indexes to merge
+     * @return an index containing every name of the given indexes
+     */
+    public static TypeIndex union(Collection<TypeIndex> indexes) {
+        Set<String> names = new HashSet<>();
+        for (TypeIndex index : indexes) names.addAll(index.qualifiedNames);
+        return new TypeIndex(names);
+    }
+
+    /**
+     * Indexes the top-level types of a source root from its file layout, without parsing:
+     * {@code root/a/b/C.java} is indexed as {@code a.b.C}.
+     *
+     * @param sourceRoot the root of the package hierarchy
+     * @return the index of the source root
+     */
+    public static TypeIndex forSourceRoot(Path sourceRoot) {
+        Set<String> names = new HashSet<>();
+        try (Stream<Path> files = Files.walk(sourceRoot)) {
+            files.filter(file -> file.getFileName() != null && file.getFileName().toString().endsWith(".java"))
+                    .forEach(file -> {
+                        String relative = sourceRoot.relativize(file).toString();
+                        names.add(relative.substring(0, relative.length() - ".java".length())
+                                .replace(file.getFileSystem().getSeparator(), "."));
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot index source root " + sourceRoot, e);
+        }
+        return new TypeIndex(names);
+    }
+
+    /**
+     * Loads the index of a JAR from the cache directory, building and persisting it on a miss.
+     *
+     * @param jar      the JAR to index
+     * @param cacheDir the directory holding persisted indexes, or null to disable persistence
+     * @return the index of the JAR
+     * @throws IOException if the JAR cannot be read
+     */
+    public static TypeIndex forJar(Path jar, Path cacheDir) throws IOException {
+        Path indexFile = cacheDir != null ? cacheDir.resolve(cacheKey(jar) + INDEX_EXTENSION) : null;
+        if (indexFile != null && Files.isRegularFile(indexFile)) {
+            try {
+                return new TypeIndex(new HashSet<>(Files.readAllLines(indexFile, StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                // Unreadable index: rebuild it below
+            }
+        }
+        TypeIndex index = scanJar(jar);
+        if (indexFile != null) {
+            try {
+                Files.createDirectories(cacheDir);
+                Path tmp = Files.createTempFile(cacheDir, "index", ".tmp");
+                Files.write(tmp, new TreeSet<>(index.qualifiedNames), StandardCharsets.UTF_8);
+                Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.err.println("Cannot persist type index for " + jar + ": " + e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reads the class entries of a JAR, skipping anonymous and local classes and module/package descriptors.
+     *
+     * @param jar the JAR to scan
+     * @return the index of the JAR
+     * @throws IOException if the JAR cannot be read
+     */
+    private static TypeIndex scanJar(Path jar) throws IOException {
+        Set<String> names = new HashSet<>();
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (!name.endsWith(".class") || name.startsWith("META-INF/")
+                        || name.endsWith("module-info.class") || name.endsWith("package-info.class")) continue;
+                String binaryName = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+                if (isAnonymousOrLocal(binaryName)) continue;
+                names.add(binaryName.replace('$', '.'));
+            }
+        }
+        return new TypeIndex(names);
+    }
+
+    /**
+     * Checks whether a binary class name denotes an anonymous or local class, i.e. whether any
+     * of its nested segments starts with a digit.
+     */
+    private static boolean isAnonymousOrLocal(String binaryName) {
+        int dollar = binaryName.indexOf('$');
+        while (dollar >= 0) {
+            if (dollar + 1 < binaryName.length() && Character.isDigit(binaryName.charAt(dollar + 1))) return true;
+            dollar = binaryName.indexOf('$', dollar + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Builds the cache key of a JAR from its absolute path, size and modification time.
+     */
+    private static String cacheKey(Path jar) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+        String fileName = jar.getFileName() != null ? jar.getFileName().toString() : "jar";
+        long hash = jar.toAbsolutePath().normalize().toString().hashCode();
+        hash = 31 * hash + attributes.size();
+        hash = 31 * hash + attributes.lastModifiedTime().toMillis();
+        return fileName + "-" + Long.toHexString(hash);
+    }
+}
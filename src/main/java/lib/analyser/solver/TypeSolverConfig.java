@@ -0,0 +1,97 @@
+package lib.analyser.solver;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes where the analyser looks for types besides its own class path: project source roots
+ * and library JARs. It builds both the {@link TypeIndex} used by the import-based fast path and
+ * the symbol solver's type solvers, backed by the same per-JAR indexes.
+ */
+public class TypeSolverConfig {
+    /**
+     * The default directory for persisted JAR indexes.
+     */
+    public static final Path DEFAULT_INDEX_DIR = Path.of(System.getProperty("user.home"), ".cache", "dependency-analyser", "type-index");
+
+    private final List<Path> sourceRoots;
+    private final List<Path> jars;
+    private final Path indexDir;
+    private Map<Path, TypeIndex> jarIndexes;
+    private TypeIndex index;
+
+    /**
+     * Constructs a new TypeSolverConfig.
+     *
+     * @param sourceRoots the roots of the project's package hierarchies
+     * @param jars        the library JARs
+     * @param indexDir    the directory for persisted JAR indexes, or null to keep them in memory only
+     */
+    public TypeSolverConfig(List<Path> sourceRoots, List<Path> jars, Path indexDir) {
+        this.sourceRoots = new ArrayList<>(sourceRoots);
+        this.jars = new ArrayList<>(jars);
+        this.indexDir = indexDir;
+    }
+
+    /**
+     * Creates a configuration with no source roots or JARs: only the analyser's own class path is used.
+     *
+     * @return the reflection-only configuration
+     */
+    public static TypeSolverConfig reflectionOnly() {
+        return new TypeSolverConfig(Collections.emptyList(), Collections.emptyList(), null);
+    }
+
+    /**
+     * Retrieves the combined index of the source roots and JARs, building it on first use.
+     *
+     * @return the type index
+     * @throws IOException if a JAR cannot be read
+     */
+    public synchronized TypeIndex getIndex() throws IOException {
+        if (index == null) {
+            List<TypeIndex> indexes = new ArrayList<>(getJarIndexes().values());
+            for (Path root : sourceRoots) indexes.add(TypeIndex.forSourceRoot(root));
+            index = TypeIndex.union(indexes);
+        }
+        return index;
+    }
+
+    /**
+     * Creates the type solver: the reflection solver, one JavaParserTypeSolver per source root
+     * and one IndexedJarTypeSolver per JAR.
+     *
+     * @return the combined type solver
+     * @throws IOException if a JAR cannot be read
+     */
+    public TypeSolver createTypeSolver() throws IOException {
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver(new ReflectionTypeSolver(false));
+        for (Path root : sourceRoots) typeSolver.add(new JavaParserTypeSolver(root));
+        for (Map.Entry<Path, TypeIndex> jar : getJarIndexes().entrySet()) {
+            typeSolver.add(new IndexedJarTypeSolver(jar.getKey(), jar.getValue()));
+        }
+        return typeSolver;
+    }
+
+    /**
+     * Retrieves the index of every JAR, loading persisted ones when available.
+     */
+    private synchronized Map<Path, TypeIndex> getJarIndexes() throws IOException {
+        if (jarIndexes == null) {
+            Map<Path, TypeIndex> loaded = new LinkedHashMap<>();
+            for (Path jar : jars) loaded.put(jar, TypeIndex.forJar(jar, indexDir));
+            jarIndexes = loaded;
+        }
+        return jarIndexes;
+    }
+}
@@ -0,0 +1,390 @@
+package lib.cli;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import lib.analyser.AnalysisLevel;
+import lib.analyser.BlockingDependencyAnalyser;
+import lib.analyser.DependencyFilter;
+import lib.analyser.DependencyAnalyserLib;
+import lib.analyser.SourceArchive;
+import lib.analyser.VirtualThreadAnalyser;
+import lib.analyser.bytecode.BytecodeAnalyser;
+import lib.analyser.module.ModuleAnalyser;
+import lib.analyser.solver.TypeSolverConfig;
+import lib.coupling.CouplingAnalyser;
+import lib.metrics.AnalysisMetrics;
+import lib.metrics.ProgressSampler;
+import lib.report.ClassDepsReport;
+import lib.report.CouplingReport;
+import lib.report.PackageDepsReport;
+import lib.report.ProjectDepsReport;
+import lib.report.ReportJson;
+import lib.utils.AsyncUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless command-line entry point for batch dependency analysis.
+ * Any number of classes, packages or projects can be analysed in a single JVM;
+ * up to {@code --parallelism} of them run at the same time, each on its own event loop
+ * with its own DependencyAnalyserLib. Reports are printed in the order of the arguments.
+ * <p>
+ * For short runs such as pre-commit hooks, start the CLI through the {@code runCli} Gradle task
+ * after {@code cdsArchive} has produced the AppCDS archive, so class loading comes from the
+ * shared archive instead of the JARs.
+ */
+public class AnalyserCli {
+    private static final String USAGE = String.join("\n",
+            "Usage: AnalyserCli [options] <path>...",
+            "  --mode <auto|class|package|project|modules>",
+            "                                       what each path is (default: auto, a .java file is a class,",
+            "                                       a directory or a .zip/.jar source archive is a project); modules reads",
+            "                                       the Gradle settings or Maven poms of a build and analyses each module",
+            "                                       in parallel with its own type solver (vertx engine only)",
+            "  --format <text|json>                 output format (default: text, json prints one object per line)",
+            "  --parallelism <n>                    number of paths analysed concurrently (default: cores)",
+            "  --level <lexical|syntactic|resolved> how deeply each file is analysed (default: resolved)",
+            "  --source-root <dir>                  a project source root to resolve types from (repeatable)",
+            "  --classpath <jars>                   library JARs to resolve types from, separated by the path separator;",
+            "                                       their type indexes are cached in ~/.cache/dependency-analyser",
+            "  --engine <vertx|threads|bytecode>    vertx runs each path on an event loop (default); threads runs",
+            "                                       one virtual thread per file on JDK 21+, parsing <parallelism> at a time;",
+            "                                       bytecode reads compiled .class files, folders of them or JARs instead",
+            "                                       of sources, e.g. build/classes/java/main",
+            "  --file-budget <ms>                   skip files whose analysis takes longer (default: no budget)",
+            "  --include <pattern>                  report only types matching a pattern (repeatable); a pattern is a",
+            "                                       dotted prefix whose segments may be globs (*Test) or ** for any depth",
+            "  --exclude <pattern>                  never report types matching a pattern (repeatable); java.lang, java.util,",
+            "                                       java.io, java.math, java.time, java.text, java.nio and java.net always are",
+            "                                       unless --no-default-excludes is given; **.Name rules skip resolution",
+            "  --no-default-excludes                report the core JDK packages too",
+            "  --exclude-kind <kind>                never report a kind of dependency, e.g. import or field (repeatable)",
+            "  --progress                           print progress, throughput and ETA to standard error every second",
+            "  --metrics                            print the analysis metrics to standard error",
+            "  --coupling                           print the coupling metrics of each project or build: fan-in and",
+            "                                       fan-out per class; Ca, Ce, instability, abstractness and distance",
+            "                                       from the main sequence per package",
+            "  --help                               print this message");
+
+    /**
+     * The engine running the analyses.
+     */
+    private enum Engine {
+        VERTX,
+        THREADS,
+        BYTECODE
+    }
+
+    /**
+     * The kind of analysis to run for a path.
+     */
+    private enum Mode {
+        AUTO,
+        CLASS,
+        PACKAGE,
+        PROJECT,
+        MODULES
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Mode mode = Mode.AUTO;
+        boolean json = false;
+        boolean printMetrics = false;
+        boolean printCoupling = false;
+        boolean printProgress = false;
+        Engine engine = Engine.VERTX;
+        Duration fileBudget = Duration.ZERO;
+        List<String> includes = new ArrayList<>();
+        List<String> excludes = new ArrayList<>(DependencyFilter.DEFAULT_EXCLUDES);
+        EnumSet<AsyncUtils.DependencyType> excludedKinds = EnumSet.noneOf(AsyncUtils.DependencyType.class);
+        DependencyFilter filter = DependencyFilter.DEFAULT;
+        AnalysisLevel level = AnalysisLevel.RESOLVED;
+        List<Path> sourceRoots = new ArrayList<>();
+        List<Path> jars = new ArrayList<>();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        List<Task> tasks = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--mode": mode = Mode.valueOf(args[++i].toUpperCase()); break;
+                    case "--format": json = parseFormat(args[++i]); break;
+                    case "--parallelism": parallelism = Math.max(1, Integer.parseInt(args[++i])); break;
+                    case "--level": level = AnalysisLevel.valueOf(args[++i].toUpperCase()); break;
+                    case "--source-root": sourceRoots.add(Path.of(args[++i])); break;
+                    case "--classpath":
+                        for (String jar : args[++i].split(File.pathSeparator)) if (!jar.isEmpty()) jars.add(Path.of(jar));
+                        break;
+                    case "--engine": engine = Engine.valueOf(args[++i].toUpperCase()); break;
+                    case "--file-budget": fileBudget = Duration.ofMillis(Long.parseLong(args[++i])); break;
+                    case "--include": includes.add(args[++i]); break;
+                    case "--exclude": excludes.add(args[++i]); break;
+                    case "--no-default-excludes": excludes.removeAll(DependencyFilter.DEFAULT_EXCLUDES); break;
+                    case "--exclude-kind": excludedKinds.add(AsyncUtils.DependencyType.valueOf(args[++i].toUpperCase().replace('-', '_'))); break;
+                    case "--progress": printProgress = true; break;
+                    case "--metrics": printMetrics = true; break;
+                    case "--coupling": printCoupling = true; break;
+                    case "-h":
+                    case "--help":
+                        System.out.println(USAGE);
+                        return;
+                    default:
+                        tasks.add(new Task(Path.of(args[i]), mode));
+                }
+            }
+            filter = new DependencyFilter(includes, excludes, excludedKinds);
+        } catch (RuntimeException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if (tasks.isEmpty()) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        TypeSolverConfig typeSolverConfig = new TypeSolverConfig(sourceRoots, jars, TypeSolverConfig.DEFAULT_INDEX_DIR);
+        Vertx vertx = null;
+        ProgressSampler progress = printProgress
+                ? new ProgressSampler(metrics, Duration.ofSeconds(1), snapshot -> System.err.println("progress: " + snapshot)).start()
+                : null;
+        if (engine == Engine.BYTECODE) {
+            try (BytecodeAnalyser analyser = new BytecodeAnalyser(metrics, parallelism)) {
+                analyser.setDependencyFilter(filter);
+                for (Task task : tasks) task.runBlocking(analyser);
+            }
+        } else if (engine == Engine.THREADS) {
+            try (VirtualThreadAnalyser analyser = new VirtualThreadAnalyser(metrics, level, typeSolverConfig, parallelism)) {
+                analyser.setFileTimeBudget(fileBudget);
+                analyser.setDependencyFilter(filter);
+                for (Task task : tasks) task.runBlocking(analyser);
+            }
+        } else {
+            vertx = Vertx.vertx();
+            AtomicInteger next = new AtomicInteger();
+            int lanes = Math.min(parallelism, tasks.size());
+            CountDownLatch done = new CountDownLatch(lanes);
+            AnalysisLevel analysisLevel = level;
+            Duration budget = fileBudget;
+            DependencyFilter dependencyFilter = filter;
+            vertx.deployVerticle(() -> new BatchVerticle(tasks, next, metrics, analysisLevel, typeSolverConfig, jars, budget,
+                            dependencyFilter, done), new DeploymentOptions().setInstances(lanes))
+                    .onFailure(err -> {
+                        System.err.println("Failed to start the analysis: " + err.getMessage());
+                        System.exit(1);
+                    });
+            done.await();
+        }
+
+        if (progress != null) progress.close();
+        boolean failed = false;
+        for (Task task : tasks) {
+            if (task.error != null) {
+                failed = true;
+                System.err.println("Error analysing " + task.path + ": " + task.error.getMessage());
+            } else {
+                CouplingReport coupling = printCoupling && task.project != null
+                        ? new CouplingAnalyser().add(task.project).compute()
+                        : null;
+                if (json) {
+                    JsonObject output = new JsonObject().put("path", task.path.toString()).put("report", task.report);
+                    if (coupling != null) output.put("coupling", ReportJson.toJson(coupling));
+                    System.out.println(output.encode());
+                } else {
+                    System.out.println("=== " + task.path + " ===");
+                    System.out.println(task.text);
+                    if (coupling != null) System.out.println(coupling);
+                }
+            }
+        }
+        if (printMetrics) System.err.println(metrics.summary());
+
+        if (vertx != null) vertx.close();
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Parses the value of the --format option.
+     *
+     * @param format the option value
+     * @return true for JSON output, false for text output
+     */
+    private static boolean parseFormat(String format) {
+        switch (format) {
+            case "json": return true;
+            case "text": return false;
+            default: throw new IllegalArgumentException("unknown format " + format);
+        }
+    }
+
+    /**
+     * A path to analyse together with the outcome of its analysis.
+     */
+    private static final class Task {
+        private final Path path;
+        private final Mode mode;
+        private volatile JsonObject report;
+        private volatile String text;
+        private volatile ProjectDepsReport project;
+        private volatile Throwable error;
+
+        private Task(Path path, Mode mode) {
+            this.path = path;
+            this.mode = mode;
+        }
+
+        /**
+         * Runs the analysis matching the mode of this task.
+         *
+         * @param analyser the analyser of the calling lane
+         * @param modules  the multi-module analyser of the calling lane
+         * @return a future completed when the report has been stored
+         */
+        private Future<Void> run(DependencyAnalyserLib analyser, ModuleAnalyser modules) {
+            switch (effectiveMode()) {
+                case MODULES:
+                    return modules.getModuleDependencies(path).map(r -> {
+                        project = r.toProjectReport();
+                        return store(ReportJson.toJson(r), r.toString());
+                    });
+                case CLASS:
+                    return analyser.getClassDependencies(path).map(r -> store(ReportJson.toJson(r), r.toString()));
+                case PACKAGE:
+                    return analyser.getPackageDependencies(path).map(r -> store(ReportJson.toJson(r), r.toString()));
+                default:
+                    return analyser.getProjectDependencies(path).map(r -> {
+                        project = r;
+                        return store(ReportJson.toJson(r), r.toString());
+                    });
+            }
+        }
+
+        /**
+         * Runs the analysis matching the mode of this task on a blocking engine,
+         * blocking until the report has been stored.
+         *
+         * @param analyser the thread-per-file or bytecode engine
+         * @throws InterruptedException if the calling thread is interrupted while waiting
+         */
+        private void runBlocking(BlockingDependencyAnalyser analyser) throws InterruptedException {
+            try {
+                switch (effectiveMode()) {
+                    case MODULES:
+                        throw new IllegalArgumentException("the modules mode needs the vertx engine");
+                    case CLASS: {
+                        ClassDepsReport r = analyser.getClassDependencies(path);
+                        store(ReportJson.toJson(r), r.toString());
+                        break;
+                    }
+                    case PACKAGE: {
+                        PackageDepsReport r = analyser.getPackageDependencies(path);
+                        store(ReportJson.toJson(r), r.toString());
+                        break;
+                    }
+                    default: {
+                        ProjectDepsReport r = analyser.getProjectDependencies(path);
+                        project = r;
+                        store(ReportJson.toJson(r), r.toString());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                this.error = e;
+            }
+        }
+
+        /**
+         * Resolves the AUTO mode from the path: a directory or source archive is a project, anything else a class.
+         *
+         * @return the mode to run
+         */
+        private Mode effectiveMode() {
+            return mode != Mode.AUTO ? mode
+                    : Files.isDirectory(path) || SourceArchive.isArchive(path) ? Mode.PROJECT : Mode.CLASS;
+        }
+
+        private Void store(JsonObject report, String text) {
+            this.report = report;
+            this.text = text;
+            return null;
+        }
+
+        private void recordFailure(AsyncResult<Void> result) {
+            if (result.failed()) this.error = result.cause();
+        }
+    }
+
+    /**
+     * A lane of the batch: pulls the next task from the shared list until none is left.
+     */
+    private static final class BatchVerticle extends AbstractVerticle {
+        private final List<Task> tasks;
+        private final AtomicInteger next;
+        private final AnalysisMetrics metrics;
+        private final AnalysisLevel level;
+        private final TypeSolverConfig typeSolverConfig;
+        private final List<Path> jars;
+        private final Duration fileBudget;
+        private final DependencyFilter filter;
+        private final CountDownLatch done;
+        private DependencyAnalyserLib analyser;
+        private ModuleAnalyser modules;
+
+        private BatchVerticle(List<Task> tasks, AtomicInteger next, AnalysisMetrics metrics, AnalysisLevel level,
+                              TypeSolverConfig typeSolverConfig, List<Path> jars, Duration fileBudget,
+                              DependencyFilter filter, CountDownLatch done) {
+            this.tasks = tasks;
+            this.next = next;
+            this.metrics = metrics;
+            this.level = level;
+            this.typeSolverConfig = typeSolverConfig;
+            this.jars = jars;
+            this.fileBudget = fileBudget;
+            this.filter = filter;
+            this.done = done;
+        }
+
+        @Override
+        public void start() {
+            analyser = new DependencyAnalyserLib(vertx, metrics, level, typeSolverConfig);
+            analyser.setFileTimeBudget(fileBudget);
+            analyser.setDependencyFilter(filter);
+            modules = new ModuleAnalyser(vertx, metrics, level, jars);
+            modules.setFileTimeBudget(fileBudget);
+            modules.setDependencyFilter(filter);
+            processNext();
+        }
+
+        private void processNext() {
+            int index = next.getAndIncrement();
+            if (index >= tasks.size()) {
+                done.countDown();
+                return;
+            }
+            Task task = tasks.get(index);
+            Future<Void> result;
+            try {
+                result = task.run(analyser, modules);
+            } catch (Exception e) {
+                result = Future.failedFuture(e);
+            }
+            result.onComplete(ar -> {
+                task.recordFailure(ar);
+                processNext();
+            });
+        }
+    }
+}
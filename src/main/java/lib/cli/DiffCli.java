@@ -0,0 +1,112 @@
+package lib.cli;
+
+import lib.analyser.AnalysisLevel;
+import lib.analyser.ResolutionCache;
+import lib.analyser.SourceFileAnalyser;
+import lib.analyser.solver.TypeSolverConfig;
+import lib.diff.AnalysisSnapshot;
+import lib.diff.SnapshotDiff;
+import lib.metrics.AnalysisMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line entry point for persisted snapshots and their diffs.
+ * A snapshot records the class report and content hash of every file of a source tree;
+ * taking a new one against a previous snapshot only analyses the files whose content changed,
+ * and the diff of two snapshots lists the added and removed edges and the new cycles.
+ */
+public class DiffCli {
+    private static final int RESOLUTION_CACHE_SIZE = 50_000;
+    private static final String USAGE = String.join("\n",
+            "Usage: DiffCli snapshot [options] <source-root> <snapshot.json>",
+            "       DiffCli diff [options] <before.json> <after.json|source-root>",
+            "  snapshot writes the analysis of a source tree; with --base, unchanged files are taken from an earlier snapshot",
+            "  diff compares two snapshots, or a snapshot with the current state of a source tree",
+            "  --base <snapshot.json>               earlier snapshot of the same tree to reuse (snapshot only)",
+            "  --format <text|json>                 output format of the diff (default: text)",
+            "  --level <lexical|syntactic|resolved> how deeply changed files are analysed (default: resolved)",
+            "  --source-root <dir>                  a project source root to resolve types from (repeatable)",
+            "  --classpath <jars>                   library JARs to resolve types from, separated by the path separator",
+            "  --help                               print this message");
+
+    public static void main(String[] args) {
+        String command = null;
+        Path base = null;
+        boolean json = false;
+        AnalysisLevel level = AnalysisLevel.RESOLVED;
+        List<Path> sourceRoots = new ArrayList<>();
+        List<Path> jars = new ArrayList<>();
+        List<Path> paths = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--base": base = Path.of(args[++i]); break;
+                    case "--format": json = parseFormat(args[++i]); break;
+                    case "--level": level = AnalysisLevel.valueOf(args[++i].toUpperCase()); break;
+                    case "--source-root": sourceRoots.add(Path.of(args[++i])); break;
+                    case "--classpath":
+                        for (String jar : args[++i].split(File.pathSeparator)) if (!jar.isEmpty()) jars.add(Path.of(jar));
+                        break;
+                    case "-h":
+                    case "--help":
+                        System.out.println(USAGE);
+                        return;
+                    default:
+                        if (command == null) command = args[i];
+                        else paths.add(Path.of(args[i]));
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if (paths.size() != 2 || !("snapshot".equals(command) || "diff".equals(command))) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        SourceFileAnalyser analyser = new SourceFileAnalyser(metrics, level,
+                new TypeSolverConfig(sourceRoots, jars, TypeSolverConfig.DEFAULT_INDEX_DIR), new ResolutionCache(RESOLUTION_CACHE_SIZE));
+        try {
+            if ("snapshot".equals(command)) {
+                AnalysisSnapshot previous = base != null ? AnalysisSnapshot.load(base) : null;
+                AnalysisSnapshot.capture(paths.get(0), analyser, previous).save(paths.get(1));
+                System.err.println("Analysed " + metrics.getFilesAnalysed() + " changed files");
+            } else {
+                AnalysisSnapshot before = AnalysisSnapshot.load(paths.get(0));
+                AnalysisSnapshot after = Files.isDirectory(paths.get(1))
+                        ? AnalysisSnapshot.capture(paths.get(1), analyser, before)
+                        : AnalysisSnapshot.load(paths.get(1));
+                SnapshotDiff diff = SnapshotDiff.compare(before, after);
+                System.out.println(json ? diff.toJson().encode() : diff.toString());
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Parses the value of the --format option.
+     *
+     * @param format the option value
+     * @return true for JSON output, false for text output
+     */
+    private static boolean parseFormat(String format) {
+        switch (format) {
+            case "json": return true;
+            case "text": return false;
+            default: throw new IllegalArgumentException("unknown format " + format);
+        }
+    }
+}
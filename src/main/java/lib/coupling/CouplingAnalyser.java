@@ -0,0 +1,373 @@
+package lib.coupling;
+
+import lib.report.ClassCoupling;
+import lib.report.ClassDepsReport;
+import lib.report.CouplingReport;
+import lib.report.PackageCoupling;
+import lib.report.PackageDepsReport;
+import lib.report.ProjectDepsReport;
+import lib.utils.AsyncUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes coupling metrics over the class graph of a project: the fan-in and fan-out of each
+ * class, and the afferent and efferent coupling, instability, abstractness and distance from the
+ * main sequence of each package, see {@link PackageCoupling}.
+ * <p>
+ * Class reports can be added while the analysis producing them is still running, e.g. each
+ * package report as it completes; adding a class again replaces it. Adding a class only interns
+ * it and the names of its dependencies into primitive arrays. {@link #compute()} then resolves
+ * the names not resolved yet and computes the metrics of every class in parallel on a fork/join
+ * pool, so it can be called again after each batch of reports at little cost.
+ * <p>
+ * A dependency counts when its target is a class of the graph, nested types counting as their
+ * top-level class, and dependencies of a class on itself are ignored. Packages are expected to be
+ * named after their dotted names, as for a source root; when they are named after their folder,
+ * the target names are matched by their trailing segments instead. Classes without dependencies
+ * are added from {@link PackageDepsReport#getClassesWithoutDependencies()} and
+ * {@link ProjectDepsReport#getPackagesWithoutDependencies()}, so they count towards
+ * the class and abstract class counts of their package and as the targets of other classes.
+ * <p>
+ * Instances are thread-safe.
+ */
+public class CouplingAnalyser {
+    private static final int UNRESOLVED = -1;
+    private static final int MIN_SLICE = 256;
+
+    private final ForkJoinPool pool;
+    private final Map<String, Integer> classIds = new HashMap<>();
+    private final Map<String, Integer> packageIds = new HashMap<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private String[] classNames = new String[64];
+    private int[] classPackages = new int[64];
+    private boolean[] abstractClasses = new boolean[64];
+    private int[][] classTargets = new int[64][];
+    private int classCount;
+    private String[] packageNames = new String[16];
+    private int[] packageClassCounts = new int[16];
+    private int[] packageAbstractCounts = new int[16];
+    private int packageCount;
+    private String[] names = new String[256];
+    private int[] nameClasses = new int[256];
+    private boolean[] nameSettled = new boolean[256];
+    private int nameCount;
+    private int resolvedNameCount;
+    private int resolvedClassCount;
+
+    /**
+     * Constructs a CouplingAnalyser computing on the common pool.
+     */
+    public CouplingAnalyser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a CouplingAnalyser.
+     *
+     * @param pool the pool computing the metrics
+     */
+    public CouplingAnalyser(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Adds every class of a project report, including the packages whose classes have no dependencies.
+     *
+     * @param report the project report
+     * @return this analyser
+     */
+    public CouplingAnalyser add(ProjectDepsReport report) {
+        for (PackageDepsReport packageReport : report.getPackageReports()) add(packageReport);
+        for (PackageDepsReport packageReport : report.getPackagesWithoutDependencies()) add(packageReport);
+        return this;
+    }
+
+    /**
+     * Adds every class of a package report, including the classes without dependencies.
+     *
+     * @param report the package report
+     * @return this analyser
+     */
+    public synchronized CouplingAnalyser add(PackageDepsReport report) {
+        for (ClassDepsReport classReport : report.getClassReports()) add(report.getPackageName(), classReport);
+        for (ClassDepsReport classReport : report.getClassesWithoutDependencies()) add(report.getPackageName(), classReport);
+        return this;
+    }
+
+    /**
+     * Adds a class, or replaces it if a class of the same name was added before.
+     *
+     * @param packageName the name of the package of the class
+     * @param report      the class report
+     */
+    public synchronized void add(String packageName, ClassDepsReport report) {
+        String className = packageName.isEmpty() ? report.getClassName() : packageName + "." + report.getClassName();
+        int packageId = packageId(packageName);
+        Integer existing = classIds.get(className);
+        int id;
+        if (existing != null) {
+            id = existing;
+            packageClassCounts[classPackages[id]]--;
+            if (abstractClasses[id]) packageAbstractCounts[classPackages[id]]--;
+        } else {
+            id = classCount++;
+            if (id == classNames.length) {
+                int capacity = 2 * id;
+                classNames = Arrays.copyOf(classNames, capacity);
+                classPackages = Arrays.copyOf(classPackages, capacity);
+                abstractClasses = Arrays.copyOf(abstractClasses, capacity);
+                classTargets = Arrays.copyOf(classTargets, capacity);
+            }
+            classIds.put(className, id);
+            classNames[id] = className;
+        }
+        classPackages[id] = packageId;
+        packageClassCounts[packageId]++;
+        abstractClasses[id] = report.isAbstract();
+        if (report.isAbstract()) packageAbstractCounts[packageId]++;
+
+        int[] targets = new int[report.getDependencies().size()];
+        int count = 0;
+        for (AsyncUtils dependency : report.getDependencies()) targets[count++] = nameId(dependency.getTargetType());
+        classTargets[id] = distinct(targets, count);
+    }
+
+    /**
+     * Computes the metrics of the classes added so far.
+     *
+     * @return the coupling report, packages and classes sorted by name
+     */
+    public synchronized CouplingReport compute() {
+        boolean newClasses = classCount > resolvedClassCount;
+        pool.invoke(new ResolveSlice(0, nameCount, newClasses, sliceSize(nameCount)));
+        resolvedNameCount = nameCount;
+        resolvedClassCount = classCount;
+
+        int[] fanOut = new int[classCount];
+        Counts counts = pool.invoke(new ClassSlice(0, classCount, fanOut, sliceSize(classCount)));
+
+        List<PackageCoupling> packages = new ArrayList<>(packageCount);
+        for (int p = 0; p < packageCount; p++) {
+            if (packageClassCounts[p] == 0) continue;
+            packages.add(new PackageCoupling(packageNames[p], packageClassCounts[p], packageAbstractCounts[p],
+                    counts.afferent[p], counts.efferent[p]));
+        }
+        List<ClassCoupling> classes = new ArrayList<>(classCount);
+        for (int c = 0; c < classCount; c++) {
+            classes.add(new ClassCoupling(classNames[c], packageNames[classPackages[c]], abstractClasses[c],
+                    counts.fanIn[c], fanOut[c]));
+        }
+        packages.sort(Comparator.comparing(PackageCoupling::getPackageName));
+        classes.sort(Comparator.comparing(ClassCoupling::getClassName));
+        return new CouplingReport(packages, classes);
+    }
+
+    /**
+     * Retrieves the number of classes added so far.
+     *
+     * @return the class count
+     */
+    public synchronized int getClassCount() {
+        return classCount;
+    }
+
+    private int packageId(String packageName) {
+        Integer id = packageIds.get(packageName);
+        if (id != null) return id;
+        int newId = packageCount++;
+        if (newId == packageNames.length) {
+            packageNames = Arrays.copyOf(packageNames, 2 * newId);
+            packageClassCounts = Arrays.copyOf(packageClassCounts, 2 * newId);
+            packageAbstractCounts = Arrays.copyOf(packageAbstractCounts, 2 * newId);
+        }
+        packageNames[newId] = packageName;
+        packageIds.put(packageName, newId);
+        return newId;
+    }
+
+    private int nameId(String name) {
+        Integer id = nameIds.get(name);
+        if (id != null) return id;
+        int newId = nameCount++;
+        if (newId == names.length) {
+            names = Arrays.copyOf(names, 2 * newId);
+            nameClasses = Arrays.copyOf(nameClasses, 2 * newId);
+            nameSettled = Arrays.copyOf(nameSettled, 2 * newId);
+        }
+        names[newId] = name;
+        nameClasses[newId] = UNRESOLVED;
+        nameIds.put(name, newId);
+        return newId;
+    }
+
+    /**
+     * Resolves a dependency target name to a class: the longest prefix naming a class, so nested
+     * types map to their top-level class, or failing that the longest such prefix of a trailing
+     * part of the name that still includes a package segment. Only a match of the whole name or
+     * of one of its prefixes is settled; other names are resolved again once new classes are added.
+     *
+     * @param nameId the id of the name
+     */
+    private void resolve(int nameId) {
+        String name = names[nameId];
+        for (int start = 0; ; ) {
+            for (int end = name.length(); end > start; end = name.lastIndexOf('.', end - 1)) {
+                String candidate = name.substring(start, end);
+                if (start > 0 && candidate.indexOf('.') < 0) break;
+                Integer classId = classIds.get(candidate);
+                if (classId != null) {
+                    nameClasses[nameId] = classId;
+                    nameSettled[nameId] = start == 0;
+                    return;
+                }
+            }
+            int dot = name.indexOf('.', start);
+            if (dot < 0) break;
+            start = dot + 1;
+        }
+        nameClasses[nameId] = UNRESOLVED;
+    }
+
+    private int sliceSize(int count) {
+        return Math.max(MIN_SLICE, count / (4 * pool.getParallelism()));
+    }
+
+    /**
+     * Sorts the first values of an array and drops the duplicates.
+     *
+     * @param values the array, modified in place
+     * @param count  the number of values to keep
+     * @return the number of distinct values, now at the start of the array
+     */
+    private static int sortDistinct(int[] values, int count) {
+        Arrays.sort(values, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || values[distinct - 1] != values[i]) values[distinct++] = values[i];
+        }
+        return distinct;
+    }
+
+    private static int[] distinct(int[] values, int count) {
+        return Arrays.copyOf(values, sortDistinct(values, count));
+    }
+
+    /**
+     * Resolves a range of names: those added since the last computation, and those not settled
+     * yet if classes were added since.
+     */
+    private final class ResolveSlice extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final boolean retry;
+        private final int sliceSize;
+
+        private ResolveSlice(int from, int to, boolean retry, int sliceSize) {
+            this.from = from;
+            this.to = to;
+            this.retry = retry;
+            this.sliceSize = sliceSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > sliceSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ResolveSlice(from, middle, retry, sliceSize), new ResolveSlice(middle, to, retry, sliceSize));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (i >= resolvedNameCount || (retry && !nameSettled[i])) resolve(i);
+            }
+        }
+    }
+
+    /**
+     * The counters summed over the classes of a slice.
+     */
+    private static final class Counts {
+        private final int[] fanIn;
+        private final int[] afferent;
+        private final int[] efferent;
+
+        private Counts(int classes, int packages) {
+            this.fanIn = new int[classes];
+            this.afferent = new int[packages];
+            this.efferent = new int[packages];
+        }
+
+        private Counts add(Counts other) {
+            for (int i = 0; i < fanIn.length; i++) fanIn[i] += other.fanIn[i];
+            for (int i = 0; i < afferent.length; i++) afferent[i] += other.afferent[i];
+            for (int i = 0; i < efferent.length; i++) efferent[i] += other.efferent[i];
+            return this;
+        }
+    }
+
+    /**
+     * Computes the fan-out of a range of classes into their slots, and the fan-in and package
+     * couplings they contribute, summed with those of the other slices once both are done.
+     */
+    private final class ClassSlice extends RecursiveTask<Counts> {
+        private final int from;
+        private final int to;
+        private final int[] fanOut;
+        private final int sliceSize;
+
+        private ClassSlice(int from, int to, int[] fanOut, int sliceSize) {
+            this.from = from;
+            this.to = to;
+            this.fanOut = fanOut;
+            this.sliceSize = sliceSize;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from > sliceSize) {
+                int middle = (from + to) >>> 1;
+                ClassSlice left = new ClassSlice(from, middle, fanOut, sliceSize);
+                left.fork();
+                Counts right = new ClassSlice(middle, to, fanOut, sliceSize).compute();
+                return left.join().add(right);
+            }
+            Counts counts = new Counts(classCount, packageCount);
+            int[] targets = new int[16];
+            int[] packages = new int[16];
+            for (int c = from; c < to; c++) {
+                int[] targetNames = classTargets[c];
+                if (targetNames.length > targets.length) {
+                    targets = new int[targetNames.length];
+                    packages = new int[targetNames.length];
+                }
+                int count = 0;
+                for (int name : targetNames) {
+                    int target = nameClasses[name];
+                    if (target != UNRESOLVED && target != c) targets[count++] = target;
+                }
+                count = sortDistinct(targets, count);
+                fanOut[c] = count;
+
+                int ownPackage = classPackages[c];
+                int otherPackages = 0;
+                for (int i = 0; i < count; i++) {
+                    counts.fanIn[targets[i]]++;
+                    int targetPackage = classPackages[targets[i]];
+                    if (targetPackage != ownPackage) packages[otherPackages++] = targetPackage;
+                }
+                otherPackages = sortDistinct(packages, otherPackages);
+                for (int i = 0; i < otherPackages; i++) counts.afferent[packages[i]]++;
+                if (otherPackages > 0) counts.efferent[ownPackage]++;
+            }
+            return counts;
+        }
+    }
+}
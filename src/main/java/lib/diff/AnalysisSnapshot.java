@@ -0,0 +1,300 @@
+package lib.diff;
+
+import io.vertx.core.json.JsonObject;
+import lib.analyser.CancellationToken;
+import lib.analyser.HeaderScanner;
+import lib.analyser.ReportCache;
+import lib.analyser.SourceDiscovery;
+import lib.analyser.SourceFileAnalyser;
+import lib.report.ClassDepsReport;
+import lib.report.ReportJson;
+import lib.utils.AsyncUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persisted analysis of a source tree: one class report per file, keyed by the file's path
+ * relative to the source root, together with a SHA-256 hash of its content.
+ * <p>
+ * A new snapshot is taken incrementally from a previous one: files whose size and modification
+ * time are unchanged reuse the previous hash without being read, and files whose hash is
+ * unchanged reuse the previous report without being parsed. Only new and edited files go
+ * through the analyser, along with the files whose report was built in another context: with
+ * other types next to them, which changes how their simple names resolve, or at another
+ * analysis level or with another dependency filter.
+ */
+public class AnalysisSnapshot {
+    private final Map<String, Entry> entries;
+    private final Map<String, Entry> byClassName = new HashMap<>();
+
+    /**
+     * Constructs a snapshot from its entries.
+     *
+     * @param entries the entries keyed by relative path
+     */
+    private AnalysisSnapshot(Map<String, Entry> entries) {
+        this.entries = Collections.unmodifiableMap(entries);
+        for (Entry entry : entries.values()) byClassName.putIfAbsent(entry.getClassName(), entry);
+    }
+
+    /**
+     * Retrieves the entries of the snapshot.
+     *
+     * @return an unmodifiable map from relative path to entry, sorted by path
+     */
+    public Map<String, Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Collects the class-to-class edges of the snapshot. Targets outside the snapshot,
+     * such as library types, are kept: they are edges too, just never part of a cycle.
+     *
+     * @return the outgoing edges of each class, keyed by class name
+     */
+    public Map<String, Set<String>> getGraph() {
+        Map<String, Set<String>> graph = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            graph.computeIfAbsent(entry.getClassName(), k -> new TreeSet<>()).addAll(entry.getTargets());
+        }
+        return graph;
+    }
+
+    /**
+     * Finds the class of the snapshot declaring a type, looking nested types up by their enclosing
+     * top-level class.
+     *
+     * @param typeName the fully qualified name of a type
+     * @return the name of the top-level class declaring it, or null if the type is not part of the snapshot
+     */
+    public String getClassOf(String typeName) {
+        Entry entry = entryOf(typeName);
+        return entry != null ? entry.getClassName() : null;
+    }
+
+    /**
+     * Retrieves the outgoing edges of one class, looked up by its declared name, without building
+     * the whole graph. The edges of a nested type are those of its top-level class.
+     *
+     * @param className the fully qualified name of a class
+     * @return the targets of the class, or null if the class is not part of the snapshot
+     */
+    public Set<String> getTargets(String className) {
+        Entry entry = entryOf(className);
+        return entry != null ? entry.getTargets() : null;
+    }
+
+    private Entry entryOf(String typeName) {
+        String name = typeName;
+        while (true) {
+            Entry entry = byClassName.get(name);
+            if (entry != null) return entry;
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) return null;
+            name = name.substring(0, dot);
+        }
+    }
+
+    /**
+     * Takes a snapshot of a source tree, reusing what is unchanged since a previous snapshot.
+     *
+     * @param sourceRoot the root of the package hierarchy
+     * @param analyser   the analyser for new and edited files
+     * @param previous   the previous snapshot of the same tree, or null to analyse every file
+     * @return the new snapshot
+     * @throws IOException if a file cannot be read
+     */
+    public static AnalysisSnapshot capture(Path sourceRoot, SourceFileAnalyser analyser, AnalysisSnapshot previous) throws IOException {
+        Map<String, Entry> reusable = previous != null ? previous.entries : Collections.emptyMap();
+        List<Path> files = Collections.synchronizedList(new ArrayList<>());
+        Map<Path, Set<String>> typeNames = new ConcurrentHashMap<>();
+        new SourceDiscovery().discover(sourceRoot, (dir, javaFiles) -> {
+            files.addAll(javaFiles);
+            typeNames.put(dir, SourceFileAnalyser.typeNames(javaFiles));
+        });
+
+        long settings = ReportCache.fingerprint(analyser.getLevel() + " " + analyser.getDependencyFilter());
+        Map<String, Entry> entries = new TreeMap<>();
+        for (Path file : files) {
+            String relativePath = relativePath(sourceRoot, file);
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            Set<String> packageTypeNames = typeNames.get(file.getParent());
+            long context = 31 * settings + ReportCache.fingerprint(packageTypeNames);
+            Entry old = reusable.get(relativePath);
+            if (old != null && old.context != context) old = null;
+            if (old != null && old.size == size && old.modified == modified) {
+                entries.put(relativePath, old);
+                continue;
+            }
+            byte[] content = Files.readAllBytes(file);
+            String hash = sha256(content);
+            if (old != null && old.hash.equals(hash)) {
+                entries.put(relativePath, new Entry(old.className, hash, size, modified, context, old.targets, old.report));
+                continue;
+            }
+            String sourceCode = new String(content, StandardCharsets.UTF_8);
+            ClassDepsReport report = analyser.analyse(file, sourceCode, packageTypeNames, new CancellationToken());
+            entries.put(relativePath, new Entry(classNameOf(relativePath, sourceCode), hash, size, modified, context,
+                    targetsOf(report), ReportJson.toJson(report)));
+        }
+        return new AnalysisSnapshot(entries);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #save(Path)}.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read
+     */
+    public static AnalysisSnapshot load(Path file) throws IOException {
+        JsonObject json = new JsonObject(Files.readString(file, StandardCharsets.UTF_8));
+        JsonObject files = json.getJsonObject("files", new JsonObject());
+        Map<String, Entry> entries = new TreeMap<>();
+        for (String relativePath : files.fieldNames()) {
+            JsonObject entry = files.getJsonObject(relativePath);
+            JsonObject report = entry.getJsonObject("report", new JsonObject());
+            entries.put(relativePath, new Entry(entry.getString("className"), entry.getString("hash"),
+                    entry.getLong("size", -1L), entry.getLong("modified", -1L), entry.getLong("context", 0L),
+                    targetsOf(ReportJson.classReportFromJson(report)), report));
+        }
+        return new AnalysisSnapshot(entries);
+    }
+
+    /**
+     * Writes the snapshot as JSON.
+     *
+     * @param file the snapshot file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        JsonObject files = new JsonObject();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            files.put(e.getKey(), new JsonObject()
+                    .put("className", entry.className)
+                    .put("hash", entry.hash)
+                    .put("size", entry.size)
+                    .put("modified", entry.modified)
+                    .put("context", entry.context)
+                    .put("report", entry.report));
+        }
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Files.writeString(file, new JsonObject().put("version", 1).put("files", files).encode(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Derives the fully qualified name of the top-level class of a file from its declared package
+     * and its file name, so the name does not depend on where the source root was taken.
+     *
+     * @param relativePath the relative path, with '/' separators
+     * @param sourceCode   the content of the file
+     * @return the class name, e.g. {@code lib.diff.AnalysisSnapshot}
+     */
+    private static String classNameOf(String relativePath, String sourceCode) {
+        String simpleName = relativePath.substring(relativePath.lastIndexOf('/') + 1, relativePath.length() - ".java".length());
+        String packageName = new HeaderScanner(sourceCode).scanPackageName();
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    private static String relativePath(Path root, Path file) {
+        StringBuilder sb = new StringBuilder();
+        for (Path name : root.relativize(file)) {
+            if (sb.length() > 0) sb.append('/');
+            sb.append(name);
+        }
+        return sb.toString();
+    }
+
+    private static Set<String> targetsOf(ClassDepsReport report) {
+        Set<String> targets = new TreeSet<>();
+        for (AsyncUtils dependency : report.getDependencies()) targets.add(dependency.getTargetType());
+        return Collections.unmodifiableSet(targets);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The analysis of a single file.
+     */
+    public static final class Entry {
+        private final String className;
+        private final String hash;
+        private final long size;
+        private final long modified;
+        private final long context;
+        private final Set<String> targets;
+        private final JsonObject report;
+
+        private Entry(String className, String hash, long size, long modified, long context, Set<String> targets,
+                      JsonObject report) {
+            this.className = className;
+            this.hash = hash;
+            this.size = size;
+            this.modified = modified;
+            this.context = context;
+            this.targets = targets;
+            this.report = report;
+        }
+
+        /**
+         * Retrieves the fully qualified name of the class, from its declared package and file name.
+         *
+         * @return the class name
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * Retrieves the SHA-256 hash of the file content.
+         *
+         * @return the hash as lowercase hex
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Retrieves the types the class depends on.
+         *
+         * @return the sorted target type names
+         */
+        public Set<String> getTargets() {
+            return targets;
+        }
+
+        /**
+         * Retrieves the class report of the file.
+         *
+         * @return the report in the {@link ReportJson} format
+         */
+        public JsonObject getReport() {
+            return report;
+        }
+    }
+}
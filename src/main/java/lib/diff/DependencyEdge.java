@@ -0,0 +1,65 @@
+package lib.diff;
+
+import java.util.Objects;
+
+/**
+ * A directed class-to-class edge of the dependency graph, regardless of how many
+ * dependencies of which kinds connect the two classes.
+ */
+public final class DependencyEdge implements Comparable<DependencyEdge> {
+    private final String source;
+    private final String target;
+
+    /**
+     * Constructs a new DependencyEdge.
+     *
+     * @param source the fully qualified name of the depending class
+     * @param target the fully qualified name of the class it depends on
+     */
+    public DependencyEdge(String source, String target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Retrieves the depending class.
+     *
+     * @return the fully qualified name of the source class
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Retrieves the class depended on.
+     *
+     * @return the fully qualified name of the target class
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    @Override
+    public int compareTo(DependencyEdge other) {
+        int bySource = source.compareTo(other.source);
+        return bySource != 0 ? bySource : target.compareTo(other.target);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DependencyEdge)) return false;
+        DependencyEdge other = (DependencyEdge) o;
+        return source.equals(other.source) && target.equals(other.target);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, target);
+    }
+
+    @Override
+    public String toString() {
+        return source + " -> " + target;
+    }
+}
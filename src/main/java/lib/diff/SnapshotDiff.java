@@ -0,0 +1,256 @@
+package lib.diff;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The difference between two snapshots of the same source tree: the files that changed,
+ * the class-to-class edges added and removed, and the dependency cycles introduced.
+ * <p>
+ * Files are compared by content hash, and by their edges when a file was analysed again for a
+ * change around it, so the edge diff touches the changed files and nothing else. A new cycle must go through an added edge, so cycles are searched from the
+ * added edges only, each with a breadth-first search over the project classes that looks up
+ * the edges of each class it reaches instead of building the whole graph. A class referring
+ * to itself is an added edge, not a cycle.
+ */
+public class SnapshotDiff {
+    private final Set<String> addedFiles = new TreeSet<>();
+    private final Set<String> removedFiles = new TreeSet<>();
+    private final Set<String> changedFiles = new TreeSet<>();
+    private final Set<DependencyEdge> addedEdges = new TreeSet<>();
+    private final Set<DependencyEdge> removedEdges = new TreeSet<>();
+    private final List<List<String>> newCycles = new ArrayList<>();
+
+    /**
+     * Constructs an empty diff, filled in by {@link #compare(AnalysisSnapshot, AnalysisSnapshot)}.
+     */
+    private SnapshotDiff() {
+    }
+
+    /**
+     * Compares two snapshots.
+     *
+     * @param before the older snapshot
+     * @param after  the newer snapshot
+     * @return the difference from before to after
+     */
+    public static SnapshotDiff compare(AnalysisSnapshot before, AnalysisSnapshot after) {
+        SnapshotDiff diff = new SnapshotDiff();
+        Map<String, AnalysisSnapshot.Entry> oldEntries = before.getEntries();
+        Map<String, AnalysisSnapshot.Entry> newEntries = after.getEntries();
+
+        for (Map.Entry<String, AnalysisSnapshot.Entry> e : newEntries.entrySet()) {
+            AnalysisSnapshot.Entry oldEntry = oldEntries.get(e.getKey());
+            AnalysisSnapshot.Entry newEntry = e.getValue();
+            if (oldEntry == null) {
+                diff.addedFiles.add(e.getKey());
+                diff.addEdges(newEntry, diff.addedEdges, Collections.emptySet());
+            } else if (!oldEntry.getHash().equals(newEntry.getHash()) || !oldEntry.getTargets().equals(newEntry.getTargets())) {
+                if (!oldEntry.getHash().equals(newEntry.getHash())) diff.changedFiles.add(e.getKey());
+                diff.addEdges(newEntry, diff.addedEdges, oldEntry.getTargets());
+                diff.addEdges(oldEntry, diff.removedEdges, newEntry.getTargets());
+            }
+        }
+        for (Map.Entry<String, AnalysisSnapshot.Entry> e : oldEntries.entrySet()) {
+            if (!newEntries.containsKey(e.getKey())) {
+                diff.removedFiles.add(e.getKey());
+                diff.addEdges(e.getValue(), diff.removedEdges, Collections.emptySet());
+            }
+        }
+        if (!diff.addedEdges.isEmpty()) diff.findNewCycles(after);
+        return diff;
+    }
+
+    /**
+     * Adds the edges of an entry whose target is not among the given targets.
+     *
+     * @param entry  the entry whose edges are added
+     * @param edges  the set to add the edges to
+     * @param except the targets to leave out
+     */
+    private void addEdges(AnalysisSnapshot.Entry entry, Set<DependencyEdge> edges, Set<String> except) {
+        for (String target : entry.getTargets()) {
+            if (!except.contains(target)) edges.add(new DependencyEdge(entry.getClassName(), target));
+        }
+    }
+
+    /**
+     * Finds, for every added edge u -> v between two distinct project classes, the shortest path
+     * from v back to u. A nested type stands for its top-level class. Each cycle is reported once,
+     * rotated to start at its smallest class name.
+     *
+     * @param after the newer snapshot
+     */
+    private void findNewCycles(AnalysisSnapshot after) {
+        Set<List<String>> seen = new LinkedHashSet<>();
+        for (DependencyEdge edge : addedEdges) {
+            String target = after.getClassOf(edge.getTarget());
+            if (target == null || target.equals(edge.getSource())) continue;
+            List<String> path = shortestPath(after, target, edge.getSource());
+            if (path != null) seen.add(canonical(path));
+        }
+        newCycles.addAll(seen);
+    }
+
+    /**
+     * Finds the shortest path between two classes with a breadth-first search.
+     *
+     * @param after the snapshot holding the outgoing edges of each project class
+     * @param from  the class to start from
+     * @param to    the class to reach
+     * @return the classes on the path, from included and to included, or null if to is unreachable
+     */
+    private static List<String> shortestPath(AnalysisSnapshot after, String from, String to) {
+        Map<String, String> parent = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        parent.put(from, from);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (current.equals(to)) {
+                List<String> path = new ArrayList<>();
+                for (String node = to; ; node = parent.get(node)) {
+                    path.add(node);
+                    if (node.equals(from)) break;
+                }
+                Collections.reverse(path);
+                return path;
+            }
+            Set<String> targets = after.getTargets(current);
+            if (targets == null) continue;
+            for (String target : targets) {
+                String next = after.getClassOf(target);
+                if (next != null && !parent.containsKey(next)) {
+                    parent.put(next, current);
+                    queue.add(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rotates a cycle so that it starts at its smallest class name.
+     *
+     * @param cycle the classes of the cycle, without repeating the first one
+     * @return the rotated cycle
+     */
+    private static List<String> canonical(List<String> cycle) {
+        int start = cycle.indexOf(Collections.min(cycle));
+        List<String> rotated = new ArrayList<>(cycle.subList(start, cycle.size()));
+        rotated.addAll(cycle.subList(0, start));
+        return Collections.unmodifiableList(rotated);
+    }
+
+    /**
+     * Retrieves the files present only in the newer snapshot.
+     *
+     * @return the sorted relative paths
+     */
+    public Set<String> getAddedFiles() {
+        return Collections.unmodifiableSet(addedFiles);
+    }
+
+    /**
+     * Retrieves the files present only in the older snapshot.
+     *
+     * @return the sorted relative paths
+     */
+    public Set<String> getRemovedFiles() {
+        return Collections.unmodifiableSet(removedFiles);
+    }
+
+    /**
+     * Retrieves the files present in both snapshots with different content.
+     *
+     * @return the sorted relative paths
+     */
+    public Set<String> getChangedFiles() {
+        return Collections.unmodifiableSet(changedFiles);
+    }
+
+    /**
+     * Retrieves the edges present only in the newer snapshot.
+     *
+     * @return the sorted edges
+     */
+    public Set<DependencyEdge> getAddedEdges() {
+        return Collections.unmodifiableSet(addedEdges);
+    }
+
+    /**
+     * Retrieves the edges present only in the older snapshot.
+     *
+     * @return the sorted edges
+     */
+    public Set<DependencyEdge> getRemovedEdges() {
+        return Collections.unmodifiableSet(removedEdges);
+    }
+
+    /**
+     * Retrieves the cycles that go through an added edge.
+     *
+     * @return the cycles, each listing its classes once, starting at the smallest name
+     */
+    public List<List<String>> getNewCycles() {
+        return Collections.unmodifiableList(newCycles);
+    }
+
+    /**
+     * Checks whether the two snapshots have the same dependency graph.
+     *
+     * @return true if no edge was added or removed
+     */
+    public boolean isEmpty() {
+        return addedEdges.isEmpty() && removedEdges.isEmpty();
+    }
+
+    /**
+     * Converts the diff to JSON.
+     *
+     * @return the JSON representation of the diff
+     */
+    public JsonObject toJson() {
+        JsonArray cycles = new JsonArray();
+        for (List<String> cycle : newCycles) cycles.add(new JsonArray(new ArrayList<>(cycle)));
+        return new JsonObject()
+                .put("addedFiles", new JsonArray(new ArrayList<>(addedFiles)))
+                .put("removedFiles", new JsonArray(new ArrayList<>(removedFiles)))
+                .put("changedFiles", new JsonArray(new ArrayList<>(changedFiles)))
+                .put("addedEdges", edgesToJson(addedEdges))
+                .put("removedEdges", edgesToJson(removedEdges))
+                .put("newCycles", cycles);
+    }
+
+    private static JsonArray edgesToJson(Set<DependencyEdge> edges) {
+        JsonArray array = new JsonArray();
+        for (DependencyEdge edge : edges) array.add(new JsonObject().put("source", edge.getSource()).put("target", edge.getTarget()));
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Files: %d added, %d removed, %d changed%n", addedFiles.size(), removedFiles.size(), changedFiles.size()));
+        sb.append("Added edges:\n");
+        for (DependencyEdge edge : addedEdges) sb.append("  + ").append(edge).append("\n");
+        sb.append("Removed edges:\n");
+        for (DependencyEdge edge : removedEdges) sb.append("  - ").append(edge).append("\n");
+        sb.append("New cycles:\n");
+        for (List<String> cycle : newCycles) {
+            sb.append("  ").append(String.join(" -> ", cycle)).append(" -> ").append(cycle.get(0)).append("\n");
+        }
+        return sb.toString();
+    }
+}
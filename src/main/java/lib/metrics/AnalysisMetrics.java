@@ -0,0 +1,310 @@
+package lib.metrics;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-phase latency histograms and throughput counters for the analysis pipeline.
+ * All methods are thread-safe and lock-free, so a single instance can be shared by
+ * every file analysed concurrently on the Vert.x worker and event-loop threads.
+ */
+public class AnalysisMetrics {
+    private static final int MAX_SKIPPED_FILES = 100;
+
+    /**
+     * The phases of the analysis pipeline that are timed separately.
+     * VISIT covers the whole AST traversal and therefore includes the RESOLVE samples taken inside it.
+     */
+    public enum Phase {
+        READ,
+        PARSE,
+        RESOLVE,
+        VISIT,
+        AGGREGATE
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final LongAdder filesDiscovered = new LongAdder();
+    private final LongAdder filesRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder filesAnalysed = new LongAdder();
+    private final LongAdder filesFailed = new LongAdder();
+    private final LongAdder filesSkipped = new LongAdder();
+    private final Queue<String> skippedFiles = new ConcurrentLinkedQueue<>();
+    private final LongAdder dependenciesFound = new LongAdder();
+    private final LongAdder resolutions = new LongAdder();
+    private final LongAdder fastPathResolutions = new LongAdder();
+    private final Map<String, LongAdder> resolutionFailures = new ConcurrentHashMap<>();
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * Constructs a new AnalysisMetrics with empty histograms and counters.
+     */
+    public AnalysisMetrics() {
+        for (Phase phase : Phase.values()) histograms.put(phase, new LatencyHistogram());
+    }
+
+    /**
+     * Records the duration of a phase.
+     *
+     * @param phase the phase that was measured
+     * @param nanos the measured duration in nanoseconds
+     */
+    public void record(Phase phase, long nanos) {
+        histograms.get(phase).record(nanos);
+    }
+
+    /**
+     * Records files found and scheduled for analysis.
+     *
+     * @param count the number of files
+     */
+    public void recordFilesDiscovered(int count) {
+        filesDiscovered.add(count);
+    }
+
+    /**
+     * Records a file read and its size.
+     *
+     * @param bytes the number of bytes read
+     */
+    public void recordFileRead(long bytes) {
+        filesRead.increment();
+        bytesRead.add(bytes);
+    }
+
+    /**
+     * Records a file whose analysis completed, along with the dependencies it produced.
+     *
+     * @param dependencies the number of dependencies found in the file
+     */
+    public void recordFileAnalysed(int dependencies) {
+        filesAnalysed.increment();
+        dependenciesFound.add(dependencies);
+    }
+
+    /**
+     * Records a file that could not be read or parsed.
+     */
+    public void recordFileFailed() {
+        filesFailed.increment();
+    }
+
+    /**
+     * Records a file skipped because its analysis ran past the per-file time budget.
+     * The first {@value #MAX_SKIPPED_FILES} paths are kept for the summary.
+     *
+     * @param path the path of the skipped file
+     */
+    public void recordFileSkipped(String path) {
+        filesSkipped.increment();
+        if (skippedFiles.size() < MAX_SKIPPED_FILES) skippedFiles.add(path);
+    }
+
+    /**
+     * Records a type name resolved from the imports without the symbol solver.
+     */
+    public void recordFastPathResolution() {
+        fastPathResolutions.increment();
+    }
+
+    /**
+     * Records a symbol-solver resolution attempt.
+     */
+    public void recordResolution() {
+        resolutions.increment();
+    }
+
+    /**
+     * Records a symbol-resolution failure, keyed by the type of the exception raised.
+     *
+     * @param cause the exception raised during resolution
+     */
+    public void recordResolutionFailure(Throwable cause) {
+        resolutionFailures.computeIfAbsent(cause.getClass().getSimpleName(), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Retrieves the histogram of a phase.
+     *
+     * @param phase the phase to query
+     * @return the latency histogram of the phase
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * Retrieves the number of files found and scheduled for analysis.
+     *
+     * @return the number of discovered files
+     */
+    public long getFilesDiscovered() {
+        return filesDiscovered.sum();
+    }
+
+    /**
+     * Retrieves the number of files read.
+     *
+     * @return the number of files read
+     */
+    public long getFilesRead() {
+        return filesRead.sum();
+    }
+
+    /**
+     * Retrieves the number of bytes read.
+     *
+     * @return the number of bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * Retrieves the number of files analysed successfully.
+     *
+     * @return the number of files analysed successfully
+     */
+    public long getFilesAnalysed() {
+        return filesAnalysed.sum();
+    }
+
+    /**
+     * Retrieves the number of files that could not be read or parsed.
+     *
+     * @return the number of files that could not be read or parsed
+     */
+    public long getFilesFailed() {
+        return filesFailed.sum();
+    }
+
+    /**
+     * Retrieves the number of files skipped because they ran past their time budget.
+     *
+     * @return the number of skipped files
+     */
+    public long getFilesSkipped() {
+        return filesSkipped.sum();
+    }
+
+    /**
+     * Retrieves the paths of the skipped files, at most {@value #MAX_SKIPPED_FILES} of them.
+     *
+     * @return a snapshot of the skipped file paths
+     */
+    public List<String> getSkippedFiles() {
+        return new ArrayList<>(skippedFiles);
+    }
+
+    /**
+     * Retrieves the number of dependencies found.
+     *
+     * @return the number of dependencies found
+     */
+    public long getDependenciesFound() {
+        return dependenciesFound.sum();
+    }
+
+    /**
+     * Retrieves the number of symbol-solver resolution attempts.
+     *
+     * @return the number of symbol-solver resolution attempts
+     */
+    public long getResolutions() {
+        return resolutions.sum();
+    }
+
+    /**
+     * Retrieves the number of type names resolved from the imports without the symbol solver.
+     *
+     * @return the number of fast-path resolutions
+     */
+    public long getFastPathResolutions() {
+        return fastPathResolutions.sum();
+    }
+
+    /**
+     * Retrieves the total number of symbol-resolution failures.
+     *
+     * @return the number of failed resolutions
+     */
+    public long getResolutionFailures() {
+        return resolutionFailures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Retrieves the symbol-resolution failures grouped by exception type.
+     *
+     * @return a sorted snapshot mapping exception simple names to failure counts
+     */
+    public Map<String, Long> getResolutionFailuresByCause() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        resolutionFailures.forEach((cause, count) -> snapshot.put(cause, count.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Computes the file throughput since construction or the last reset.
+     *
+     * @return the number of analysed files per second
+     */
+    public double getFilesPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : getFilesAnalysed() / seconds;
+    }
+
+    /**
+     * Clears all histograms and counters and restarts the throughput clock.
+     */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        filesDiscovered.reset();
+        filesRead.reset();
+        bytesRead.reset();
+        filesAnalysed.reset();
+        filesFailed.reset();
+        filesSkipped.reset();
+        skippedFiles.clear();
+        dependenciesFound.reset();
+        resolutions.reset();
+        fastPathResolutions.reset();
+        resolutionFailures.clear();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Generates a human-readable summary of all phases and counters, meant to be
+     * printed at the end of a run.
+     *
+     * @return a formatted multi-line summary
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Analysis Metrics ===\n");
+        for (Phase phase : Phase.values()) {
+            sb.append(String.format("  %-9s %s%n", phase, histograms.get(phase)));
+        }
+        sb.append(String.format("  files read: %d (%d bytes), analysed: %d, failed: %d, skipped: %d, %.1f files/s%n",
+                getFilesRead(), getBytesRead(), getFilesAnalysed(), getFilesFailed(), getFilesSkipped(), getFilesPerSecond()));
+        for (String skipped : getSkippedFiles()) sb.append("    - skipped ").append(skipped).append("\n");
+        sb.append(String.format("  dependencies found: %d%n", getDependenciesFound()));
+        sb.append(String.format("  resolutions: fast path %d, symbol solver %d, failed: %d%n",
+                getFastPathResolutions(), getResolutions(), getResolutionFailures()));
+        getResolutionFailuresByCause().forEach((cause, count) ->
+                sb.append("    - ").append(cause).append(": ").append(count).append("\n"));
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
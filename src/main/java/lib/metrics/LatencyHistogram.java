@@ -0,0 +1,122 @@
+package lib.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with power-of-two nanosecond buckets.
+ * Bucket {@code i} counts the samples in the range {@code [2^(i-1), 2^i)} nanoseconds,
+ * which keeps recording to a single atomic increment while still giving
+ * percentiles accurate to a factor of two.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a single sample.
+     *
+     * @param nanos the measured duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Retrieves the number of recorded samples.
+     *
+     * @return the sample count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Retrieves the sum of all recorded samples.
+     *
+     * @return the total duration in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Retrieves the largest recorded sample.
+     *
+     * @return the maximum duration in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Retrieves the mean of the recorded samples.
+     *
+     * @return the mean duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMeanNanos() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getTotalNanos() / n;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket containing it.
+     *
+     * @param percentile the percentile to estimate, between 0 and 100
+     * @return the estimated duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long n = getCount();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(n * Math.min(Math.max(percentile, 0), 100) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min((1L << i) - 1, getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Computes the bucket of a sample: 0 for zero, otherwise the bit length of the value.
+     *
+     * @param nanos a non-negative duration in nanoseconds
+     * @return the bucket index
+     */
+    private static int bucketOf(long nanos) {
+        return Long.SIZE - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * Clears all recorded samples.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    /**
+     * Generates a one-line summary with count, mean, p50, p99 and max in milliseconds.
+     *
+     * @return a formatted string representation of the histogram
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+                getCount(), getMeanNanos() / 1e6, getPercentileNanos(50) / 1e6,
+                getPercentileNanos(99) / 1e6, getMaxNanos() / 1e6);
+    }
+}
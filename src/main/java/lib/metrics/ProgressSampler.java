@@ -0,0 +1,97 @@
+package lib.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Samples the counters of an {@link AnalysisMetrics} at a fixed rate and hands a
+ * {@link ProgressSnapshot} to a listener. The analysis itself only bumps the lock-free counters,
+ * so listeners cost the same whether a run analyses ten files or a million.
+ * <p>
+ * The rate is an exponentially weighted moving average over roughly the last
+ * {@value #RATE_WINDOW_SECONDS} seconds, so it follows slow phases without jumping on every sample.
+ */
+public class ProgressSampler implements AutoCloseable {
+    private static final double RATE_WINDOW_SECONDS = 10;
+
+    private final AnalysisMetrics metrics;
+    private final Duration interval;
+    private final Consumer<ProgressSnapshot> listener;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> task;
+    private long startNanos;
+    private long lastNanos;
+    private long lastDone;
+    private double rate = -1;
+
+    /**
+     * Constructs a new ProgressSampler. Sampling starts with {@link #start()}.
+     *
+     * @param metrics  the metrics the analysis records into
+     * @param interval the time between two samples
+     * @param listener receives each sample on the sampler thread
+     */
+    public ProgressSampler(AnalysisMetrics metrics, Duration interval, Consumer<ProgressSnapshot> listener) {
+        this.metrics = metrics;
+        this.interval = interval;
+        this.listener = listener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts sampling at the configured rate.
+     *
+     * @return this sampler
+     */
+    public synchronized ProgressSampler start() {
+        startNanos = lastNanos = System.nanoTime();
+        lastDone = done();
+        long millis = Math.max(1, interval.toMillis());
+        task = scheduler.scheduleAtFixedRate(() -> listener.accept(sample()), millis, millis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Takes a sample now and updates the moving rate.
+     *
+     * @return the current progress
+     */
+    public synchronized ProgressSnapshot sample() {
+        long now = System.nanoTime();
+        long done = done();
+        double seconds = (now - lastNanos) / 1e9;
+        if (seconds > 0) {
+            double instant = (done - lastDone) / seconds;
+            double alpha = 1 - Math.exp(-seconds / RATE_WINDOW_SECONDS);
+            rate = rate < 0 ? instant : rate + alpha * (instant - rate);
+            lastNanos = now;
+            lastDone = done;
+        }
+        return new ProgressSnapshot(metrics.getFilesDiscovered(), metrics.getFilesAnalysed() + metrics.getFilesSkipped(),
+                metrics.getFilesFailed(), metrics.getBytesRead(), Math.max(0, rate), (now - startNanos) / 1_000_000);
+    }
+
+    private long done() {
+        return metrics.getFilesAnalysed() + metrics.getFilesSkipped() + metrics.getFilesFailed();
+    }
+
+    /**
+     * Stops sampling and delivers a final sample to the listener.
+     */
+    @Override
+    public synchronized void close() {
+        if (task == null) return;
+        task.cancel(false);
+        task = null;
+        scheduler.shutdown();
+        listener.accept(sample());
+    }
+}
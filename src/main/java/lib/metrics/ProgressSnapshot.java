@@ -0,0 +1,130 @@
+package lib.metrics;
+
+/**
+ * An immutable sample of the progress of an analysis, taken by a {@link ProgressSampler}.
+ */
+public final class ProgressSnapshot {
+    private final long filesDiscovered;
+    private final long filesCompleted;
+    private final long filesFailed;
+    private final long bytesProcessed;
+    private final double filesPerSecond;
+    private final long elapsedMillis;
+
+    /**
+     * Constructs a new ProgressSnapshot.
+     *
+     * @param filesDiscovered the number of files found so far
+     * @param filesCompleted  the number of files analysed or skipped
+     * @param filesFailed     the number of files that could not be read or parsed
+     * @param bytesProcessed  the number of bytes read
+     * @param filesPerSecond  the moving average of the completion rate
+     * @param elapsedMillis   the time since sampling started
+     */
+    public ProgressSnapshot(long filesDiscovered, long filesCompleted, long filesFailed, long bytesProcessed,
+                            double filesPerSecond, long elapsedMillis) {
+        this.filesDiscovered = filesDiscovered;
+        this.filesCompleted = filesCompleted;
+        this.filesFailed = filesFailed;
+        this.bytesProcessed = bytesProcessed;
+        this.filesPerSecond = filesPerSecond;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Retrieves the number of files found so far.
+     *
+     * @return the number of discovered files
+     */
+    public long getFilesDiscovered() {
+        return filesDiscovered;
+    }
+
+    /**
+     * Retrieves the number of files analysed or skipped.
+     *
+     * @return the number of completed files
+     */
+    public long getFilesCompleted() {
+        return filesCompleted;
+    }
+
+    /**
+     * Retrieves the number of files that could not be read or parsed.
+     *
+     * @return the number of failed files
+     */
+    public long getFilesFailed() {
+        return filesFailed;
+    }
+
+    /**
+     * Retrieves the number of bytes read.
+     *
+     * @return the number of bytes read
+     */
+    public long getBytesProcessed() {
+        return bytesProcessed;
+    }
+
+    /**
+     * Retrieves the moving average of the completion rate.
+     *
+     * @return the number of files completed per second
+     */
+    public double getFilesPerSecond() {
+        return filesPerSecond;
+    }
+
+    /**
+     * Retrieves the time since sampling started.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Retrieves the number of discovered files not yet completed or failed.
+     *
+     * @return the number of remaining files
+     */
+    public long getFilesRemaining() {
+        return Math.max(0, filesDiscovered - filesCompleted - filesFailed);
+    }
+
+    /**
+     * Estimates the time left from the remaining files and the moving rate.
+     * Discovery runs alongside the analysis, so the estimate grows while new files are found.
+     *
+     * @return the estimated remaining time in seconds, or -1 while nothing is known yet
+     */
+    public long getEtaSeconds() {
+        if (filesDiscovered == 0) return -1;
+        if (getFilesRemaining() == 0) return 0;
+        return filesPerSecond > 0 ? (long) Math.ceil(getFilesRemaining() / filesPerSecond) : -1;
+    }
+
+    /**
+     * Retrieves the completed fraction of the discovered files.
+     *
+     * @return a value between 0 and 1
+     */
+    public double getFractionDone() {
+        return filesDiscovered == 0 ? 0 : Math.min(1.0, (double) (filesCompleted + filesFailed) / filesDiscovered);
+    }
+
+    /**
+     * Generates a one-line summary such as {@code 120/450 files (2 failed), 1.2 MB, 35.0 files/s, ETA 0:10}.
+     *
+     * @return a formatted string representation of the snapshot
+     */
+    @Override
+    public String toString() {
+        long eta = getEtaSeconds();
+        return String.format("%d/%d files (%d failed), %.1f MB, %.1f files/s, ETA %s",
+                filesCompleted, filesDiscovered, filesFailed, bytesProcessed / 1e6, filesPerSecond,
+                eta < 0 ? "--:--" : String.format("%d:%02d", eta / 60, eta % 60));
+    }
+}
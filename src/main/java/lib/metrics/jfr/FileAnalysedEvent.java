@@ -0,0 +1,32 @@
+package lib.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event emitted once for every source file analysed by the DependencyAnalyserLib.
+ * The event duration spans parsing and visiting; read time is excluded.
+ */
+@Name("lib.analyser.FileAnalysed")
+@Label("File Analysed")
+@Category({"Dependency Analyser", "Files"})
+@Description("A Java source file was parsed and its dependencies extracted")
+@StackTrace(false)
+public class FileAnalysedEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseNanos;
+
+    @Label("Resolve Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long resolveNanos;
+
+    @Label("Dependency Count")
+    public int dependencyCount;
+}
@@ -0,0 +1,20 @@
+package lib.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event emitted on the Event Dispatch Thread when the GUI applies the results of
+ * one analysed class to the output box and the graph.
+ */
+@Name("lib.analyser.GuiBatchApplied")
+@Label("GUI Batch Applied")
+@Category({"Dependency Analyser", "GUI"})
+@Description("An analysis result was applied to the Swing components")
+@StackTrace(false)
+public class GuiBatchAppliedEvent extends Event {
+    @Label("Class Name")
+    public String className;
+
+    @Label("Dependency Count")
+    public int dependencyCount;
+}
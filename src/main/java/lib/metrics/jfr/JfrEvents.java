@@ -0,0 +1,17 @@
+package lib.metrics.jfr;
+
+/**
+ * Central switch for the analyser's Java Flight Recorder events.
+ * Events are emitted only when the JVM is started with {@code -Danalyser.jfr=true};
+ * since the flag is a static final constant the JIT removes the guarded code entirely
+ * when it is off, so the instrumentation costs nothing in normal runs.
+ */
+public final class JfrEvents {
+    /**
+     * Whether the analyser emits JFR events at all.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("analyser.jfr");
+
+    private JfrEvents() {
+    }
+}
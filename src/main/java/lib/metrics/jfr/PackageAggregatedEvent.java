@@ -0,0 +1,22 @@
+package lib.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event emitted when the class reports of a package have been merged into a PackageDepsReport.
+ */
+@Name("lib.analyser.PackageAggregated")
+@Label("Package Aggregated")
+@Category({"Dependency Analyser", "Aggregation"})
+@Description("The class reports of a package were aggregated")
+@StackTrace(false)
+public class PackageAggregatedEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Class Count")
+    public int classCount;
+
+    @Label("Dependency Count")
+    public int dependencyCount;
+}
@@ -0,0 +1,25 @@
+package lib.metrics.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event emitted when a type goes through the symbol-solver slow path.
+ * Only resolutions slower than the threshold (1 ms by default, configurable in the
+ * recording settings) are committed, so fast hits do not flood the recording.
+ */
+@Name("lib.analyser.SymbolResolution")
+@Label("Symbol Resolution Slow Path")
+@Category({"Dependency Analyser", "Resolution"})
+@Description("A type name was resolved through the JavaSymbolSolver")
+@Threshold("1 ms")
+@StackTrace(false)
+public class SymbolResolutionEvent extends Event {
+    @Label("Source Class")
+    public String sourceClass;
+
+    @Label("Type Name")
+    public String typeName;
+
+    @Label("Resolved")
+    public boolean resolved;
+}
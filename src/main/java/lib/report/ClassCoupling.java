@@ -0,0 +1,81 @@
+package lib.report;
+
+/**
+ * The coupling metrics of a class: how many classes of the project depend on it (fan-in)
+ * and how many it depends on (fan-out).
+ */
+public final class ClassCoupling {
+    private final String className;
+    private final String packageName;
+    private final boolean abstractType;
+    private final int fanIn;
+    private final int fanOut;
+    /**
+     * Constructs a new ClassCoupling.
+     *
+     * @param className    the fully qualified name of the class
+     * @param packageName  the name of its package
+     * @param abstractType whether the class is an interface, an annotation type or an abstract class
+     * @param fanIn        the number of classes of the project depending on the class
+     * @param fanOut       the number of classes of the project the class depends on
+     */
+    public ClassCoupling(String className, String packageName, boolean abstractType, int fanIn, int fanOut) {
+        this.className = className;
+        this.packageName = packageName;
+        this.abstractType = abstractType;
+        this.fanIn = fanIn;
+        this.fanOut = fanOut;
+    }
+    /**
+     * Retrieves the fully qualified name of the class.
+     *
+     * @return the class name
+     */
+    public String getClassName() {
+        return className;
+    }
+    /**
+     * Retrieves the name of the package of the class.
+     *
+     * @return the package name
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+    /**
+     * Tells whether the class is abstract.
+     *
+     * @return true for an interface, an annotation type or an abstract class
+     */
+    public boolean isAbstract() {
+        return abstractType;
+    }
+    /**
+     * Retrieves the number of classes of the project depending on the class.
+     *
+     * @return the fan-in
+     */
+    public int getFanIn() {
+        return fanIn;
+    }
+    /**
+     * Retrieves the number of classes of the project the class depends on.
+     *
+     * @return the fan-out
+     */
+    public int getFanOut() {
+        return fanOut;
+    }
+    /**
+     * Computes the instability of the class, fan-out / (fan-in + fan-out).
+     *
+     * @return the instability between 0 (only depended upon) and 1 (only depending), 0 for an isolated class
+     */
+    public double getInstability() {
+        return fanIn + fanOut == 0 ? 0 : (double) fanOut / (fanIn + fanOut);
+    }
+    @Override
+    public String toString() {
+        return String.format("%-50s %6d %7d %6.2f%s", className, fanIn, fanOut, getInstability(), abstractType ? "  abstract" : "");
+    }
+}
@@ -14,6 +14,8 @@ import lib.utils.AsyncUtils;
 public class ClassDepsReport {
     private final String className;
     private final Set<AsyncUtils> dependencies = new HashSet<>();
+    private boolean abstractType;
+    private boolean skipped;
     /**
      * Constructs a new ClassDepsReport for the specified class.
      *
@@ -22,6 +24,48 @@ public class ClassDepsReport {
     public ClassDepsReport(String className) {
         this.className = className;
     }
+    /**
+     * Retrieves the name of the class being analyzed.
+     *
+     * @return the class name of the report
+     */
+    public String getClassName() {
+        return className;
+    }
+    /**
+     * Tells whether the class is abstract, i.e. an interface, an annotation type or an abstract class.
+     *
+     * @return true if the class is abstract
+     */
+    public boolean isAbstract() {
+        return abstractType;
+    }
+    /**
+     * Marks the class as abstract or concrete.
+     *
+     * @param abstractType true for an interface, an annotation type or an abstract class
+     */
+    public void setAbstract(boolean abstractType) {
+        this.abstractType = abstractType;
+    }
+    /**
+     * Tells whether the analysis of the class was skipped, e.g. for running past its time budget.
+     * A skipped report has no dependencies, but unlike a class without dependencies it says
+     * nothing about the class, so package reports leave it out altogether.
+     *
+     * @return true if the class was not analysed
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+    /**
+     * Marks the analysis of the class as skipped or completed.
+     *
+     * @param skipped true if the class was not analysed
+     */
+    public void setSkipped(boolean skipped) {
+        this.skipped = skipped;
+    }
     /**
      * Adds a dependency to the report.
      *
@@ -0,0 +1,52 @@
+package lib.report;
+
+import java.util.List;
+/**
+ * The coupling metrics of a project: the fan-in and fan-out of each class and Robert C. Martin's
+ * package metrics, computed from a project report by a {@link lib.coupling.CouplingAnalyser}.
+ */
+public final class CouplingReport {
+    private final List<PackageCoupling> packages;
+    private final List<ClassCoupling> classes;
+    /**
+     * Constructs a new CouplingReport.
+     *
+     * @param packages the metrics of each package, sorted by name
+     * @param classes  the metrics of each class, sorted by name
+     */
+    public CouplingReport(List<PackageCoupling> packages, List<ClassCoupling> classes) {
+        this.packages = List.copyOf(packages);
+        this.classes = List.copyOf(classes);
+    }
+    /**
+     * Retrieves the metrics of each package.
+     *
+     * @return an unmodifiable list of package metrics, sorted by name
+     */
+    public List<PackageCoupling> getPackages() {
+        return packages;
+    }
+    /**
+     * Retrieves the metrics of each class.
+     *
+     * @return an unmodifiable list of class metrics, sorted by name
+     */
+    public List<ClassCoupling> getClasses() {
+        return classes;
+    }
+    /**
+     * Generates a string representation of the coupling report: a table of the packages
+     * followed by a table of the classes.
+     *
+     * @return a formatted string representation of the report
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-40s %7s %8s %5s %5s %6s %6s %6s\n", "Package", "Classes", "Abstract", "Ca", "Ce", "I", "A", "D"));
+        for (PackageCoupling packageCoupling : packages) sb.append(packageCoupling).append("\n");
+        sb.append(String.format("\n%-50s %6s %7s %6s\n", "Class", "Fan-in", "Fan-out", "I"));
+        for (ClassCoupling classCoupling : classes) sb.append(classCoupling).append("\n");
+        return sb.toString();
+    }
+}
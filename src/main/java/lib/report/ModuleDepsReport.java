@@ -0,0 +1,96 @@
+package lib.report;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+/**
+ * A report class for storing dependencies of a module of a multi-module build.
+ * This class contains the module name, the modules it declares a dependency on in its build file,
+ * the top-level classes it declares, and the reports of its packages, named after their fully
+ * qualified package names.
+ */
+public final class ModuleDepsReport {
+    private final String moduleName;
+    private final Set<String> declaredDependencies;
+    private final Set<String> declaredClasses;
+    private final List<PackageDepsReport> packageReports;
+    private final List<PackageDepsReport> packagesWithoutDependencies;
+    /**
+     * Constructs a new ModuleDepsReport for the specified module.
+     *
+     * @param moduleName           the name of the module being analyzed
+     * @param declaredDependencies the modules the build file of the module depends on
+     * @param declaredClasses      the fully qualified names of the top-level classes of the module,
+     *                             including those without dependencies
+     * @param packageReports              the package reports of the module, in report order
+     * @param packagesWithoutDependencies the reports of the packages of the module whose classes have no dependencies
+     */
+    public ModuleDepsReport(String moduleName, Set<String> declaredDependencies, Set<String> declaredClasses,
+                            List<PackageDepsReport> packageReports, List<PackageDepsReport> packagesWithoutDependencies) {
+        this.moduleName = moduleName;
+        this.declaredDependencies = Collections.unmodifiableSet(new TreeSet<>(declaredDependencies));
+        this.declaredClasses = Collections.unmodifiableSet(new TreeSet<>(declaredClasses));
+        this.packageReports = List.copyOf(packageReports);
+        this.packagesWithoutDependencies = List.copyOf(packagesWithoutDependencies);
+    }
+    /**
+     * Retrieves the name of the module being analyzed.
+     *
+     * @return the module name of the report
+     */
+    public String getModuleName() {
+        return moduleName;
+    }
+    /**
+     * Retrieves the modules the build file of the module depends on.
+     *
+     * @return the sorted names of the declared module dependencies
+     */
+    public Set<String> getDeclaredDependencies() {
+        return declaredDependencies;
+    }
+    /**
+     * Retrieves the top-level classes declared by the source files of the module. Unlike the
+     * package reports, which leave out classes without dependencies, every class is listed.
+     *
+     * @return the sorted fully qualified names of the declared classes
+     */
+    public Set<String> getDeclaredClasses() {
+        return declaredClasses;
+    }
+    /**
+     * Retrieves the list of package reports associated with the module.
+     *
+     * @return an unmodifiable list of PackageDepsReport objects representing the package reports
+     */
+    public List<PackageDepsReport> getPackageReports() {
+        return packageReports;
+    }
+    /**
+     * Retrieves the reports of the packages of the module whose classes have no dependencies,
+     * see {@link ProjectDepsReport#getPackagesWithoutDependencies()}.
+     *
+     * @return an unmodifiable list of the package reports without dependencies
+     */
+    public List<PackageDepsReport> getPackagesWithoutDependencies() {
+        return packagesWithoutDependencies;
+    }
+    /**
+     * Generates a string representation of the module dependencies report.
+     * The output includes the module name, its declared dependencies and its package reports.
+     *
+     * @return a formatted string representation of the report
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Module: ").append(moduleName).append("\n");
+        sb.append("Declared Dependencies: ").append(declaredDependencies).append("\n");
+        sb.append("Package Reports:\n");
+        for (PackageDepsReport report : packageReports) {
+            sb.append(report).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package lib.report;
+
+import lib.utils.AsyncUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+/**
+ * A report class for storing dependencies of a multi-module build.
+ * This class contains the build name and the reports of its modules, and merges them into a
+ * module-level graph, built from the class-level dependencies that cross modules, and into a
+ * single class-level project report.
+ */
+public final class MultiModuleReport {
+    private final String projectName;
+    private final List<ModuleDepsReport> moduleReports;
+    /**
+     * Constructs a new MultiModuleReport for the specified build.
+     *
+     * @param projectName   the name of the build being analyzed
+     * @param moduleReports the module reports, in declaration order
+     */
+    public MultiModuleReport(String projectName, List<ModuleDepsReport> moduleReports) {
+        this.projectName = projectName;
+        this.moduleReports = List.copyOf(moduleReports);
+    }
+    /**
+     * Retrieves the name of the build being analyzed.
+     *
+     * @return the project name of the report
+     */
+    public String getProjectName() {
+        return projectName;
+    }
+    /**
+     * Retrieves the list of module reports.
+     *
+     * @return an unmodifiable list of ModuleDepsReport objects representing the module reports
+     */
+    public List<ModuleDepsReport> getModuleReports() {
+        return moduleReports;
+    }
+    /**
+     * Computes the module-level graph: a module depends on another when one of its classes
+     * depends on a class declared in the other, whether or not that class has dependencies itself.
+     *
+     * @return the modules each module depends on, both sorted by name
+     */
+    public Map<String, Set<String>> getModuleGraph() {
+        Map<String, String> moduleOfClass = new HashMap<>();
+        for (ModuleDepsReport module : moduleReports) {
+            for (String className : module.getDeclaredClasses()) {
+                moduleOfClass.putIfAbsent(className, module.getModuleName());
+            }
+        }
+        Map<String, Set<String>> graph = new TreeMap<>();
+        for (ModuleDepsReport module : moduleReports) {
+            Set<String> targets = graph.computeIfAbsent(module.getModuleName(), k -> new TreeSet<>());
+            for (PackageDepsReport packageReport : module.getPackageReports()) {
+                for (ClassDepsReport classReport : packageReport.getClassReports()) {
+                    for (AsyncUtils dependency : classReport.getDependencies()) {
+                        String target = moduleOf(moduleOfClass, dependency.getTargetType());
+                        if (target != null && !target.equals(module.getModuleName())) targets.add(target);
+                    }
+                }
+            }
+        }
+        return graph;
+    }
+    /**
+     * Merges the class-level reports of all modules into one project report. A package split across
+     * modules becomes a single package report holding the classes of every module; a package none
+     * of whose classes has dependencies is kept apart, see {@link ProjectDepsReport#getPackagesWithoutDependencies()}.
+     *
+     * @return the merged project report, packages sorted by name
+     */
+    public ProjectDepsReport toProjectReport() {
+        Map<String, List<ClassDepsReport>> packages = new TreeMap<>();
+        Map<String, List<ClassDepsReport>> withoutDependencies = new HashMap<>();
+        for (ModuleDepsReport module : moduleReports) {
+            List<PackageDepsReport> reports = new ArrayList<>(module.getPackageReports());
+            reports.addAll(module.getPackagesWithoutDependencies());
+            for (PackageDepsReport packageReport : reports) {
+                packages.computeIfAbsent(packageReport.getPackageName(), k -> new ArrayList<>()).addAll(packageReport.getClassReports());
+                withoutDependencies.computeIfAbsent(packageReport.getPackageName(), k -> new ArrayList<>())
+                        .addAll(packageReport.getClassesWithoutDependencies());
+            }
+        }
+        List<PackageDepsReport> packageReports = new ArrayList<>();
+        List<PackageDepsReport> packagesWithoutDependencies = new ArrayList<>();
+        for (Map.Entry<String, List<ClassDepsReport>> entry : packages.entrySet()) {
+            PackageDepsReport report = new PackageDepsReport(entry.getKey(), entry.getValue(), withoutDependencies.get(entry.getKey()));
+            (entry.getValue().isEmpty() ? packagesWithoutDependencies : packageReports).add(report);
+        }
+        return new ProjectDepsReport(projectName, packageReports, packagesWithoutDependencies);
+    }
+    /**
+     * Finds the module declaring a type, looking nested types up by their enclosing top-level class.
+     *
+     * @param moduleOfClass the module of each top-level class
+     * @param typeName      the fully qualified name of the type
+     * @return the module name, or null if no module declares the type
+     */
+    private static String moduleOf(Map<String, String> moduleOfClass, String typeName) {
+        String name = typeName;
+        while (true) {
+            String module = moduleOfClass.get(name);
+            if (module != null) return module;
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) return null;
+            name = name.substring(0, dot);
+        }
+    }
+    /**
+     * Generates a string representation of the multi-module report.
+     * The output includes the build name, the module graph and the module reports.
+     *
+     * @return a formatted string representation of the report
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Project: ").append(projectName).append("\n");
+        sb.append("Module Graph:\n");
+        Map<String, Set<String>> declared = new LinkedHashMap<>();
+        for (ModuleDepsReport module : moduleReports) declared.put(module.getModuleName(), module.getDeclaredDependencies());
+        getModuleGraph().forEach((module, targets) -> {
+            sb.append("  ").append(module).append(" -> ").append(targets);
+            Set<String> undeclared = new TreeSet<>(targets);
+            undeclared.removeAll(declared.getOrDefault(module, Set.of()));
+            if (!undeclared.isEmpty()) sb.append(" (undeclared: ").append(undeclared).append(")");
+            sb.append("\n");
+        });
+        sb.append("Module Reports:\n");
+        for (ModuleDepsReport report : moduleReports) {
+            sb.append(report).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package lib.report;
+
+/**
+ * Robert C. Martin's metrics of a package: afferent coupling (Ca), the number of classes outside
+ * the package depending on classes inside it; efferent coupling (Ce), the number of classes inside
+ * the package depending on classes outside it; and the instability, abstractness and distance
+ * from the main sequence derived from them.
+ */
+public final class PackageCoupling {
+    private final String packageName;
+    private final int classCount;
+    private final int abstractClassCount;
+    private final int afferentCoupling;
+    private final int efferentCoupling;
+    /**
+     * Constructs a new PackageCoupling.
+     *
+     * @param packageName        the name of the package
+     * @param classCount         the number of classes of the package
+     * @param abstractClassCount the number of interfaces, annotation types and abstract classes of the package
+     * @param afferentCoupling   the number of classes outside the package depending on it
+     * @param efferentCoupling   the number of classes of the package depending on other packages
+     */
+    public PackageCoupling(String packageName, int classCount, int abstractClassCount, int afferentCoupling, int efferentCoupling) {
+        this.packageName = packageName;
+        this.classCount = classCount;
+        this.abstractClassCount = abstractClassCount;
+        this.afferentCoupling = afferentCoupling;
+        this.efferentCoupling = efferentCoupling;
+    }
+    /**
+     * Retrieves the name of the package.
+     *
+     * @return the package name
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+    /**
+     * Retrieves the number of classes of the package.
+     *
+     * @return the class count
+     */
+    public int getClassCount() {
+        return classCount;
+    }
+    /**
+     * Retrieves the number of abstract classes of the package, interfaces and annotation types included.
+     *
+     * @return the abstract class count
+     */
+    public int getAbstractClassCount() {
+        return abstractClassCount;
+    }
+    /**
+     * Retrieves the afferent coupling (Ca) of the package.
+     *
+     * @return the number of classes outside the package depending on classes inside it
+     */
+    public int getAfferentCoupling() {
+        return afferentCoupling;
+    }
+    /**
+     * Retrieves the efferent coupling (Ce) of the package.
+     *
+     * @return the number of classes inside the package depending on classes outside it
+     */
+    public int getEfferentCoupling() {
+        return efferentCoupling;
+    }
+    /**
+     * Computes the instability of the package, I = Ce / (Ca + Ce).
+     *
+     * @return the instability between 0 (stable) and 1 (unstable), 0 for a package coupled to no other
+     */
+    public double getInstability() {
+        int coupling = afferentCoupling + efferentCoupling;
+        return coupling == 0 ? 0 : (double) efferentCoupling / coupling;
+    }
+    /**
+     * Computes the abstractness of the package, A = abstract classes / classes.
+     *
+     * @return the abstractness between 0 (concrete) and 1 (abstract)
+     */
+    public double getAbstractness() {
+        return classCount == 0 ? 0 : (double) abstractClassCount / classCount;
+    }
+    /**
+     * Computes the distance of the package from the main sequence, D = |A + I - 1|.
+     *
+     * @return the distance between 0 (balanced) and 1 (in the zone of pain or of uselessness)
+     */
+    public double getDistance() {
+        return Math.abs(getAbstractness() + getInstability() - 1);
+    }
+    @Override
+    public String toString() {
+        return String.format("%-40s %7d %8d %5d %5d %6.2f %6.2f %6.2f", packageName.isEmpty() ? "(default)" : packageName,
+                classCount, abstractClassCount, afferentCoupling, efferentCoupling, getInstability(), getAbstractness(), getDistance());
+    }
+}
@@ -1,39 +1,74 @@
 package lib.report;
 
-import java.util.ArrayList;
 import java.util.List;
 /**
  * A report class for storing dependencies of a Java package.
  * This class contains the package name and a list of class dependency reports associated with it.
- * It provides methods to add class reports, retrieve them, and generate a string representation of the report.
+ * Classes without dependencies are kept apart from the class reports, so they are not printed but
+ * still count where every class of the package matters, such as its abstractness.
+ * Reports are immutable once constructed; parallel analyses assemble them with a {@link PackageReportBuilder}.
+ * It provides methods to retrieve the class reports and generate a string representation of the report.
  */
-public class PackageDepsReport {
+public final class PackageDepsReport {
     private final String packageName;
-    private final List<ClassDepsReport> classReports = new ArrayList<>();
+    private final List<ClassDepsReport> classReports;
+    private final List<ClassDepsReport> classesWithoutDependencies;
     /**
      * Constructs a new PackageDepsReport for the specified package.
      *
      * @param packageName the name of the package being analyzed
      */
     public PackageDepsReport(String packageName) {
+        this(packageName, List.of());
+    }
+    /**
+     * Constructs a new PackageDepsReport for the specified package holding the given class reports.
+     *
+     * @param packageName the name of the package being analyzed
+     * @param classReports the class reports of the package, in report order
+     */
+    public PackageDepsReport(String packageName, List<ClassDepsReport> classReports) {
+        this(packageName, classReports, List.of());
+    }
+    /**
+     * Constructs a new PackageDepsReport for the specified package holding the given class reports
+     * and the reports of its classes without dependencies.
+     *
+     * @param packageName                the name of the package being analyzed
+     * @param classReports               the class reports of the package, in report order
+     * @param classesWithoutDependencies the reports of the classes of the package without dependencies
+     */
+    public PackageDepsReport(String packageName, List<ClassDepsReport> classReports,
+                             List<ClassDepsReport> classesWithoutDependencies) {
         this.packageName = packageName;
+        this.classReports = List.copyOf(classReports);
+        this.classesWithoutDependencies = List.copyOf(classesWithoutDependencies);
     }
     /**
-     * Adds a class report to the package report.
+     * Retrieves the name of the package being analyzed.
      *
-     * @param report the ClassDepsReport object to add
+     * @return the package name of the report
      */
-    public void addClassReport(ClassDepsReport report) {
-        classReports.add(report);
+    public String getPackageName() {
+        return packageName;
     }
     /**
      * Retrieves the list of class reports associated with the package.
      *
-     * @return a list of ClassDepsReport objects representing the class reports
+     * @return an unmodifiable list of ClassDepsReport objects representing the class reports
      */
     public List<ClassDepsReport> getClassReports() {
         return classReports;
     }
+    /**
+     * Retrieves the reports of the classes of the package without dependencies, which are left out
+     * of {@link #getClassReports()}. Reports read back from JSON do not carry them.
+     *
+     * @return an unmodifiable list of the class reports without dependencies
+     */
+    public List<ClassDepsReport> getClassesWithoutDependencies() {
+        return classesWithoutDependencies;
+    }
     /**
      * Generates a string representation of the package dependencies report.
      * The output includes the package name and a list of its class reports.
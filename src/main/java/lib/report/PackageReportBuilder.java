@@ -0,0 +1,79 @@
+package lib.report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+/**
+ * A lock-free builder assembling a package report from class reports produced in parallel.
+ * Each file of the package owns one slot, so workers publish their class report as soon as it
+ * is ready without contending on a shared list; the worker filling the last slot learns it from
+ * {@link #add(int, ClassDepsReport)} and seals the report with {@link #build()}.
+ * Classes without dependencies are kept apart and skipped classes are left out, see
+ * {@link ClassDepsReport#isSkipped()}; the others keep the order of the files.
+ */
+public final class PackageReportBuilder {
+    private final String packageName;
+    private final AtomicReferenceArray<ClassDepsReport> slots;
+    private final AtomicInteger pending;
+    /**
+     * Constructs a new PackageReportBuilder for a package of the given number of files.
+     *
+     * @param packageName the name of the package being analyzed
+     * @param fileCount   the number of class reports the package waits for
+     */
+    public PackageReportBuilder(String packageName, int fileCount) {
+        this.packageName = packageName;
+        this.slots = new AtomicReferenceArray<>(fileCount);
+        this.pending = new AtomicInteger(fileCount);
+    }
+    /**
+     * Retrieves the name of the package being built.
+     *
+     * @return the package name
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+    /**
+     * Publishes the class report of a file. Each slot is filled at most once.
+     *
+     * @param index  the position of the file in the package
+     * @param report the class report of the file
+     * @return true if this was the last report the package was waiting for
+     * @throws IllegalStateException if the slot was already filled
+     */
+    public boolean add(int index, ClassDepsReport report) {
+        if (!slots.compareAndSet(index, null, report)) {
+            throw new IllegalStateException("Class report " + index + " of package " + packageName + " added twice");
+        }
+        return pending.decrementAndGet() == 0;
+    }
+    /**
+     * Tells whether every file of the package has published its class report.
+     *
+     * @return true if the report can be built
+     */
+    public boolean isComplete() {
+        return pending.get() == 0;
+    }
+    /**
+     * Seals the package report.
+     *
+     * @return the immutable package report
+     * @throws IllegalStateException if some class reports are still missing
+     */
+    public PackageDepsReport build() {
+        if (!isComplete()) {
+            throw new IllegalStateException(pending.get() + " class reports of package " + packageName + " are missing");
+        }
+        List<ClassDepsReport> classReports = new ArrayList<>(slots.length());
+        List<ClassDepsReport> withoutDependencies = new ArrayList<>();
+        for (int i = 0; i < slots.length(); i++) {
+            ClassDepsReport report = slots.get(i);
+            if (report.isSkipped()) continue;
+            (report.getDependencies().isEmpty() ? withoutDependencies : classReports).add(report);
+        }
+        return new PackageDepsReport(packageName, classReports, withoutDependencies);
+    }
+}
@@ -1,39 +1,75 @@
 package lib.report;
 
-import java.util.ArrayList;
 import java.util.List;
 /**
  * A report class for storing dependencies of a Java project.
  * This class contains the project name and a list of package dependency reports associated with it.
- * It provides methods to add package reports, retrieve them, and generate a string representation of the report.
+ * Packages whose classes have no dependencies are kept apart, like the classes without dependencies
+ * of a {@link PackageDepsReport}.
+ * Reports are immutable once constructed; parallel analyses assemble them with a {@link ProjectReportBuilder}.
+ * It provides methods to retrieve the package reports and generate a string representation of the report.
  */
-public class ProjectDepsReport {
+public final class ProjectDepsReport {
     private final String projectName;
-    private final List<PackageDepsReport> packageReports = new ArrayList<>();
+    private final List<PackageDepsReport> packageReports;
+    private final List<PackageDepsReport> packagesWithoutDependencies;
     /**
      * Constructs a new ProjectDepsReport for the specified project.
      *
      * @param projectName the name of the project being analyzed
      */
     public ProjectDepsReport(String projectName) {
+        this(projectName, List.of());
+    }
+    /**
+     * Constructs a new ProjectDepsReport for the specified project holding the given package reports.
+     *
+     * @param projectName the name of the project being analyzed
+     * @param packageReports the package reports of the project, in report order
+     */
+    public ProjectDepsReport(String projectName, List<PackageDepsReport> packageReports) {
+        this(projectName, packageReports, List.of());
+    }
+    /**
+     * Constructs a new ProjectDepsReport for the specified project holding the given package reports
+     * and the reports of its packages whose classes have no dependencies.
+     *
+     * @param projectName                 the name of the project being analyzed
+     * @param packageReports              the package reports of the project, in report order
+     * @param packagesWithoutDependencies the reports of the packages whose classes have no dependencies
+     */
+    public ProjectDepsReport(String projectName, List<PackageDepsReport> packageReports,
+                             List<PackageDepsReport> packagesWithoutDependencies) {
         this.projectName = projectName;
+        this.packageReports = List.copyOf(packageReports);
+        this.packagesWithoutDependencies = List.copyOf(packagesWithoutDependencies);
     }
     /**
-     * Adds a package report to the project report.
+     * Retrieves the name of the project being analyzed.
      *
-     * @param report the PackageDepsReport object to add
+     * @return the project name of the report
      */
-    public void addPackageReport(PackageDepsReport report) {
-        packageReports.add(report);
+    public String getProjectName() {
+        return projectName;
     }
     /**
      * Retrieves the list of package reports associated with the project.
      *
-     * @return a list of PackageDepsReport objects representing the package reports
+     * @return an unmodifiable list of PackageDepsReport objects representing the package reports
      */
     public List<PackageDepsReport> getPackageReports() {
         return packageReports;
     }
+    /**
+     * Retrieves the reports of the packages whose classes have no dependencies, which are left out
+     * of {@link #getPackageReports()}. Their classes are listed by
+     * {@link PackageDepsReport#getClassesWithoutDependencies()}.
+     *
+     * @return an unmodifiable list of the package reports without dependencies
+     */
+    public List<PackageDepsReport> getPackagesWithoutDependencies() {
+        return packagesWithoutDependencies;
+    }
     /**
      * Generates a string representation of the project dependencies report.
      * The output includes the project name and a list of its package reports.
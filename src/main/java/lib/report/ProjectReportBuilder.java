@@ -0,0 +1,51 @@
+package lib.report;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentSkipListMap;
+/**
+ * A lock-free builder assembling a project report from package reports produced in parallel.
+ * Workers add each package report as soon as the package is done; the reports are kept in a
+ * concurrent map sorted by package folder, so {@link #build()} only seals them in folder order
+ * instead of merging them at the end. Packages without class reports are kept apart, see
+ * {@link ProjectDepsReport#getPackagesWithoutDependencies()}, and empty packages are left out.
+ */
+public final class ProjectReportBuilder {
+    private final String projectName;
+    private final ConcurrentSkipListMap<Path, PackageDepsReport> packageReports = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Path, PackageDepsReport> packagesWithoutDependencies = new ConcurrentSkipListMap<>();
+    /**
+     * Constructs a new ProjectReportBuilder for the specified project.
+     *
+     * @param projectName the name of the project being analyzed
+     */
+    public ProjectReportBuilder(String projectName) {
+        this.projectName = projectName;
+    }
+    /**
+     * Adds the report of a package. Safe to call from any thread.
+     *
+     * @param folder the folder of the package, which orders the reports
+     * @param report the package report
+     * @throws IllegalStateException if a report was already added for the folder
+     */
+    public void add(Path folder, PackageDepsReport report) {
+        ConcurrentSkipListMap<Path, PackageDepsReport> reports = packageReports;
+        if (report.getClassReports().isEmpty()) {
+            if (report.getClassesWithoutDependencies().isEmpty()) return;
+            reports = packagesWithoutDependencies;
+        }
+        if (reports.putIfAbsent(folder, report) != null) {
+            throw new IllegalStateException("Package " + folder + " added twice");
+        }
+    }
+    /**
+     * Seals the project report with the packages added so far.
+     *
+     * @return the immutable project report, packages sorted by folder
+     */
+    public ProjectDepsReport build() {
+        return new ProjectDepsReport(projectName, new ArrayList<>(packageReports.values()),
+                new ArrayList<>(packagesWithoutDependencies.values()));
+    }
+}
@@ -0,0 +1,214 @@
+package lib.report;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import lib.utils.AsyncUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts dependency reports to and from Vert.x JSON objects.
+ * This is the wire format used on the event bus and the HTTP endpoint,
+ * so the conversion is lossless: every field of every dependency is kept.
+ */
+public final class ReportJson {
+
+    private ReportJson() {
+    }
+
+    /**
+     * Converts a single dependency to JSON.
+     *
+     * @param dependency the dependency to convert
+     * @return the JSON representation of the dependency
+     */
+    public static JsonObject toJson(AsyncUtils dependency) {
+        return new JsonObject()
+                .put("sourceType", dependency.getSourceType())
+                .put("targetType", dependency.getTargetType())
+                .put("dependencyType", dependency.getDependencyType().name())
+                .put("codeSnippet", dependency.getCodeSnippet())
+                .put("lineNumber", dependency.getLineNumber());
+    }
+
+    /**
+     * Converts a class report to JSON.
+     *
+     * @param report the class report to convert
+     * @return the JSON representation of the report
+     */
+    public static JsonObject toJson(ClassDepsReport report) {
+        JsonArray dependencies = new JsonArray();
+        for (AsyncUtils dependency : report.getDependencies()) dependencies.add(toJson(dependency));
+        return new JsonObject()
+                .put("className", report.getClassName())
+                .put("abstract", report.isAbstract())
+                .put("dependencies", dependencies);
+    }
+
+    /**
+     * Converts a package report to JSON.
+     *
+     * @param report the package report to convert
+     * @return the JSON representation of the report
+     */
+    public static JsonObject toJson(PackageDepsReport report) {
+        JsonArray classReports = new JsonArray();
+        for (ClassDepsReport classReport : report.getClassReports()) classReports.add(toJson(classReport));
+        JsonArray withoutDependencies = new JsonArray();
+        for (ClassDepsReport classReport : report.getClassesWithoutDependencies()) withoutDependencies.add(toJson(classReport));
+        return new JsonObject()
+                .put("packageName", report.getPackageName())
+                .put("classReports", classReports)
+                .put("classesWithoutDependencies", withoutDependencies);
+    }
+
+    /**
+     * Converts a project report to JSON.
+     *
+     * @param report the project report to convert
+     * @return the JSON representation of the report
+     */
+    public static JsonObject toJson(ProjectDepsReport report) {
+        return new JsonObject()
+                .put("projectName", report.getProjectName())
+                .put("packageReports", toJson(report.getPackageReports()))
+                .put("packagesWithoutDependencies", toJson(report.getPackagesWithoutDependencies()));
+    }
+
+    /**
+     * Converts a module report to JSON.
+     *
+     * @param report the module report to convert
+     * @return the JSON representation of the report
+     */
+    public static JsonObject toJson(ModuleDepsReport report) {
+        return new JsonObject()
+                .put("moduleName", report.getModuleName())
+                .put("declaredDependencies", new JsonArray(new ArrayList<>(report.getDeclaredDependencies())))
+                .put("packageReports", toJson(report.getPackageReports()))
+                .put("packagesWithoutDependencies", toJson(report.getPackagesWithoutDependencies()));
+    }
+
+    private static JsonArray toJson(List<PackageDepsReport> reports) {
+        JsonArray packageReports = new JsonArray();
+        for (PackageDepsReport packageReport : reports) packageReports.add(toJson(packageReport));
+        return packageReports;
+    }
+
+    /**
+     * Converts a multi-module report to JSON, including its module graph.
+     *
+     * @param report the multi-module report to convert
+     * @return the JSON representation of the report
+     */
+    public static JsonObject toJson(MultiModuleReport report) {
+        JsonArray moduleReports = new JsonArray();
+        for (ModuleDepsReport moduleReport : report.getModuleReports()) moduleReports.add(toJson(moduleReport));
+        JsonObject moduleGraph = new JsonObject();
+        report.getModuleGraph().forEach((module, targets) -> moduleGraph.put(module, new JsonArray(new ArrayList<>(targets))));
+        return new JsonObject()
+                .put("projectName", report.getProjectName())
+                .put("moduleGraph", moduleGraph)
+                .put("moduleReports", moduleReports);
+    }
+
+    /**
+     * Converts a coupling report to JSON, including the derived package metrics.
+     *
+     * @param report the coupling report to convert
+     * @return the JSON representation of the report
+     */
+    public static JsonObject toJson(CouplingReport report) {
+        JsonArray packages = new JsonArray();
+        for (PackageCoupling coupling : report.getPackages()) {
+            packages.add(new JsonObject()
+                    .put("packageName", coupling.getPackageName())
+                    .put("classCount", coupling.getClassCount())
+                    .put("abstractClassCount", coupling.getAbstractClassCount())
+                    .put("afferentCoupling", coupling.getAfferentCoupling())
+                    .put("efferentCoupling", coupling.getEfferentCoupling())
+                    .put("instability", coupling.getInstability())
+                    .put("abstractness", coupling.getAbstractness())
+                    .put("distance", coupling.getDistance()));
+        }
+        JsonArray classes = new JsonArray();
+        for (ClassCoupling coupling : report.getClasses()) {
+            classes.add(new JsonObject()
+                    .put("className", coupling.getClassName())
+                    .put("packageName", coupling.getPackageName())
+                    .put("abstract", coupling.isAbstract())
+                    .put("fanIn", coupling.getFanIn())
+                    .put("fanOut", coupling.getFanOut()));
+        }
+        return new JsonObject()
+                .put("packages", packages)
+                .put("classes", classes);
+    }
+
+    /**
+     * Reads a dependency from JSON.
+     *
+     * @param json the JSON representation of the dependency
+     * @return the dependency
+     */
+    public static AsyncUtils dependencyFromJson(JsonObject json) {
+        return new AsyncUtils(
+                json.getString("sourceType"),
+                json.getString("targetType"),
+                AsyncUtils.DependencyType.valueOf(json.getString("dependencyType")),
+                json.getString("codeSnippet"),
+                json.getInteger("lineNumber", -1));
+    }
+
+    /**
+     * Reads a class report from JSON.
+     *
+     * @param json the JSON representation of the report
+     * @return the class report
+     */
+    public static ClassDepsReport classReportFromJson(JsonObject json) {
+        ClassDepsReport report = new ClassDepsReport(json.getString("className"));
+        report.setAbstract(json.getBoolean("abstract", false));
+        JsonArray dependencies = json.getJsonArray("dependencies", new JsonArray());
+        for (int i = 0; i < dependencies.size(); i++) report.addDependency(dependencyFromJson(dependencies.getJsonObject(i)));
+        return report;
+    }
+
+    /**
+     * Reads a package report from JSON.
+     *
+     * @param json the JSON representation of the report
+     * @return the package report
+     */
+    public static PackageDepsReport packageReportFromJson(JsonObject json) {
+        return new PackageDepsReport(json.getString("packageName"),
+                classReportsFromJson(json.getJsonArray("classReports", new JsonArray())),
+                classReportsFromJson(json.getJsonArray("classesWithoutDependencies", new JsonArray())));
+    }
+
+    private static List<ClassDepsReport> classReportsFromJson(JsonArray classReports) {
+        List<ClassDepsReport> reports = new ArrayList<>(classReports.size());
+        for (int i = 0; i < classReports.size(); i++) reports.add(classReportFromJson(classReports.getJsonObject(i)));
+        return reports;
+    }
+
+    /**
+     * Reads a project report from JSON.
+     *
+     * @param json the JSON representation of the report
+     * @return the project report
+     */
+    public static ProjectDepsReport projectReportFromJson(JsonObject json) {
+        return new ProjectDepsReport(json.getString("projectName"),
+                packageReportsFromJson(json.getJsonArray("packageReports", new JsonArray())),
+                packageReportsFromJson(json.getJsonArray("packagesWithoutDependencies", new JsonArray())));
+    }
+
+    private static List<PackageDepsReport> packageReportsFromJson(JsonArray packageReports) {
+        List<PackageDepsReport> reports = new ArrayList<>(packageReports.size());
+        for (int i = 0; i < packageReports.size(); i++) reports.add(packageReportFromJson(packageReports.getJsonObject(i)));
+        return reports;
+    }
+}
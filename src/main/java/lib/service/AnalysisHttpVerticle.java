@@ -0,0 +1,75 @@
+package lib.service;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A Vert.x Verticle exposing the analysis service over a local HTTP endpoint.
+ * Requests are forwarded to the event bus, so they share the cache and the in-flight
+ * coalescing of the {@link AnalysisServiceVerticle} instances:
+ * <ul>
+ *     <li>{@code GET /class?path=...}</li>
+ *     <li>{@code GET /package?path=...}</li>
+ *     <li>{@code GET /project?path=...}</li>
+ *     <li>{@code GET /stats}</li>
+ * </ul>
+ */
+public class AnalysisHttpVerticle extends AbstractVerticle {
+    private final String host;
+    private final int port;
+
+    /**
+     * Constructs a new AnalysisHttpVerticle.
+     *
+     * @param host the interface to bind, usually "localhost"
+     * @param port the port to listen on
+     */
+    public AnalysisHttpVerticle(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Starts the HTTP server.
+     *
+     * @param startPromise a promise that is completed when the server is listening
+     */
+    @Override
+    public void start(Promise<Void> startPromise) {
+        vertx.createHttpServer()
+                .requestHandler(this::handle)
+                .listen(port, host)
+                .<Void>mapEmpty()
+                .onComplete(startPromise);
+    }
+
+    /**
+     * Routes an HTTP request to the matching event-bus address.
+     *
+     * @param request the HTTP request
+     */
+    private void handle(HttpServerRequest request) {
+        String address;
+        switch (request.path()) {
+            case "/class": address = AnalysisServiceVerticle.ADDRESS_CLASS; break;
+            case "/package": address = AnalysisServiceVerticle.ADDRESS_PACKAGE; break;
+            case "/project": address = AnalysisServiceVerticle.ADDRESS_PROJECT; break;
+            case "/stats": address = AnalysisServiceVerticle.ADDRESS_STATS; break;
+            default:
+                request.response().setStatusCode(404).end();
+                return;
+        }
+        JsonObject body = new JsonObject().put("path", request.getParam("path"));
+        vertx.eventBus().<JsonObject>request(address, body)
+                .onSuccess(reply -> request.response()
+                        .putHeader("Content-Type", "application/json")
+                        .end(reply.body().encode()))
+                .onFailure(err -> request.response()
+                        .setStatusCode(err instanceof ReplyException && ((ReplyException) err).failureCode() > 0
+                                ? ((ReplyException) err).failureCode() : 500)
+                        .end(err.getMessage()));
+    }
+}
@@ -0,0 +1,43 @@
+package lib.service;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import lib.metrics.AnalysisMetrics;
+
+/**
+ * Main class for running the dependency analysis as a long-running service.
+ * It deploys one {@link AnalysisServiceVerticle} instance per core, all sharing the same
+ * result cache, and optionally a local HTTP endpoint. Unlike StartReport, Vert.x is kept
+ * running until the process is stopped.
+ * <p>
+ * Usage: {@code AnalysisServer [--http <port>] [--cache <entries>]}
+ */
+public class AnalysisServer {
+    private static final int DEFAULT_CACHE_ENTRIES = 256;
+
+    public static void main(String[] args) {
+        int httpPort = -1;
+        int cacheEntries = DEFAULT_CACHE_ENTRIES;
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("--http")) httpPort = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--cache")) cacheEntries = Integer.parseInt(args[++i]);
+        }
+
+        Vertx vertx = Vertx.vertx();
+        CoalescingCache<String, JsonObject> cache = new CoalescingCache<>(cacheEntries);
+        AnalysisMetrics metrics = new AnalysisMetrics();
+        int instances = Runtime.getRuntime().availableProcessors();
+        int port = httpPort;
+
+        vertx.deployVerticle(() -> new AnalysisServiceVerticle(cache, metrics), new DeploymentOptions().setInstances(instances))
+                .compose(id -> port > 0 ? vertx.deployVerticle(new AnalysisHttpVerticle("localhost", port)) : Future.succeededFuture(id))
+                .onSuccess(id -> System.out.println("Analysis service started with " + instances + " instances"
+                        + (port > 0 ? ", HTTP on localhost:" + port : "")))
+                .onFailure(err -> {
+                    System.err.println("Failed to start the analysis service: " + err.getMessage());
+                    vertx.close();
+                });
+    }
+}
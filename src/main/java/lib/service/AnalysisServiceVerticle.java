@@ -0,0 +1,170 @@
+package lib.service;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import lib.analyser.DependencyAnalyserLib;
+import lib.metrics.AnalysisMetrics;
+import lib.report.ReportJson;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.stream.Stream;
+
+/**
+ * A long-running Vert.x Verticle that answers dependency analysis requests on the event bus.
+ * Each request carries a JSON body {@code {"path": "..."}} (or the path as a plain string)
+ * and is answered with the JSON form of the corresponding report, see {@link ReportJson}.
+ * Several instances can be deployed side by side: they share one {@link CoalescingCache},
+ * so identical concurrent requests run once and repeated requests are served from memory.
+ */
+public class AnalysisServiceVerticle extends AbstractVerticle {
+    public static final String ADDRESS_CLASS = "analyser.class";
+    public static final String ADDRESS_PACKAGE = "analyser.package";
+    public static final String ADDRESS_PROJECT = "analyser.project";
+    public static final String ADDRESS_STATS = "analyser.stats";
+    public static final String ADDRESS_INVALIDATE = "analyser.invalidate";
+
+    /**
+     * The kinds of analysis the service can perform.
+     */
+    public enum Kind {
+        CLASS,
+        PACKAGE,
+        PROJECT
+    }
+
+    private final CoalescingCache<String, JsonObject> cache;
+    private final AnalysisMetrics metrics;
+    private DependencyAnalyserLib analyser;
+
+    /**
+     * Constructs a new AnalysisServiceVerticle.
+     *
+     * @param cache   the result cache shared by all instances
+     * @param metrics the metrics shared by all instances
+     */
+    public AnalysisServiceVerticle(CoalescingCache<String, JsonObject> cache, AnalysisMetrics metrics) {
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Registers the event-bus consumers of this instance.
+     *
+     * @param startPromise a promise that is completed once the consumers are registered
+     */
+    @Override
+    public void start(Promise<Void> startPromise) {
+        analyser = new DependencyAnalyserLib(vertx, metrics);
+        vertx.eventBus().<Object>consumer(ADDRESS_CLASS, msg -> handle(msg, Kind.CLASS));
+        vertx.eventBus().<Object>consumer(ADDRESS_PACKAGE, msg -> handle(msg, Kind.PACKAGE));
+        vertx.eventBus().<Object>consumer(ADDRESS_PROJECT, msg -> handle(msg, Kind.PROJECT));
+        vertx.eventBus().<Object>consumer(ADDRESS_STATS, this::handleStats);
+        vertx.eventBus().<Object>consumer(ADDRESS_INVALIDATE, this::handleInvalidate);
+        startPromise.complete();
+    }
+
+    /**
+     * Handles an analysis request, going through the shared cache.
+     *
+     * @param message the request message
+     * @param kind    the kind of analysis requested
+     */
+    private void handle(Message<Object> message, Kind kind) {
+        Path path = parsePath(message.body());
+        if (path == null) {
+            message.fail(400, "Missing path");
+            return;
+        }
+        String key = kind + ":" + path;
+        vertx.<String>executeBlocking(promise -> promise.complete(fingerprint(path, kind)), false)
+                .compose(fingerprint -> cache.get(key, fingerprint, () -> analyse(kind, path)))
+                .onSuccess(message::reply)
+                .onFailure(err -> message.fail(500, err.getMessage()));
+    }
+
+    /**
+     * Runs the analysis for a request and converts the report to JSON.
+     *
+     * @param kind the kind of analysis
+     * @param path the path to analyse
+     * @return a future containing the JSON report
+     */
+    private Future<JsonObject> analyse(Kind kind, Path path) {
+        switch (kind) {
+            case CLASS:
+                return analyser.getClassDependencies(path).map(ReportJson::toJson);
+            case PACKAGE:
+                return analyser.getPackageDependencies(path).map(ReportJson::toJson);
+            default:
+                return analyser.getProjectDependencies(path).map(ReportJson::toJson);
+        }
+    }
+
+    /**
+     * Replies with the cache statistics and the metrics summary.
+     *
+     * @param message the request message
+     */
+    private void handleStats(Message<Object> message) {
+        message.reply(new JsonObject()
+                .put("hits", cache.getHits())
+                .put("misses", cache.getMisses())
+                .put("coalesced", cache.getCoalesced())
+                .put("cached", cache.size())
+                .put("metrics", metrics.summary()));
+    }
+
+    /**
+     * Drops every cached result.
+     *
+     * @param message the request message
+     */
+    private void handleInvalidate(Message<Object> message) {
+        cache.invalidateAll();
+        message.reply(new JsonObject().put("invalidated", true));
+    }
+
+    /**
+     * Extracts the requested path from a message body.
+     *
+     * @param body a JSON object with a "path" field, or the path as a string
+     * @return the absolute normalised path, or null if none was given
+     */
+    private Path parsePath(Object body) {
+        String path = body instanceof JsonObject ? ((JsonObject) body).getString("path") : body instanceof String ? (String) body : null;
+        if (path == null || path.isBlank()) return null;
+        return Path.of(path).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Computes a cheap fingerprint of the inputs of a request from file sizes and modification times.
+     * Only metadata is read, which costs far less than parsing the files again.
+     *
+     * @param path the requested path
+     * @param kind the kind of analysis, which determines which files are inputs
+     * @return the fingerprint, or a unique value if the inputs cannot be listed
+     */
+    private static String fingerprint(Path path, Kind kind) {
+        int depth = kind == Kind.PROJECT ? Integer.MAX_VALUE : 1;
+        long hash = 17;
+        long count = 0;
+        try (Stream<Path> files = kind == Kind.CLASS ? Stream.of(path) : Files.walk(path, depth)) {
+            for (Path file : (Iterable<Path>) files.filter(p -> p.toString().endsWith(".java")).sorted()::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                hash = 31 * hash + file.hashCode();
+                hash = 31 * hash + attributes.size();
+                hash = 31 * hash + attributes.lastModifiedTime().toMillis();
+                count++;
+            }
+        } catch (IOException | RuntimeException e) {
+            return "unavailable-" + System.nanoTime();
+        }
+        return count + "-" + Long.toHexString(hash);
+    }
+}
@@ -0,0 +1,142 @@
+package lib.service;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A result cache that coalesces concurrent identical requests onto a single in-flight computation.
+ * Completed results are kept in a size-bounded LRU map together with a fingerprint of their
+ * inputs, so a repeated request is answered from memory as long as the inputs did not change.
+ * The cache is thread-safe and is meant to be shared by all the verticle instances of the service.
+ *
+ * @param <K> the type of the request keys
+ * @param <V> the type of the cached results
+ */
+public class CoalescingCache<K, V> {
+    private final Map<K, Future<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<K, Entry<V>> completed;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Constructs a new CoalescingCache.
+     *
+     * @param maxEntries the maximum number of completed results to keep
+     */
+    public CoalescingCache(int maxEntries) {
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Retrieves the result for a key, computing it at most once for all concurrent callers.
+     *
+     * @param key         the request key
+     * @param fingerprint a fingerprint of the inputs; a cached result is reused only if it matches
+     * @param computation the computation to run on a miss
+     * @return a future completed with the cached, shared or freshly computed result
+     */
+    public Future<V> get(K key, String fingerprint, Supplier<Future<V>> computation) {
+        Entry<V> cached;
+        synchronized (completed) {
+            cached = completed.get(key);
+        }
+        if (cached != null && cached.fingerprint.equals(fingerprint)) {
+            hits.increment();
+            return Future.succeededFuture(cached.value);
+        }
+
+        Promise<V> promise = Promise.promise();
+        Future<V> existing = inFlight.putIfAbsent(key, promise.future());
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        misses.increment();
+
+        Future<V> result;
+        try {
+            result = computation.get();
+        } catch (Exception e) {
+            result = Future.failedFuture(e);
+        }
+        result.onComplete(ar -> {
+            if (ar.succeeded()) {
+                synchronized (completed) {
+                    completed.put(key, new Entry<>(fingerprint, ar.result()));
+                }
+            }
+            inFlight.remove(key);
+            promise.handle(ar);
+        });
+        return promise.future();
+    }
+
+    /**
+     * Removes every completed result. In-flight computations are not affected.
+     */
+    public void invalidateAll() {
+        synchronized (completed) {
+            completed.clear();
+        }
+    }
+
+    /**
+     * Retrieves the number of requests answered from the completed results.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of requests that started a new computation.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves the number of requests that joined a computation already in flight.
+     *
+     * @return the number of coalesced requests
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Retrieves the number of completed results currently cached.
+     *
+     * @return the cache size
+     */
+    public int size() {
+        synchronized (completed) {
+            return completed.size();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final String fingerprint;
+        private final V value;
+
+        private Entry(String fingerprint, V value) {
+            this.fingerprint = fingerprint;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package lib.shard;
+
+import io.vertx.core.json.JsonObject;
+import lib.analyser.DependencyAnalyserLib;
+import lib.report.PackageDepsReport;
+import lib.report.ProjectDepsReport;
+import lib.report.ProjectReportBuilder;
+import lib.report.ReportJson;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the analysis of a project across several worker processes on the same machine.
+ * The package directories found by {@link DependencyAnalyserLib#findPackageDirectories(Path)}
+ * are distributed across the shards so that each one gets a similar number of source files;
+ * every shard runs a {@link ShardWorker} in its own JVM and streams the package reports back
+ * over a pipe, and the coordinator merges them into a single ProjectDepsReport as they arrive.
+ * Heap and GC pressure are therefore bounded per process instead of per project.
+ */
+public class ShardCoordinator {
+    private final int workers;
+    private final List<String> workerJvmOptions;
+
+    /**
+     * Constructs a new ShardCoordinator.
+     *
+     * @param workers          the number of worker processes to start
+     * @param workerJvmOptions extra JVM options for each worker, e.g. "-Xmx512m"
+     */
+    public ShardCoordinator(int workers, List<String> workerJvmOptions) {
+        this.workers = Math.max(1, workers);
+        this.workerJvmOptions = new ArrayList<>(workerJvmOptions);
+    }
+
+    /**
+     * Analyses a project with one worker process per shard and merges the partial reports.
+     *
+     * @param projectSrcFolder the path to the project folder
+     * @return the merged project dependency report
+     * @throws IOException          if a worker cannot be started or exits with an error
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the workers
+     */
+    public ProjectDepsReport analyse(Path projectSrcFolder) throws IOException, InterruptedException {
+        String projectName = projectSrcFolder.getFileName() != null
+                ? projectSrcFolder.getFileName().toString()
+                : "UnknownProject";
+        ProjectReportBuilder projectReport = new ProjectReportBuilder(projectName);
+
+        List<List<Path>> shards = shard(DependencyAnalyserLib.findPackageDirectories(projectSrcFolder));
+        List<Process> processes = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+        List<IOException> errors = new ArrayList<>();
+        try {
+            for (List<Path> shard : shards) {
+                if (shard.isEmpty()) continue;
+                Process process = startWorker(shard);
+                processes.add(process);
+                Thread reader = new Thread(() -> readReports(process, shard, projectReport, errors), "shard-reader-" + processes.size());
+                reader.start();
+                readers.add(reader);
+            }
+            for (Thread reader : readers) reader.join();
+            for (Process process : processes) {
+                int status = process.waitFor();
+                if (status != 0) throw new IOException("Shard worker " + process.pid() + " exited with status " + status);
+            }
+        } finally {
+            for (Process process : processes) process.destroy();
+        }
+        synchronized (errors) {
+            if (!errors.isEmpty()) throw errors.get(0);
+        }
+        return projectReport.build();
+    }
+
+    /**
+     * Distributes package directories across the shards, largest first, always to the
+     * shard with the fewest source files so far.
+     *
+     * @param packageDirs the package directories of the project
+     * @return one list of package directories per shard
+     */
+    private List<List<Path>> shard(List<Path> packageDirs) {
+        List<List<Path>> shards = new ArrayList<>();
+        long[] load = new long[workers];
+        for (int i = 0; i < workers; i++) shards.add(new ArrayList<>());
+
+        // Each directory is listed once, not on every comparison of the sort
+        Map<Path, Long> fileCounts = new HashMap<>();
+        for (Path dir : packageDirs) fileCounts.put(dir, countJavaFiles(dir));
+        List<Path> sorted = new ArrayList<>(packageDirs);
+        sorted.sort(Comparator.comparingLong(fileCounts::get).reversed());
+        for (Path dir : sorted) {
+            int lightest = 0;
+            for (int i = 1; i < workers; i++) if (load[i] < load[lightest]) lightest = i;
+            shards.get(lightest).add(dir);
+            load[lightest] += Math.max(1, fileCounts.get(dir));
+        }
+        return shards;
+    }
+
+    /**
+     * Starts a worker JVM with the same Java executable and class path as this process.
+     *
+     * @param shard the package directories assigned to the worker
+     * @return the worker process
+     * @throws IOException if the process cannot be started
+     */
+    private Process startWorker(List<Path> shard) throws IOException {
+        String java = ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(workerJvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        for (Path dir : shard) command.add(dir.toAbsolutePath().toString());
+        return new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /**
+     * Reads the package reports streamed by a worker and adds them to the project report
+     * without locking, so the readers of all shards merge concurrently.
+     * A malformed or unexpected report is recorded as an error, and the rest of the output is
+     * still drained, so the worker never blocks on a full pipe. A worker reporting fewer
+     * packages than it was given is an error too.
+     *
+     * @param process       the worker process
+     * @param shard         the package directories of the worker, in the order it reports them
+     * @param projectReport the builder of the project report
+     * @param errors        the list collecting the errors of the reader threads
+     */
+    private void readReports(Process process, List<Path> shard, ProjectReportBuilder projectReport, List<IOException> errors) {
+        IOException error = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int index = 0;
+            while ((line = reader.readLine()) != null) {
+                // After an error the output is only drained
+                if (error != null || !line.startsWith(ShardWorker.REPORT_PREFIX)) continue;
+                if (index >= shard.size()) {
+                    error = new IOException("Shard worker " + process.pid() + " sent more reports than packages");
+                    continue;
+                }
+                try {
+                    PackageDepsReport packageReport = ReportJson.packageReportFromJson(
+                            new JsonObject(line.substring(ShardWorker.REPORT_PREFIX.length())));
+                    projectReport.add(shard.get(index++), packageReport);
+                } catch (RuntimeException e) {
+                    error = new IOException("Shard worker " + process.pid() + " sent a malformed report: " + e.getMessage(), e);
+                }
+            }
+            if (error == null && index < shard.size()) {
+                error = new IOException("Shard worker " + process.pid() + " sent " + index + " reports for " + shard.size() + " packages");
+            }
+        } catch (IOException e) {
+            if (error == null) error = e;
+        }
+        if (error != null) {
+            synchronized (errors) {
+                errors.add(error);
+            }
+        }
+    }
+
+    /**
+     * Counts the Java source files directly inside a directory.
+     *
+     * @param dir the directory
+     * @return the number of ".java" files
+     */
+    private static long countJavaFiles(Path dir) {
+        File[] files = dir.toFile().listFiles((d, name) -> name.endsWith(".java"));
+        return files == null ? 0 : files.length;
+    }
+
+    /**
+     * Runs a sharded analysis from the command line.
+     * Usage: {@code ShardCoordinator <projectSrcFolder> [--workers <n>] [--worker-heap <size>]}
+     *
+     * @param args the command-line arguments
+     * @throws Exception if the analysis fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: ShardCoordinator <projectSrcFolder> [--workers <n>] [--worker-heap <size>]");
+            System.exit(2);
+        }
+        int workers = Runtime.getRuntime().availableProcessors();
+        List<String> jvmOptions = new ArrayList<>();
+        for (int i = 1; i < args.length - 1; i++) {
+            if (args[i].equals("--workers")) workers = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--worker-heap")) jvmOptions.add("-Xmx" + args[++i]);
+        }
+        long start = System.nanoTime();
+        ProjectDepsReport report = new ShardCoordinator(workers, jvmOptions).analyse(Path.of(args[0]));
+        System.out.println(report);
+        System.out.printf("Analysed %d packages with %d workers in %.1f ms%n",
+                report.getPackageReports().size(), workers, (System.nanoTime() - start) / 1e6);
+    }
+}
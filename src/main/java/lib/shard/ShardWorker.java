@@ -0,0 +1,53 @@
+package lib.shard;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import lib.analyser.DependencyAnalyserLib;
+import lib.report.ReportJson;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+/**
+ * Entry point of a worker process started by the {@link ShardCoordinator}.
+ * The worker analyses the package directories given as arguments and streams each
+ * package report back on its standard output as one JSON line prefixed by
+ * {@link #REPORT_PREFIX}, as soon as the package is done. Every directory gets a line,
+ * in argument order, so the coordinator can tell which directory a report belongs to.
+ * Diagnostics go to standard error, which the coordinator inherits.
+ */
+public class ShardWorker {
+    /**
+     * The prefix of the standard output lines that carry a package report.
+     */
+    public static final String REPORT_PREFIX = "REPORT ";
+
+    public static void main(String[] args) {
+        Vertx vertx = Vertx.vertx();
+        DependencyAnalyserLib analyser = new DependencyAnalyserLib(vertx);
+        PrintStream out = System.out;
+
+        Future<Void> chain = Future.succeededFuture();
+        for (String arg : args) {
+            Path packageDir = Path.of(arg);
+            chain = chain.compose(v -> analyser.getPackageDependencies(packageDir)
+                    .onSuccess(report -> {
+                        synchronized (out) {
+                            out.println(REPORT_PREFIX + ReportJson.toJson(report).encode());
+                            out.flush();
+                        }
+                    })
+                    .<Void>mapEmpty());
+        }
+
+        chain.onComplete(result -> {
+            int status = 0;
+            if (result.failed()) {
+                System.err.println("Shard worker failed: " + result.cause().getMessage());
+                status = 1;
+            }
+            int exitStatus = status;
+            vertx.close().onComplete(v -> System.exit(exitStatus));
+        });
+    }
+}
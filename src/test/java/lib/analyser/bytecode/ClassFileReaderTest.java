@@ -0,0 +1,110 @@
+package lib.analyser.bytecode;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Reads a fixture compiled at test time with the JDK compiler, covering the parts of the class file
+ * format the reader decodes by hand: member flags, two-slot constants and switch padding.
+ */
+class ClassFileReaderTest {
+    private static final String FIXTURE = String.join("\n",
+            "package fixture;",
+            "public class Fixture implements Comparable<Fixture> {",
+            "    volatile java.math.BigDecimal amount;",
+            "    java.math.BigInteger count;",
+            "    long big = 123456789012345L;",
+            "    double ratio = 3.5e300;",
+            "    public int compareTo(Fixture other) { return 0; }",
+            "    Object pick(int i) {",
+            "        switch (i) {",
+            "            case 0: return new java.util.ArrayList<String>();",
+            "            case 1: return new java.util.HashMap<String, String>();",
+            "            case 2: return new java.util.LinkedList<String>();",
+            "            default: break;",
+            "        }",
+            "        switch (i) {",
+            "            case 10: return new java.util.TreeMap<String, String>();",
+            "            case 1000: return new java.util.ArrayDeque<String>();",
+            "            case 100000: return new java.util.concurrent.ConcurrentHashMap<String, String>();",
+            "            default: break;",
+            "        }",
+            "        return new StringBuilder();",
+            "    }",
+            "}",
+            "");
+
+    @TempDir
+    static Path workDir;
+    private static ClassFileReader reader;
+
+    @BeforeAll
+    static void compileFixture() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null, "The tests need a JDK");
+        Path source = workDir.resolve("fixture/Fixture.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, FIXTURE);
+        int status = compiler.run(null, null, null, "-g", "-d", workDir.toString(), source.toString());
+        assertEquals(0, status, "The fixture does not compile");
+        reader = new ClassFileReader(Files.readAllBytes(workDir.resolve("fixture/Fixture.class")));
+    }
+
+    @Test
+    void readsClassHeader() {
+        assertEquals("fixture.Fixture", reader.getClassName());
+        assertEquals("java.lang.Object", reader.getSuperName());
+        assertEquals(List.of("java.lang.Comparable"), reader.getInterfaceNames());
+        assertFalse(reader.isInterface());
+        assertFalse(reader.isAbstract());
+    }
+
+    @Test
+    void volatileFieldsAreNotSynthetic() {
+        ClassFileReader.Member amount = member(reader.getFields(), "amount");
+        assertEquals("Ljava/math/BigDecimal;", amount.getDescriptor());
+        assertFalse(amount.isSynthetic());
+        for (ClassFileReader.Member field : reader.getFields()) assertFalse(field.isSynthetic(), field.getName());
+    }
+
+    @Test
+    void bridgeMethodsAreSynthetic() {
+        List<ClassFileReader.Member> compareTo = reader.getMethods().stream()
+                .filter(m -> m.getName().equals("compareTo"))
+                .collect(Collectors.toList());
+        assertEquals(2, compareTo.size());
+        for (ClassFileReader.Member method : compareTo) {
+            assertEquals(method.getDescriptor().equals("(Ljava/lang/Object;)I"), method.isSynthetic(), method.getDescriptor());
+        }
+    }
+
+    @Test
+    void decodesCodeAcrossSwitchesAndTwoSlotConstants() {
+        List<String> instantiated = reader.getInstantiations().stream()
+                .map(ClassFileReader.Instantiation::getTypeName)
+                .collect(Collectors.toList());
+        assertEquals(List.of("java.util.ArrayList", "java.util.HashMap", "java.util.LinkedList",
+                "java.util.TreeMap", "java.util.ArrayDeque", "java.util.concurrent.ConcurrentHashMap",
+                "java.lang.StringBuilder"), instantiated);
+        // The constructor is the first method in the fixture, the instantiations start on line 10
+        assertEquals(10, reader.getInstantiations().get(0).getLine());
+        assertEquals(21, reader.getInstantiations().get(6).getLine());
+        assertTrue(reader.getReferencedTypes().contains("java.util.concurrent.ConcurrentHashMap"));
+    }
+
+    private static ClassFileReader.Member member(List<ClassFileReader.Member> members, String name) {
+        return members.stream().filter(m -> m.getName().equals(name)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,33 @@
+package lib.report;
+
+import lib.utils.AsyncUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks which class reports a package report keeps, and where.
+ */
+class PackageReportBuilderTest {
+
+    @Test
+    void skippedClassesAreLeftOutOfBothLists() {
+        ClassDepsReport circle = new ClassDepsReport("Circle");
+        circle.addDependency(new AsyncUtils("p.Circle", "p.Shape", AsyncUtils.DependencyType.IMPLEMENTS,
+                "class Circle implements Shape", 2));
+        ClassDepsReport shape = new ClassDepsReport("Shape");
+        ClassDepsReport slow = new ClassDepsReport("Slow");
+        slow.setSkipped(true);
+
+        PackageReportBuilder builder = new PackageReportBuilder("p", 3);
+        assertFalse(builder.add(0, circle));
+        assertFalse(builder.add(1, slow));
+        assertTrue(builder.add(2, shape));
+        PackageDepsReport report = builder.build();
+
+        assertEquals(List.of(circle), report.getClassReports());
+        assertEquals(List.of(shape), report.getClassesWithoutDependencies());
+    }
+}
@@ -0,0 +1,59 @@
+package lib.report;
+
+import io.vertx.core.json.JsonObject;
+import lib.utils.AsyncUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trips reports through their JSON form, which shard workers and the service send over the
+ * wire, so nothing the coupling metrics count may be lost on the way.
+ */
+class ReportJsonTest {
+
+    @Test
+    void projectReportKeepsClassesAndPackagesWithoutDependencies() {
+        ClassDepsReport circle = new ClassDepsReport("Circle");
+        circle.addDependency(new AsyncUtils("impl.Circle", "api.Shape", AsyncUtils.DependencyType.IMPLEMENTS,
+                "class Circle implements Shape", 3));
+        ClassDepsReport point = new ClassDepsReport("Point");
+        ClassDepsReport shape = new ClassDepsReport("Shape");
+        shape.setAbstract(true);
+        ProjectDepsReport report = new ProjectDepsReport("p",
+                List.of(new PackageDepsReport("impl", List.of(circle), List.of(point))),
+                List.of(new PackageDepsReport("api", List.of(), List.of(shape))));
+
+        ProjectDepsReport read = ReportJson.projectReportFromJson(ReportJson.toJson(report));
+
+        assertEquals("p", read.getProjectName());
+        PackageDepsReport impl = read.getPackageReports().get(0);
+        assertEquals("impl", impl.getPackageName());
+        assertEquals(List.of("Circle"), names(impl.getClassReports()));
+        assertEquals(1, impl.getClassReports().get(0).getDependencies().size());
+        assertEquals(List.of("Point"), names(impl.getClassesWithoutDependencies()));
+
+        assertEquals(1, read.getPackagesWithoutDependencies().size());
+        PackageDepsReport api = read.getPackagesWithoutDependencies().get(0);
+        assertEquals("api", api.getPackageName());
+        assertTrue(api.getClassReports().isEmpty());
+        assertEquals(List.of("Shape"), names(api.getClassesWithoutDependencies()));
+        assertTrue(api.getClassesWithoutDependencies().get(0).isAbstract());
+    }
+
+    @Test
+    void packageReportWrittenBeforeTheListsExistedReadsBackEmpty() {
+        PackageDepsReport read = ReportJson.packageReportFromJson(
+                new JsonObject().put("packageName", "a"));
+
+        assertTrue(read.getClassReports().isEmpty());
+        assertTrue(read.getClassesWithoutDependencies().isEmpty());
+    }
+
+    private static List<String> names(List<ClassDepsReport> reports) {
+        return reports.stream().map(ClassDepsReport::getClassName).collect(Collectors.toList());
+    }
+}